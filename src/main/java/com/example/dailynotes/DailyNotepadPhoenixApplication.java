@@ -2,8 +2,10 @@ package com.example.dailynotes;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DailyNotepadPhoenixApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(DailyNotepadPhoenixApplication.class, args);
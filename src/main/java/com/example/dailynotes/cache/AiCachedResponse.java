@@ -0,0 +1,34 @@
+package com.example.dailynotes.cache;
+
+/**
+ * Закэшированный ответ AI вместе с тем, сколько длился исходный запрос к OpenAI.
+ * Длительность нужна для подсчета сэкономленного времени при попаданиях.
+ */
+public class AiCachedResponse {
+    private String content;
+    private long latencyMillis;
+
+    public AiCachedResponse() {
+    }
+
+    public AiCachedResponse(String content, long latencyMillis) {
+        this.content = content;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+}
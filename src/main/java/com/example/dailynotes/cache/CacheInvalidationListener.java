@@ -0,0 +1,45 @@
+package com.example.dailynotes.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Принимает сообщения об инвалидации от других узлов и сбрасывает L1.
+ */
+public class CacheInvalidationListener implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private final TwoLevelCacheManager cacheManager;
+    private final CacheInvalidationPublisher publisher;
+    private final RedisSerializer<Object> serializer;
+
+    public CacheInvalidationListener(TwoLevelCacheManager cacheManager,
+                                     CacheInvalidationPublisher publisher,
+                                     RedisSerializer<Object> serializer) {
+        this.cacheManager = cacheManager;
+        this.publisher = publisher;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object payload = serializer.deserialize(message.getBody());
+            if (!(payload instanceof CacheInvalidationMessage invalidation)) {
+                logger.warn("Неизвестное сообщение в канале инвалидации: {}", payload);
+                return;
+            }
+            if (publisher.isOwnMessage(invalidation)) {
+                return;
+            }
+            cacheManager.evictLocal(invalidation.getCacheName(), invalidation.getKey());
+            logger.debug("Сброшен локальный кэш по сообщению другого узла: {}", invalidation);
+        } catch (Exception e) {
+            logger.warn("Ошибка при обработке сообщения об инвалидации кэша", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.dailynotes.cache;
+
+/**
+ * Сообщение об инвалидации локального кэша, рассылаемое через Redis pub/sub.
+ *
+ * key == null означает полную очистку кэша cacheName.
+ */
+public class CacheInvalidationMessage {
+
+    private String nodeId;
+    private String cacheName;
+    private String key;
+
+    public CacheInvalidationMessage() {
+    }
+
+    public CacheInvalidationMessage(String nodeId, String cacheName, String key) {
+        this.nodeId = nodeId;
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public void setCacheName(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidationMessage{" +
+                "nodeId='" + nodeId + '\'' +
+                ", cacheName='" + cacheName + '\'' +
+                ", key='" + key + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.dailynotes.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Рассылает остальным узлам сообщения о необходимости сбросить L1.
+ *
+ * Ошибки Redis только логируются: L1 живет короткое время (TTL),
+ * поэтому потерянное сообщение ограничено по времени устаревания.
+ */
+public class CacheInvalidationPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationPublisher.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String channel;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(RedisTemplate<String, Object> redisTemplate, String channel, boolean enabled) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.enabled = enabled;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(new CacheInvalidationMessage(nodeId, cacheName, key));
+    }
+
+    public void publishClear(String cacheName) {
+        publish(new CacheInvalidationMessage(nodeId, cacheName, null));
+    }
+
+    public boolean isOwnMessage(CacheInvalidationMessage message) {
+        return nodeId.equals(message.getNodeId());
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    private void publish(CacheInvalidationMessage message) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            logger.warn("Не удалось отправить сообщение об инвалидации кэша {}: {}", message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.dailynotes.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запускает подписку на канал Redis pub/sub, не блокируя старт приложения.
+ *
+ * RedisMessageListenerContainer падает при старте, если Redis недоступен,
+ * а приложение должно подниматься и без него (как и раньше, без L1).
+ * Поэтому подписываемся в фоне и повторяем попытку, пока Redis не появится.
+ * Используется для канала инвалидации кэша и канала уведомлений SSE.
+ */
+public class CacheInvalidationSubscriber implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationSubscriber.class);
+
+    private final RedisMessageListenerContainer container;
+    private final Duration retryInterval;
+    private final String name;
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    public CacheInvalidationSubscriber(RedisMessageListenerContainer container, Duration retryInterval) {
+        this(container, retryInterval, "cache-invalidation");
+    }
+
+    /**
+     * @param name имя канала для логов и потока подписки
+     */
+    public CacheInvalidationSubscriber(RedisMessageListenerContainer container, Duration retryInterval, String name) {
+        this.container = container;
+        this.retryInterval = retryInterval;
+        this.name = name;
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-subscriber");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        executor.execute(this::trySubscribe);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (container.isRunning()) {
+            container.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void trySubscribe() {
+        if (!running) {
+            return;
+        }
+        try {
+            container.start();
+            logger.info("Подписка на канал {} установлена", name);
+        } catch (Exception e) {
+            logger.warn("Не удалось подписаться на канал {}, повтор через {}: {}",
+                    name, retryInterval, e.getMessage());
+            if (container.isRunning()) {
+                container.stop();
+            }
+            executor.schedule(this::trySubscribe, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
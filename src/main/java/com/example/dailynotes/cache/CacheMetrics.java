@@ -0,0 +1,46 @@
+package com.example.dailynotes.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Счетчики одного двухуровневого кэша, тег cache = имя кэша:
+ * - cache.gets{result=hit|miss} - итог чтения (попадание в L1 или Redis / промах обоих);
+ * - cache.local.gets{result=hit|miss} - чтения из L1;
+ * - cache.puts, cache.evictions, cache.clears - запись, удаление ключа и очистка кэша;
+ * - cache.local.size - оценка числа записей в L1.
+ *
+ * Счетчики регистрируются один раз при создании кэша.
+ */
+class CacheMetrics {
+
+    final Counter hits;
+    final Counter misses;
+    final Counter localHits;
+    final Counter localMisses;
+    final Counter puts;
+    final Counter evictions;
+    final Counter clears;
+
+    CacheMetrics(MeterRegistry registry, String cacheName,
+                 com.github.benmanes.caffeine.cache.Cache<String, Object> local) {
+        hits = counter(registry, "cache.gets", cacheName, "hit");
+        misses = counter(registry, "cache.gets", cacheName, "miss");
+        localHits = counter(registry, "cache.local.gets", cacheName, "hit");
+        localMisses = counter(registry, "cache.local.gets", cacheName, "miss");
+        puts = Counter.builder("cache.puts").tag("cache", cacheName).register(registry);
+        evictions = Counter.builder("cache.evictions").tag("cache", cacheName).register(registry);
+        clears = Counter.builder("cache.clears").tag("cache", cacheName).register(registry);
+        Gauge.builder("cache.local.size", local, cache -> cache.estimatedSize())
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String cacheName, String result) {
+        return Counter.builder(name)
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.dailynotes.cache;
+
+import com.example.dailynotes.entity.Note;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.Collection;
+
+/**
+ * Оценка "веса" значения локального кэша в байтах.
+ *
+ * Оценка приблизительная: нам важно, чтобы список из сотни заметок весил
+ * больше одной заметки, а не точный размер объекта в куче.
+ */
+public class CacheValueWeigher implements Weigher<String, Object> {
+
+    private static final int OBJECT_OVERHEAD = 64;
+
+    @Override
+    public int weigh(String key, Object value) {
+        long weight = 2L * key.length() + estimate(value);
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Note note) {
+            return OBJECT_OVERHEAD + chars(note.getTitle()) + chars(note.getContent());
+        }
+        if (value instanceof AiCachedResponse response) {
+            return OBJECT_OVERHEAD + chars(response.getContent());
+        }
+        if (value instanceof CharSequence text) {
+            return OBJECT_OVERHEAD + 2L * text.length();
+        }
+        if (value instanceof Collection<?> collection) {
+            long total = OBJECT_OVERHEAD;
+            for (Object element : collection) {
+                total += estimate(element);
+            }
+            return total;
+        }
+        return OBJECT_OVERHEAD;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+}
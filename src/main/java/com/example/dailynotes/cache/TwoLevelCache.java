@@ -0,0 +1,156 @@
+package com.example.dailynotes.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Двухуровневый кэш: L1 в памяти процесса (Caffeine) перед L2 в Redis.
+ *
+ * Чтение сначала идет в L1 и только при промахе - в Redis. Запись и удаление
+ * всегда проходят через Redis и рассылаются остальным узлам, чтобы они
+ * сбросили свои локальные копии: после записи другой узел прочитает новое значение из Redis.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheMetrics metrics;
+
+    TwoLevelCache(String name,
+                  com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                  Cache remote,
+                  CacheInvalidationPublisher invalidationPublisher,
+                  CacheMetrics metrics) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            metrics.localHits.increment();
+            metrics.hits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        metrics.localMisses.increment();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(localKey, wrapper.get());
+            metrics.hits.increment();
+        } else {
+            metrics.misses.increment();
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Значение в кэше " + name + " не является экземпляром " + type.getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            metrics.localHits.increment();
+            metrics.hits.increment();
+            return (T) value;
+        }
+        metrics.localMisses.increment();
+        // Промах Redis виден только по вызову загрузчика
+        boolean[] missed = new boolean[1];
+        T loaded = remote.get(key, () -> {
+            missed[0] = true;
+            return valueLoader.call();
+        });
+        (missed[0] ? metrics.misses : metrics.hits).increment();
+        if (loaded != null) {
+            local.put(localKey, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        metrics.puts.increment();
+        remote.put(key, value);
+        String localKey = localKey(key);
+        if (value != null) {
+            local.put(localKey, value);
+        } else {
+            local.invalidate(localKey);
+        }
+        // Свое сообщение узел пропускает, поэтому только что записанное значение в L1 остается
+        invalidationPublisher.publishEvict(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        metrics.evictions.increment();
+        remote.evict(key);
+        evictLocal(key);
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        metrics.clears.increment();
+        remote.clear();
+        clearLocal();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Удаляет ключ только из L1 (используется при получении сообщения от другого узла).
+     */
+    public void evictLocal(Object key) {
+        local.invalidate(localKey(key));
+    }
+
+    /**
+     * Очищает только L1.
+     */
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+
+    public long localSize() {
+        return local.estimatedSize();
+    }
+
+    /**
+     * Ключи L1 приводятся к строке так же, как RedisCache формирует ключи L2,
+     * поэтому сообщение об инвалидации можно передавать строкой между узлами.
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.dailynotes.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CacheManager, который ставит ограниченный по весу локальный кэш (L1)
+ * перед любым удаленным CacheManager (L2, в нашем случае Redis).
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final LocalCacheSpec defaultSpec;
+    private final Map<String, LocalCacheSpec> specs = new ConcurrentHashMap<>();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    // Пустой CompositeMeterRegistry отдает no-op счетчики, если реестр метрик не задан
+    private MeterRegistry meterRegistry = new CompositeMeterRegistry();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                CacheInvalidationPublisher invalidationPublisher,
+                                LocalCacheSpec defaultSpec) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.defaultSpec = defaultSpec;
+    }
+
+    /**
+     * Отдельные настройки L1 для конкретного кэша (размер, TTL).
+     */
+    public TwoLevelCacheManager withLocalSpec(String cacheName, LocalCacheSpec spec) {
+        specs.put(cacheName, spec);
+        return this;
+    }
+
+    /**
+     * Реестр для метрик кэшей (см. {@link CacheMetrics}). Задается до первого обращения к кэшам.
+     */
+    public TwoLevelCacheManager withMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> createCache(cacheName, remote));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Вызывается при получении сообщения об инвалидации от другого узла.
+     */
+    public void evictLocal(String cacheName, String key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(key);
+        }
+    }
+
+    private TwoLevelCache createCache(String name, Cache remote) {
+        LocalCacheSpec spec = specs.getOrDefault(name, defaultSpec);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumWeight(spec.maxWeightBytes())
+                .weigher(new CacheValueWeigher())
+                .expireAfterWrite(spec.ttl())
+                .build();
+        return new TwoLevelCache(name, local, remote, invalidationPublisher,
+                new CacheMetrics(meterRegistry, name, local));
+    }
+
+    /**
+     * Параметры локального уровня кэша.
+     *
+     * @param maxWeightBytes максимальный суммарный вес значений (оценка в байтах)
+     * @param ttl время жизни записи в L1, должно быть меньше TTL в Redis
+     */
+    public record LocalCacheSpec(long maxWeightBytes, Duration ttl) {
+    }
+}
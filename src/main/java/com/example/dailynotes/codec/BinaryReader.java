@@ -0,0 +1,109 @@
+package com.example.dailynotes.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Читатель формата, записанного {@link BinaryWriter}.
+ *
+ * При выходе за границы буфера бросает {@link IllegalArgumentException},
+ * чтобы поврежденные данные не превращались в тихо неверные значения.
+ */
+public final class BinaryReader {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинный varint");
+    }
+
+    public int readVarInt() {
+        long value = readVarLong();
+        if (value > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("varint не помещается в int: " + value);
+        }
+        return (int) value;
+    }
+
+    public long readSignedVarLong() {
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixedLong());
+    }
+
+    public long readFixedLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public byte[] readBytes() {
+        int length = readVarInt();
+        require(length);
+        byte[] value = new byte[length];
+        System.arraycopy(buffer, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    public void skip(int length) {
+        require(length);
+        position += length;
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    private void require(int length) {
+        if (length < 0 || position + length > limit) {
+            throw new IllegalArgumentException("Неожиданный конец данных");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.dailynotes.codec;
+
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Выбор сериализатора значений кэша по имени из настроек.
+ *
+ * Поддерживаемые значения:
+ * - json        - GenericJackson2JsonRedisSerializer (прежний формат)
+ * - binary      - компактный бинарный формат без сжатия
+ * - binary-lz4  - бинарный формат со сжатием LZ4 начиная с порога размера
+ */
+public final class CacheCodecs {
+
+    public static final String JSON = "json";
+    public static final String BINARY = "binary";
+    public static final String BINARY_LZ4 = "binary-lz4";
+
+    private CacheCodecs() {
+    }
+
+    /**
+     * JSON-сериализатор с поддержкой java.time (LocalDate в Note).
+     * Сериализатор по умолчанию не умеет LocalDate и падает на любой заметке.
+     */
+    public static GenericJackson2JsonRedisSerializer json() {
+        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        serializer.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        return serializer;
+    }
+
+    public static RedisSerializer<Object> forName(String codec, int compressionThreshold) {
+        String normalized = codec == null ? JSON : codec.trim().toLowerCase();
+        switch (normalized) {
+            case JSON:
+                return json();
+            case BINARY:
+                return new NoteBinaryRedisSerializer(0);
+            case BINARY_LZ4:
+                return new NoteBinaryRedisSerializer(compressionThreshold);
+            default:
+                throw new IllegalArgumentException("Неизвестный кодек кэша: " + codec);
+        }
+    }
+}
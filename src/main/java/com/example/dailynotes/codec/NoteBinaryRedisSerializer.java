@@ -0,0 +1,193 @@
+package com.example.dailynotes.codec;
+
+import com.example.dailynotes.entity.Note;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Компактный версионируемый бинарный формат для значений кэша заметок.
+ *
+ * Формат: [MAGIC][VERSION][FLAGS] + тело. Тело при флаге COMPRESSED сжато LZ4
+ * и предваряется исходной длиной. Тело начинается с типа значения:
+ * одна заметка, список заметок или JSON для всех остальных типов.
+ *
+ * Значения без MAGIC читаются как JSON, поэтому записи, оставшиеся в Redis
+ * от GenericJackson2JsonRedisSerializer, продолжают читаться после переключения.
+ *
+ * Версия 2 добавила к заметке Note.version (флаг HAS_VERSION): по ней REST API
+ * строит ETag. Значения версии 1 читаются с версией заметки 0.
+ */
+public class NoteBinaryRedisSerializer implements RedisSerializer<Object> {
+
+    static final int MAGIC = 0xB7;
+    static final int FORMAT_VERSION = 2;
+
+    private static final int FLAG_COMPRESSED = 1;
+
+    private static final int TYPE_JSON = 0;
+    private static final int TYPE_NOTE = 1;
+    private static final int TYPE_NOTE_LIST = 2;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_TITLE = 1 << 1;
+    private static final int HAS_CONTENT = 1 << 2;
+    private static final int HAS_DATE = 1 << 3;
+    private static final int COMPLETED = 1 << 4;
+    private static final int HAS_VERSION = 1 << 5;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = CacheCodecs.json();
+    private final LZ4Compressor compressor = LZ4.fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold минимальный размер тела в байтах, начиная с которого
+     *                             оно сжимается LZ4; значение &lt;= 0 отключает сжатие
+     */
+    public NoteBinaryRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        BinaryWriter body = new BinaryWriter(256);
+        writeBody(body, value);
+
+        if (compressionThreshold > 0 && body.size() >= compressionThreshold) {
+            byte[] compressed = compressor.compress(body.buffer(), 0, body.size());
+            if (compressed.length < body.size()) {
+                BinaryWriter out = new BinaryWriter(compressed.length + 8);
+                out.writeByte(MAGIC).writeByte(FORMAT_VERSION).writeByte(FLAG_COMPRESSED);
+                out.writeVarInt(body.size());
+                out.writeRaw(compressed, 0, compressed.length);
+                return out.toByteArray();
+            }
+        }
+        BinaryWriter out = new BinaryWriter(body.size() + 3);
+        out.writeByte(MAGIC).writeByte(FORMAT_VERSION).writeByte(0);
+        out.writeRaw(body.buffer(), 0, body.size());
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        try {
+            BinaryReader header = new BinaryReader(bytes);
+            header.readByte();
+            int version = header.readByte();
+            if (version > FORMAT_VERSION) {
+                throw new SerializationException("Неподдерживаемая версия формата кэша: " + version);
+            }
+            int flags = header.readByte();
+            BinaryReader body;
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                int rawLength = header.readVarInt();
+                byte[] raw = new byte[rawLength];
+                decompressor.decompress(bytes, header.position(), raw, 0, rawLength);
+                body = new BinaryReader(raw);
+            } else {
+                body = new BinaryReader(bytes, header.position(), header.remaining());
+            }
+            return readBody(body);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Не удалось прочитать значение кэша", e);
+        }
+    }
+
+    private void writeBody(BinaryWriter out, Object value) {
+        if (value instanceof Note note) {
+            out.writeByte(TYPE_NOTE);
+            writeNote(out, note);
+        } else if (value instanceof Collection<?> collection && containsOnlyNotes(collection)) {
+            out.writeByte(TYPE_NOTE_LIST);
+            out.writeVarInt(collection.size());
+            for (Object element : collection) {
+                writeNote(out, (Note) element);
+            }
+        } else {
+            out.writeByte(TYPE_JSON);
+            out.writeBytes(jsonSerializer.serialize(value));
+        }
+    }
+
+    private Object readBody(BinaryReader in) {
+        int type = in.readByte();
+        switch (type) {
+            case TYPE_NOTE:
+                return readNote(in);
+            case TYPE_NOTE_LIST:
+                int size = in.readVarInt();
+                List<Note> notes = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    notes.add(readNote(in));
+                }
+                return notes;
+            case TYPE_JSON:
+                return jsonSerializer.deserialize(in.readBytes());
+            default:
+                throw new SerializationException("Неизвестный тип значения кэша: " + type);
+        }
+    }
+
+    private static void writeNote(BinaryWriter out, Note note) {
+        int mask = 0;
+        if (note.getId() != null) mask |= HAS_ID;
+        if (note.getTitle() != null) mask |= HAS_TITLE;
+        if (note.getContent() != null) mask |= HAS_CONTENT;
+        if (note.getDate() != null) mask |= HAS_DATE;
+        if (note.isCompleted()) mask |= COMPLETED;
+        if (note.getVersion() != 0) mask |= HAS_VERSION;
+
+        out.writeByte(mask);
+        if (note.getId() != null) out.writeSignedVarLong(note.getId());
+        if (note.getTitle() != null) out.writeString(note.getTitle());
+        if (note.getContent() != null) out.writeString(note.getContent());
+        if (note.getDate() != null) out.writeSignedVarLong(note.getDate().toEpochDay());
+        out.writeDouble(note.getWeight());
+        if (note.getVersion() != 0) out.writeVarLong(note.getVersion());
+    }
+
+    private static Note readNote(BinaryReader in) {
+        int mask = in.readByte();
+        Note note = new Note();
+        if ((mask & HAS_ID) != 0) note.setId(in.readSignedVarLong());
+        if ((mask & HAS_TITLE) != 0) note.setTitle(in.readString());
+        if ((mask & HAS_CONTENT) != 0) note.setContent(in.readString());
+        if ((mask & HAS_DATE) != 0) note.setDate(LocalDate.ofEpochDay(in.readSignedVarLong()));
+        note.setWeight(in.readDouble());
+        note.setCompleted((mask & COMPLETED) != 0);
+        if ((mask & HAS_VERSION) != 0) note.setVersion(in.readVarLong());
+        return note;
+    }
+
+    private static boolean containsOnlyNotes(Collection<?> collection) {
+        for (Object element : collection) {
+            if (!(element instanceof Note)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
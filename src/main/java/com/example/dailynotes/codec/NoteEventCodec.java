@@ -0,0 +1,233 @@
+package com.example.dailynotes.codec;
+
+import com.example.dailynotes.event.NoteEvent;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Бинарный формат событий заметок для Kafka.
+ *
+ * Формат: [MAGIC][FORMAT_VERSION] + последовательность полей. Каждое поле начинается
+ * с тега varint (номер поля << 3 | тип значения), как в protobuf:
+ * - VARINT - varint (знаковые числа в zigzag);
+ * - FIXED64 - 8 байт (double, хэш);
+ * - BYTES - длина + байты (строки в UTF-8).
+ *
+ * Совместимость схемы:
+ * - все поля необязательные, отсутствующее поле читается как null/значение по умолчанию,
+ *   поэтому новый код читает события старых версий;
+ * - неизвестное поле пропускается по типу значения, поэтому старый код читает события,
+ *   в которые добавили новые поля;
+ * - номера полей и коды типов событий не переиспользуются, FORMAT_VERSION меняется
+ *   только при несовместимом изменении.
+ *
+ * Содержание заметки - основной объем сообщения, а меняется оно редко. У TOGGLED и DELETED
+ * (и у UPDATED, если текст не менялся, см. NoteEvent.contentChanged) вместо текста
+ * пишется 64-битный хэш: получатель может проверить им свою копию текста.
+ */
+public final class NoteEventCodec {
+
+    public static final int MAGIC = 0xE5;
+    public static final int FORMAT_VERSION = 1;
+
+    static final int WIRE_VARINT = 0;
+    static final int WIRE_FIXED64 = 1;
+    static final int WIRE_BYTES = 2;
+
+    // Номера полей: только добавлять, не менять и не переиспользовать
+    static final int FIELD_EVENT_TYPE = 1;
+    static final int FIELD_NOTE_ID = 2;
+    static final int FIELD_VERSION = 3;
+    static final int FIELD_TITLE = 4;
+    static final int FIELD_CONTENT = 5;
+    static final int FIELD_CONTENT_HASH = 6;
+    static final int FIELD_DATE = 7;
+    static final int FIELD_PREVIOUS_DATE = 8;
+    static final int FIELD_WEIGHT = 9;
+    static final int FIELD_PREVIOUS_WEIGHT = 10;
+    static final int FIELD_COMPLETED = 11;
+    static final int FIELD_TIMESTAMP = 12;
+    static final int FIELD_USER_ID = 13;
+    static final int FIELD_IMPORTED_COUNT = 14;
+
+    private static final XXHash64 HASH = XXHashFactory.fastestInstance().hash64();
+    private static final long HASH_SEED = 0x6E6F7465L;
+
+    private NoteEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 2 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    /**
+     * Хэш содержания заметки, который передается вместо текста
+     */
+    public static long contentHash(String content) {
+        byte[] bytes = (content != null ? content : "").getBytes(StandardCharsets.UTF_8);
+        return HASH.hash(bytes, 0, bytes.length, HASH_SEED);
+    }
+
+    public static byte[] encode(NoteEvent event) {
+        int contentLength = event.getContent() != null ? event.getContent().length() : 0;
+        BinaryWriter out = new BinaryWriter(64 + contentLength);
+        out.writeByte(MAGIC).writeByte(FORMAT_VERSION);
+
+        if (event.getEventType() != null) {
+            writeVarint(out, FIELD_EVENT_TYPE, typeCode(event.getEventType()));
+        }
+        if (event.getNoteId() != null) {
+            writeVarint(out, FIELD_NOTE_ID, event.getNoteId());
+        }
+        if (event.getVersion() != null) {
+            writeVarint(out, FIELD_VERSION, event.getVersion());
+        }
+        if (event.getTitle() != null) {
+            writeString(out, FIELD_TITLE, event.getTitle());
+        }
+        if (event.getContent() != null) {
+            if (sendsContent(event)) {
+                writeString(out, FIELD_CONTENT, event.getContent());
+            } else {
+                writeFixed(out, FIELD_CONTENT_HASH, contentHash(event.getContent()));
+            }
+        } else if (event.getContentHash() != null) {
+            writeFixed(out, FIELD_CONTENT_HASH, event.getContentHash());
+        }
+        if (event.getDate() != null) {
+            writeSigned(out, FIELD_DATE, event.getDate().toEpochDay());
+        }
+        if (event.getPreviousDate() != null) {
+            writeSigned(out, FIELD_PREVIOUS_DATE, event.getPreviousDate().toEpochDay());
+        }
+        if (event.getWeight() != 0) {
+            writeFixed(out, FIELD_WEIGHT, Double.doubleToRawLongBits(event.getWeight()));
+        }
+        if (event.getPreviousWeight() != null) {
+            writeFixed(out, FIELD_PREVIOUS_WEIGHT, Double.doubleToRawLongBits(event.getPreviousWeight()));
+        }
+        if (event.isCompleted()) {
+            writeVarint(out, FIELD_COMPLETED, 1);
+        }
+        if (event.getTimestamp() != null) {
+            writeSigned(out, FIELD_TIMESTAMP, event.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (event.getUserId() != null) {
+            writeVarint(out, FIELD_USER_ID, event.getUserId());
+        }
+        if (event.getImportedCount() != null) {
+            writeVarint(out, FIELD_IMPORTED_COUNT, event.getImportedCount());
+        }
+        return out.toByteArray();
+    }
+
+    public static NoteEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Не бинарное событие заметки");
+        }
+        BinaryReader in = new BinaryReader(data);
+        in.readByte();
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия формата события: " + version);
+        }
+
+        NoteEvent event = new NoteEvent();
+        event.setTimestamp(null);
+        while (in.remaining() > 0) {
+            long tag = in.readVarLong();
+            int field = (int) (tag >>> 3);
+            int wireType = (int) (tag & 0x7);
+            switch (field) {
+                case FIELD_EVENT_TYPE -> event.setEventType(typeOf(in.readVarLong()));
+                case FIELD_NOTE_ID -> event.setNoteId(in.readVarLong());
+                case FIELD_VERSION -> event.setVersion(in.readVarLong());
+                case FIELD_TITLE -> event.setTitle(in.readString());
+                case FIELD_CONTENT -> event.setContent(in.readString());
+                case FIELD_CONTENT_HASH -> event.setContentHash(in.readFixedLong());
+                case FIELD_DATE -> event.setDate(LocalDate.ofEpochDay(in.readSignedVarLong()));
+                case FIELD_PREVIOUS_DATE -> event.setPreviousDate(LocalDate.ofEpochDay(in.readSignedVarLong()));
+                case FIELD_WEIGHT -> event.setWeight(in.readDouble());
+                case FIELD_PREVIOUS_WEIGHT -> event.setPreviousWeight(in.readDouble());
+                case FIELD_COMPLETED -> event.setCompleted(in.readVarLong() != 0);
+                case FIELD_TIMESTAMP -> event.setTimestamp(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(in.readSignedVarLong()), ZoneOffset.UTC));
+                case FIELD_USER_ID -> event.setUserId(in.readVarLong());
+                case FIELD_IMPORTED_COUNT -> event.setImportedCount(in.readVarLong());
+                default -> skip(in, wireType);
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Текст нужен получателю, только если он появился или изменился
+     */
+    private static boolean sendsContent(NoteEvent event) {
+        if (event.getEventType() == null) {
+            return true;
+        }
+        return switch (event.getEventType()) {
+            case TOGGLED, DELETED -> false;
+            case UPDATED -> !Boolean.FALSE.equals(event.getContentChanged());
+            default -> true;
+        };
+    }
+
+    // Коды типов событий фиксированы и не зависят от порядка констант в enum
+    private static int typeCode(NoteEvent.EventType type) {
+        return switch (type) {
+            case CREATED -> 1;
+            case UPDATED -> 2;
+            case DELETED -> 3;
+            case TOGGLED -> 4;
+            case BULK_IMPORTED -> 5;
+        };
+    }
+
+    /**
+     * Неизвестный код (тип из более новой версии) читается как null: такое событие
+     * consumer отправляет в dead-letter вместо неверной обработки
+     */
+    private static NoteEvent.EventType typeOf(long code) {
+        return switch ((int) code) {
+            case 1 -> NoteEvent.EventType.CREATED;
+            case 2 -> NoteEvent.EventType.UPDATED;
+            case 3 -> NoteEvent.EventType.DELETED;
+            case 4 -> NoteEvent.EventType.TOGGLED;
+            case 5 -> NoteEvent.EventType.BULK_IMPORTED;
+            default -> null;
+        };
+    }
+
+    private static void skip(BinaryReader in, int wireType) {
+        switch (wireType) {
+            case WIRE_VARINT -> in.readVarLong();
+            case WIRE_FIXED64 -> in.skip(8);
+            case WIRE_BYTES -> in.skip(in.readVarInt());
+            default -> throw new IllegalArgumentException("Неизвестный тип значения поля: " + wireType);
+        }
+    }
+
+    private static void writeVarint(BinaryWriter out, int field, long value) {
+        out.writeVarInt(field << 3 | WIRE_VARINT).writeVarLong(value);
+    }
+
+    private static void writeSigned(BinaryWriter out, int field, long value) {
+        out.writeVarInt(field << 3 | WIRE_VARINT).writeSignedVarLong(value);
+    }
+
+    private static void writeFixed(BinaryWriter out, int field, long value) {
+        out.writeVarInt(field << 3 | WIRE_FIXED64).writeFixedLong(value);
+    }
+
+    private static void writeString(BinaryWriter out, int field, String value) {
+        out.writeVarInt(field << 3 | WIRE_BYTES).writeString(value);
+    }
+}
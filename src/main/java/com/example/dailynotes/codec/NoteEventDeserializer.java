@@ -0,0 +1,40 @@
+package com.example.dailynotes.codec;
+
+import com.example.dailynotes.event.NoteEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Десериализатор событий заметок: бинарный формат определяется по первому байту (MAGIC),
+ * все остальное читается как JSON прежнего формата. Поэтому consumer можно обновить раньше
+ * producer'ов, а сообщения, записанные до переключения формата, продолжают читаться.
+ *
+ * JSON читается только в NoteEvent: заголовки с типом игнорируются, произвольные классы
+ * из сообщения не создаются.
+ */
+public class NoteEventDeserializer implements Deserializer<NoteEvent> {
+
+    private final JsonDeserializer<NoteEvent> jsonDeserializer = new JsonDeserializer<>(NoteEvent.class, false);
+
+    @Override
+    public NoteEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (NoteEventCodec.isBinary(data)) {
+            return NoteEventCodec.decode(data);
+        }
+        return jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public NoteEvent deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.dailynotes.codec;
+
+import com.example.dailynotes.event.NoteEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Сериализатор значений топика событий заметок.
+ *
+ * Формат задается свойством {@link #FORMAT_CONFIG}: binary (NoteEventCodec, по умолчанию)
+ * или json. Значения, не являющиеся NoteEvent, всегда пишутся в JSON.
+ */
+public class NoteEventSerializer implements Serializer<Object> {
+
+    public static final String FORMAT_CONFIG = "note-event.format";
+    public static final String FORMAT_BINARY = "binary";
+    public static final String FORMAT_JSON = "json";
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+    private boolean binary = true;
+
+    public NoteEventSerializer() {
+        jsonSerializer.setAddTypeInfo(false);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        if (format != null) {
+            String name = format.toString().trim().toLowerCase();
+            if (!FORMAT_BINARY.equals(name) && !FORMAT_JSON.equals(name)) {
+                throw new IllegalArgumentException("Неизвестный формат событий: " + format + " (binary, json)");
+            }
+            binary = FORMAT_BINARY.equals(name);
+        }
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (binary && data instanceof NoteEvent event) {
+            return NoteEventCodec.encode(event);
+        }
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        return serialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.dailynotes.config;
+
+import com.example.dailynotes.dto.HttpPoolStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Общая настройка HTTP-клиентов (Reactor Netty) для всех WebClient приложения.
+ *
+ * Каждый клиент получает именованный пул соединений с ограничением числа соединений
+ * и очереди ожидания, вытеснением простаивающих соединений в фоне, TCP keep-alive
+ * и таймаутами на уровне Netty (подключение, ожидание ответа). Для https-адресов
+ * при app.http.client.http2-enabled=true согласуется HTTP/2 (ALPN) с откатом на HTTP/1.1.
+ *
+ * Метрики пулов собираются через {@link ConnectionProvider.MeterRegistrar}: они доступны
+ * в {@link #getPoolStatus()} и, если в контексте есть MeterRegistry, регистрируются в нем
+ * под именами Reactor Netty (reactor.netty.connection.provider.*{name, remote.address, id})
+ * и попадают в /actuator/prometheus.
+ */
+@Component
+public class HttpClientConnectorFactory implements DisposableBean {
+
+    private static final String METRIC_PREFIX = "reactor.netty.connection.provider.";
+
+    @Value("${app.http.client.pending-acquire-max-count:200}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${app.http.client.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMillis;
+
+    @Value("${app.http.client.max-idle-time-seconds:30}")
+    private long maxIdleTimeSeconds;
+
+    @Value("${app.http.client.max-life-time-seconds:300}")
+    private long maxLifeTimeSeconds;
+
+    @Value("${app.http.client.evict-in-background-seconds:30}")
+    private long evictInBackgroundSeconds;
+
+    @Value("${app.http.client.connect-timeout-ms:3000}")
+    private int connectTimeoutMillis;
+
+    @Value("${app.http.client.response-timeout-seconds:60}")
+    private long responseTimeoutSeconds;
+
+    @Value("${app.http.client.max-in-memory-size-bytes:1048576}")
+    private int maxInMemorySizeBytes;
+
+    @Value("${app.http.client.http2-enabled:true}")
+    private boolean http2Enabled;
+
+    @Value("${app.http.client.metrics-enabled:true}")
+    private boolean metricsEnabled;
+
+    private final List<ConnectionProvider> providers = new CopyOnWriteArrayList<>();
+    private final Map<String, PoolEntry> pools = new ConcurrentHashMap<>();
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public HttpClientConnectorFactory(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * WebClient.Builder с коннектором из именованного пула и общими ограничениями кодеков.
+     *
+     * @param builder исходный builder (например, из автоконфигурации Spring Boot)
+     * @param poolName имя пула (в метриках и логах Reactor Netty)
+     * @param baseUrl базовый адрес; HTTP/2 включается только для https
+     * @param maxConnections максимум соединений пула на один адрес
+     */
+    public WebClient.Builder configure(WebClient.Builder builder, String poolName, String baseUrl,
+                                       int maxConnections) {
+        return builder
+                .baseUrl(baseUrl)
+                .clientConnector(createConnector(poolName, baseUrl, maxConnections))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySizeBytes));
+    }
+
+    public ReactorClientHttpConnector createConnector(String poolName, String baseUrl, int maxConnections) {
+        ConnectionProvider.Builder providerBuilder = ConnectionProvider.builder(poolName)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeTimeSeconds))
+                .evictInBackground(Duration.ofSeconds(evictInBackgroundSeconds))
+                // LIFO: нагрузка концентрируется на "теплых" соединениях, лишние простаивают и вытесняются
+                .lifo();
+        if (metricsEnabled) {
+            providerBuilder.metrics(true, () -> new PoolRegistrar());
+        }
+        ConnectionProvider provider = providerBuilder.build();
+        providers.add(provider);
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofSeconds(responseTimeoutSeconds));
+        if (http2Enabled && baseUrl != null && baseUrl.startsWith("https://")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    public List<HttpPoolStatus> getPoolStatus() {
+        List<HttpPoolStatus> result = new ArrayList<>(pools.size());
+        for (PoolEntry entry : pools.values()) {
+            ConnectionPoolMetrics metrics = entry.metrics();
+            result.add(new HttpPoolStatus(entry.poolName(), String.valueOf(entry.remoteAddress()),
+                    metrics.acquiredSize(), metrics.idleSize(), metrics.allocatedSize(),
+                    metrics.pendingAcquireSize(), metrics.maxAllocatedSize(), metrics.maxPendingAcquireSize()));
+        }
+        result.sort(Comparator.comparing(HttpPoolStatus::getPoolName)
+                .thenComparing(HttpPoolStatus::getRemoteAddress));
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        for (ConnectionProvider provider : providers) {
+            provider.dispose();
+        }
+    }
+
+    private record PoolEntry(String poolName, SocketAddress remoteAddress, ConnectionPoolMetrics metrics,
+                             List<Meter> meters) {
+    }
+
+    /**
+     * Reactor Netty создает отдельный пул на каждый удаленный адрес и регистрирует его метрики здесь
+     */
+    private class PoolRegistrar implements ConnectionProvider.MeterRegistrar {
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                    ConnectionPoolMetrics metrics) {
+            List<Meter> meters = new ArrayList<>();
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry != null) {
+                Tags tags = Tags.of("name", poolName, "remote.address", String.valueOf(remoteAddress), "id", id);
+                meters.add(gauge(registry, "active.connections", tags, metrics, ConnectionPoolMetrics::acquiredSize));
+                meters.add(gauge(registry, "idle.connections", tags, metrics, ConnectionPoolMetrics::idleSize));
+                meters.add(gauge(registry, "total.connections", tags, metrics, ConnectionPoolMetrics::allocatedSize));
+                meters.add(gauge(registry, "pending.connections", tags, metrics,
+                        ConnectionPoolMetrics::pendingAcquireSize));
+                meters.add(gauge(registry, "max.connections", tags, metrics, ConnectionPoolMetrics::maxAllocatedSize));
+                meters.add(gauge(registry, "max.pending.connections", tags, metrics,
+                        ConnectionPoolMetrics::maxPendingAcquireSize));
+            }
+            pools.put(id, new PoolEntry(poolName, remoteAddress, metrics, meters));
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            PoolEntry entry = pools.remove(id);
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (entry != null && registry != null) {
+                entry.meters().forEach(registry::remove);
+            }
+        }
+
+        private Meter gauge(MeterRegistry registry, String name, Tags tags, ConnectionPoolMetrics metrics,
+                            ToDoubleFunction<ConnectionPoolMetrics> value) {
+            return Gauge.builder(METRIC_PREFIX + name, metrics, value).tags(tags).register(registry);
+        }
+    }
+}
@@ -1,19 +1,33 @@
 package com.example.dailynotes.config;
 
+import com.example.dailynotes.codec.NoteEventDeserializer;
+import com.example.dailynotes.codec.NoteEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -23,6 +37,7 @@ import java.util.Map;
  * 1. KafkaProducerFactory - фабрику для создания Producer'ов, которые отправляют сообщения в Kafka
  * 2. KafkaConsumerFactory - фабрику для создания Consumer'ов, которые читают сообщения из Kafka
  * 3. ConcurrentKafkaListenerContainerFactory - фабрику для создания контейнеров слушателей Kafka
+ * 4. DeadLetterPublishingRecoverer - отправку необработанных записей в dead-letter топик
  */
 @Configuration
 public class KafkaConfig {
@@ -33,6 +48,60 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${spring.kafka.topic.name:note-events}")
+    private String topicName;
+
+    @Value("${app.kafka.topic.partitions:6}")
+    private int topicPartitions;
+
+    @Value("${app.kafka.topic.replicas:1}")
+    private int topicReplicas;
+
+    @Value("${app.kafka.consumer.concurrency:3}")
+    private int consumerConcurrency;
+
+    @Value("${app.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${app.kafka.consumer.dead-letter-suffix:-dlt}")
+    private String deadLetterSuffix;
+
+    @Value("${app.kafka.consumer.retry.max-retries:5}")
+    private int retryMaxRetries;
+
+    @Value("${app.kafka.consumer.retry.max-interval-ms:30000}")
+    private long retryMaxIntervalMs;
+
+    @Value("${app.kafka.producer.max-block-ms:10000}")
+    private long producerMaxBlockMs;
+
+    @Value("${app.kafka.producer.linger-ms:5}")
+    private long producerLingerMs;
+
+    @Value("${app.kafka.event-format:binary}")
+    private String eventFormat;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Environment environment;
+
+    public KafkaConfig(ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+    }
+
+    /**
+     * Топик событий заметок. Ключ сообщения - ID заметки, поэтому параллельность consumer'ов
+     * ограничена числом партиций. KafkaAdmin создает топик при старте, если его нет
+     * (число партиций существующего топика только увеличивается).
+     */
+    @Bean
+    public NewTopic noteEventsTopic() {
+        return TopicBuilder.name(topicName)
+                .partitions(topicPartitions)
+                .replicas(topicReplicas)
+                .build();
+    }
+
     /**
      * Конфигурация Producer'а
      * Producer отправляет сообщения в Kafka топики
@@ -47,16 +116,25 @@ public class KafkaConfig {
         // Сериализатор для ключа сообщения (String)
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         
-        // Сериализатор для значения сообщения (JSON)
-        // JsonSerializer позволяет отправлять Java объекты в формате JSON
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        // Сериализатор для значения сообщения: NoteEvent - в компактном бинарном формате
+        // (app.kafka.event-format=binary) или в JSON, остальные объекты - в JSON
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, NoteEventSerializer.class);
+        configProps.put(NoteEventSerializer.FORMAT_CONFIG, eventFormat);
         
         // Настройки надежности доставки
         configProps.put(ProducerConfig.ACKS_CONFIG, "all"); // Ждем подтверждения от всех реплик
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3); // Количество попыток при ошибке
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true); // Гарантия уникальности сообщений
+
+        // OutboxRelay отправляет события пачками: небольшая задержка позволяет собрать их в один batch,
+        // а ограничение блокировки не дает relay зависнуть на минуту при недоступном брокере
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producerMaxBlockMs);
         
-        return new DefaultKafkaProducerFactory<>(configProps);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Метрики клиента Kafka (kafka.producer.*): очередь, размер пачек, повторы
+        meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerProducerListener<>(registry)));
+        return factory;
     }
 
     /**
@@ -65,7 +143,10 @@ public class KafkaConfig {
      */
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+        // Время отправки пишет KafkaProducerService (dailynotes.kafka.send), второй таймер не нужен
+        template.setMicrometerEnabled(false);
+        return template;
     }
 
     /**
@@ -85,21 +166,26 @@ public class KafkaConfig {
         // Сериализатор для ключа
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         
-        // Сериализатор для значения (JSON)
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        
-        // Настройки десериализации JSON
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*"); // Доверяем всем пакетам (для разработки)
-        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.example.dailynotes.event.NoteEvent");
+        // Десериализатор для значения: бинарный формат или JSON, всегда в NoteEvent.
+        // ErrorHandlingDeserializer не дает одной битой записи остановить чтение:
+        // такая запись приходит с value == null и уходит в dead-letter топик
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, NoteEventDeserializer.class);
         
         // Откуда начинать читать сообщения при первом запуске
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         
         // Автоматическое подтверждение обработки сообщений
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        // Сколько записей пакетный слушатель получает за один poll
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         
-        return new DefaultKafkaConsumerFactory<>(props);
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(props);
+        // Метрики клиента Kafka (kafka.consumer.*), в том числе отставание consumer'а:
+        // kafka.consumer.fetch.manager.records.lag(.max) по партициям
+        meterRegistry.ifAvailable(registry -> factory.addListener(new MicrometerConsumerListener<>(registry)));
+        return factory;
     }
 
     /**
@@ -112,13 +198,85 @@ public class KafkaConfig {
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         
-        // Позволяет обрабатывать несколько сообщений параллельно
-        factory.setConcurrency(3);
+        // Позволяет обрабатывать несколько сообщений параллельно (не больше числа партиций)
+        factory.setConcurrency(consumerConcurrency);
         
         // Требуется для использования ручного подтверждения (Acknowledgment)
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        configureListenerExecutor(factory);
+
+        // Записи, которые не удалось прочитать или обработать, после повторов уходят в dead-letter
+        factory.setCommonErrorHandler(errorHandler());
         
         return factory;
     }
-}
 
+    /**
+     * Фабрика для пакетных слушателей: метод получает все записи одного poll,
+     * а offset подтверждается один раз на пачку
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(consumerConcurrency);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        configureListenerExecutor(factory);
+
+        // Слушатель сообщает об ошибочной записи через BatchListenerFailedException: записи перед ней
+        // подтверждаются, она повторяется с паузами и уходит в dead-letter, чтение идет дальше.
+        // Если недоступен и dead-letter, запись не пропускается, а повторяется снова
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
+    /**
+     * Ограниченные повторы с растущей паузой (1 с, 2 с, 4 с... до app.kafka.consumer.retry.max-interval-ms),
+     * затем запись уходит в dead-letter топик
+     */
+    private DefaultErrorHandler errorHandler() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(retryMaxRetries);
+        backOff.setInitialInterval(1000L);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(retryMaxIntervalMs);
+        return new DefaultErrorHandler(deadLetterPublishingRecoverer(kafkaTemplate()), backOff);
+    }
+
+    /**
+     * При spring.threads.virtual.enabled=true (Java 21+) потоки consumer'ов - виртуальные.
+     * Spring Boot настраивает так только свою фабрику контейнеров, а наши фабрики объявлены здесь.
+     */
+    private void configureListenerExecutor(ConcurrentKafkaListenerContainerFactory<String, Object> factory) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
+
+    /**
+     * Отправка необработанных записей в dead-letter топик (<топик>-dlt)
+     *
+     * Записи, которые не удалось десериализовать, пересылаются как исходные байты,
+     * поэтому для них используется отдельный KafkaTemplate с ByteArraySerializer.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, producerMaxBlockMs);
+        KafkaTemplate<String, byte[]> bytesTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
+
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, bytesTemplate);
+        templates.put(Object.class, kafkaTemplate);
+
+        // Партиция -1: dead-letter топик может иметь другое число партиций, чем исходный
+        return new DeadLetterPublishingRecoverer(templates,
+                (record, exception) -> new TopicPartition(record.topic() + deadLetterSuffix, -1));
+    }
+}
@@ -20,6 +20,9 @@ public class OpenAIConfig {
     @Value("${openai.api.url:https://api.openai.com/v1}")
     private String apiUrl;
 
+    @Value("${app.http.client.openai.max-connections:16}")
+    private int maxConnections;
+
     /**
      * Создает WebClient для работы с OpenAI API
      * 
@@ -27,11 +30,11 @@ public class OpenAIConfig {
      * - Базовым URL OpenAI API
      * - Заголовком авторизации с API ключом
      * - Таймаутами для запросов
+     * - Отдельным пулом соединений "openai" (см. {@link HttpClientConnectorFactory})
      */
     @Bean
-    public WebClient openaiWebClient() {
-        return WebClient.builder()
-                .baseUrl(apiUrl)
+    public WebClient openaiWebClient(HttpClientConnectorFactory connectorFactory) {
+        return connectorFactory.configure(WebClient.builder(), "openai", apiUrl, maxConnections)
                 .defaultHeader("Authorization", "Bearer " + apiKey)
                 .defaultHeader("Content-Type", "application/json")
                 .build();
@@ -1,6 +1,18 @@
 package com.example.dailynotes.config;
 
+import com.example.dailynotes.cache.CacheInvalidationListener;
+import com.example.dailynotes.cache.CacheInvalidationPublisher;
+import com.example.dailynotes.cache.CacheInvalidationSubscriber;
+import com.example.dailynotes.cache.TwoLevelCacheManager;
+import com.example.dailynotes.codec.CacheCodecs;
+import com.example.dailynotes.push.UpdateBroadcaster;
+import com.example.dailynotes.push.UpdateNoticeListener;
+import com.example.dailynotes.service.AiResponseCache;
+import com.example.dailynotes.service.NoteCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.SimpleKeyGenerator;
@@ -8,9 +20,12 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -21,6 +36,8 @@ import java.time.Duration;
  * Конфигурация Redis.
  *
  * Используем Lettuce в качестве клиента и настраиваем кеширование Spring Cache поверх Redis.
+ * Перед Redis стоит локальный кэш (L1) с коротким TTL, который сбрасывается
+ * на всех узлах через Redis pub/sub при удалении записи.
  */
 @Configuration
 @EnableCaching
@@ -35,6 +52,42 @@ public class RedisConfig {
     @Value("${app.cache.ttl.minutes:10}")
     private long cacheTtlMinutes;
 
+    @Value("${app.cache.maintenance-mode:sync}")
+    private String cacheMaintenanceMode;
+
+    @Value("${app.cache.event.max-staleness-seconds:60}")
+    private long maxStalenessSeconds;
+
+    @Value("${app.cache.local.ttl-seconds:30}")
+    private long localCacheTtlSeconds;
+
+    @Value("${app.cache.local.max-weight-bytes:16777216}")
+    private long localCacheMaxWeightBytes;
+
+    @Value("${app.cache.codec.notes-by-date:binary-lz4}")
+    private String notesByDateCodec;
+
+    @Value("${app.cache.codec.notes-by-id:binary}")
+    private String notesByIdCodec;
+
+    @Value("${app.cache.codec.compression-threshold-bytes:512}")
+    private int compressionThresholdBytes;
+
+    @Value("${app.ai.cache.ttl-minutes:1440}")
+    private long aiCacheTtlMinutes;
+
+    @Value("${app.ai.cache.local.ttl-seconds:300}")
+    private long aiLocalCacheTtlSeconds;
+
+    @Value("${app.ai.cache.local.max-weight-bytes:4194304}")
+    private long aiLocalCacheMaxWeightBytes;
+
+    @Value("${app.cache.invalidation.enabled:true}")
+    private boolean invalidationEnabled;
+
+    @Value("${app.cache.invalidation.channel:dailynotes:cache-invalidation}")
+    private String invalidationChannel;
+
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         return new LettuceConnectionFactory(redisHost, redisPort);
@@ -46,7 +99,7 @@ public class RedisConfig {
         template.setConnectionFactory(connectionFactory);
 
         StringRedisSerializer keySerializer = new StringRedisSerializer();
-        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
+        GenericJackson2JsonRedisSerializer valueSerializer = CacheCodecs.json();
 
         template.setKeySerializer(keySerializer);
         template.setHashKeySerializer(keySerializer);
@@ -57,18 +110,111 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheInvalidationPublisher cacheInvalidationPublisher(RedisTemplate<String, Object> redisTemplate) {
+        return new CacheInvalidationPublisher(redisTemplate, invalidationChannel, invalidationEnabled);
+    }
+
+    /**
+     * Кэш-менеджер L1 + Redis. Если в контексте есть свой RedisCacheWriter (например,
+     * хранилище в памяти в бенчмарках), записи L2 идут через него, а не через соединение.
+     */
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             CacheInvalidationPublisher cacheInvalidationPublisher,
+                                             ObjectProvider<RedisCacheWriter> cacheWriter,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        Duration redisTtl = Duration.ofMinutes(cacheTtlMinutes);
         RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(cacheTtlMinutes))
+                .entryTtl(redisTtl)
                 .disableCachingNullValues()
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                        RedisSerializationContext.SerializationPair.fromSerializer(CacheCodecs.json()));
+
+        // Ответы AI дорогие и по ключу не устаревают, поэтому хранятся дольше заметок
+        Duration aiCacheTtl = Duration.ofMinutes(aiCacheTtlMinutes);
+
+        // В режиме event кэш заметок обновляется асинхронно, поэтому TTL задает
+        // верхнюю границу устаревания на случай потерянного или задержанного события
+        RedisCacheConfiguration noteCacheConfiguration = cacheConfiguration;
+        if (NoteCacheService.MODE_EVENT.equalsIgnoreCase(cacheMaintenanceMode)) {
+            Duration stalenessBound = Duration.ofSeconds(maxStalenessSeconds);
+            if (stalenessBound.compareTo(redisTtl) < 0) {
+                noteCacheConfiguration = cacheConfiguration.entryTtl(stalenessBound);
+            }
+        }
 
-        return RedisCacheManager.builder(connectionFactory)
+        // Кэши заметок хранятся в компактном бинарном формате, кодек выбирается в настройках
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter.getIfAvailable(
+                        () -> RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory)))
                 .cacheDefaults(cacheConfiguration)
+                .withCacheConfiguration(NoteCacheService.NOTES_BY_DATE_CACHE,
+                        withCodec(noteCacheConfiguration, notesByDateCodec))
+                .withCacheConfiguration(NoteCacheService.NOTES_BY_ID_CACHE,
+                        withCodec(noteCacheConfiguration, notesByIdCodec))
+                .withCacheConfiguration(NoteCacheService.NOTE_VERSIONS_CACHE, noteCacheConfiguration)
+                .withCacheConfiguration(NoteCacheService.NOTE_DATE_VERSIONS_CACHE, noteCacheConfiguration)
+                .withCacheConfiguration(AiResponseCache.CACHE_NAME,
+                        cacheConfiguration.entryTtl(aiCacheTtl))
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // L1 не должен жить дольше L2, иначе локальная копия переживет запись в Redis
+        Duration localTtl = Duration.ofSeconds(localCacheTtlSeconds);
+        if (localTtl.compareTo(redisTtl) >= 0) {
+            localTtl = redisTtl.dividedBy(2);
+        }
+        Duration aiLocalTtl = Duration.ofSeconds(aiLocalCacheTtlSeconds);
+        if (aiLocalTtl.compareTo(aiCacheTtl) >= 0) {
+            aiLocalTtl = aiCacheTtl.dividedBy(2);
+        }
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, cacheInvalidationPublisher,
+                new TwoLevelCacheManager.LocalCacheSpec(localCacheMaxWeightBytes, localTtl))
+                .withLocalSpec(AiResponseCache.CACHE_NAME,
+                        new TwoLevelCacheManager.LocalCacheSpec(aiLocalCacheMaxWeightBytes, aiLocalTtl));
+        meterRegistry.ifAvailable(cacheManager::withMeterRegistry);
+        return cacheManager;
+    }
+
+    /**
+     * Подписка на канал инвалидации: другие узлы сообщают, какие ключи сбросить из L1.
+     * Для одноузловой установки можно отключить через app.cache.invalidation.enabled=false.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheInvalidationSubscriber cacheInvalidationSubscriber(RedisConnectionFactory connectionFactory,
+                                                                   TwoLevelCacheManager cacheManager,
+                                                                   CacheInvalidationPublisher cacheInvalidationPublisher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        container.addMessageListener(
+                new CacheInvalidationListener(cacheManager, cacheInvalidationPublisher,
+                        CacheCodecs.json()),
+                new ChannelTopic(invalidationChannel));
+        return new CacheInvalidationSubscriber(container, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Подписка на канал уведомлений SSE: изменения, которые увидели другие узлы,
+     * доставляются подписчикам этого узла. Отключается через app.push.cluster.enabled=false.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.push.cluster.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheInvalidationSubscriber updateNoticeSubscriber(RedisConnectionFactory connectionFactory,
+                                                              UpdateBroadcaster updateBroadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        container.addMessageListener(new UpdateNoticeListener(updateBroadcaster, CacheCodecs.json()),
+                new ChannelTopic(updateBroadcaster.getChannel()));
+        return new CacheInvalidationSubscriber(container, Duration.ofSeconds(30), "push-updates");
+    }
+
+    private RedisCacheConfiguration withCodec(RedisCacheConfiguration base, String codec) {
+        return base.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                CacheCodecs.forName(codec, compressionThresholdBytes)));
     }
 
     @Bean
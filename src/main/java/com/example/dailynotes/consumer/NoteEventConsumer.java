@@ -1,144 +1,420 @@
 package com.example.dailynotes.consumer;
 
 import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.push.UpdateBroadcaster;
+import com.example.dailynotes.service.AiResponseCache;
+import com.example.dailynotes.service.NoteCacheMaintainer;
+import com.example.dailynotes.service.NoteStatsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Consumer для обработки событий из Kafka
- * 
+ *
  * Этот класс слушает топик Kafka и обрабатывает события, связанные с заметками.
- * 
+ *
  * Как это работает:
  * 1. Kafka отправляет сообщения в топик "note-events"
  * 2. @KafkaListener автоматически получает эти сообщения
  * 3. Методы обрабатывают события в зависимости от их типа
  *
+ * Режимы работы (app.kafka.consumer.batch-mode):
+ * - true (по умолчанию): пакетный слушатель получает все записи одного poll,
+ *   группирует их по типу события и подтверждает offset один раз на пачку.
+ *   Ошибочные записи уходят в dead-letter топик и не блокируют остальные.
+ * - false: прежний режим, одна запись - одно подтверждение.
+ * В обоих режимах ошибочная запись повторяется с паузами (app.kafka.consumer.retry.*)
+ * и затем уходит в dead-letter, партиция не останавливается.
+ *
+ * Метрики (таймеры и счетчики создаются при старте):
+ * - dailynotes.events.batch - обработка пачки целиком;
+ * - dailynotes.events.stage{stage=sequencer|cache|stats|push} - этапы пачки;
+ * - dailynotes.events.processing{type} - обработчики группы событий одного типа;
+ * - dailynotes.events.consumed{type} - число обработанных событий;
+ * - dailynotes.events.skipped{reason=duplicate|dead_letter} - повторы и записи в dead-letter.
+ * Поисковый индекс узла обновляет отдельный слушатель в своей группе (NoteSearchIndexListener).
+ * Отставание consumer'а - метрики клиента kafka.consumer.fetch.manager.records.lag (KafkaConfig).
  */
 @Component
 public class NoteEventConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteEventConsumer.class);
 
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer;
+    private final NoteCacheMaintainer noteCacheMaintainer;
+    private final AiResponseCache aiResponseCache;
+    private final NoteStatsService noteStatsService;
+    private final NoteEventSequencer noteEventSequencer;
+    private final UpdateBroadcaster updateBroadcaster;
+
+    private final Timer batchTimer;
+    private final Timer sequencerTimer;
+    private final Timer cacheTimer;
+    private final Timer statsTimer;
+    private final Timer pushTimer;
+    private final Map<NoteEvent.EventType, Timer> processingTimers = new EnumMap<>(NoteEvent.EventType.class);
+    private final Map<NoteEvent.EventType, Counter> consumedCounters = new EnumMap<>(NoteEvent.EventType.class);
+    private final Counter duplicatesCounter;
+    private final Counter deadLetterCounter;
+
+    public NoteEventConsumer(DeadLetterPublishingRecoverer deadLetterRecoverer,
+                             NoteCacheMaintainer noteCacheMaintainer,
+                             AiResponseCache aiResponseCache,
+                             NoteStatsService noteStatsService,
+                             NoteEventSequencer noteEventSequencer,
+                             UpdateBroadcaster updateBroadcaster,
+                             MeterRegistry meterRegistry) {
+        this.deadLetterRecoverer = deadLetterRecoverer;
+        this.noteCacheMaintainer = noteCacheMaintainer;
+        this.aiResponseCache = aiResponseCache;
+        this.noteStatsService = noteStatsService;
+        this.noteEventSequencer = noteEventSequencer;
+        this.updateBroadcaster = updateBroadcaster;
+
+        this.batchTimer = Timer.builder("dailynotes.events.batch")
+                .description("Обработка пачки событий заметок")
+                .register(meterRegistry);
+        this.sequencerTimer = stageTimer(meterRegistry, "sequencer");
+        this.cacheTimer = stageTimer(meterRegistry, "cache");
+        this.statsTimer = stageTimer(meterRegistry, "stats");
+        this.pushTimer = stageTimer(meterRegistry, "push");
+        for (NoteEvent.EventType type : NoteEvent.EventType.values()) {
+            processingTimers.put(type, Timer.builder("dailynotes.events.processing")
+                    .description("Обработка группы событий одного типа")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+            consumedCounters.put(type, Counter.builder("dailynotes.events.consumed")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+        this.duplicatesCounter = skippedCounter(meterRegistry, "duplicate");
+        this.deadLetterCounter = skippedCounter(meterRegistry, "dead_letter");
+    }
+
     /**
-     * Обработчик всех событий о заметках
-     * 
+     * Обработчик всех событий о заметках (по одному)
+     *
      * @KafkaListener - аннотация, которая указывает Spring, что этот метод должен
      *                 слушать указанный топик Kafka
-     * 
+     *
      * Параметры:
      * - topics: название топика Kafka для прослушивания
      * - groupId: ID группы потребителей (из application.properties)
-     * 
+     *
      * @param event событие из Kafka (автоматически десериализуется из JSON)
+     * @param topic топик, из которого пришло сообщение
      * @param partition номер партиции, из которой пришло сообщение
      * @param offset позиция сообщения в партиции
      * @param acknowledgment подтверждение обработки (для ручного управления)
      */
     @KafkaListener(
+            id = "noteEventListener",
             topics = "${spring.kafka.topic.name:note-events}",
             groupId = "${spring.kafka.consumer.group-id}",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{${app.kafka.consumer.enabled:true} and !${app.kafka.consumer.batch-mode:true}}"
     )
     public void consumeNoteEvent(
             @Payload NoteEvent event,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
             @Header(KafkaHeaders.OFFSET) long offset,
             Acknowledgment acknowledgment) {
-        
-        try {
-            logger.info("Получено событие из Kafka: тип={}, noteId={}, partition={}, offset={}", 
-                    event.getEventType(), event.getNoteId(), partition, offset);
-            
-            // Обработка события в зависимости от его типа
-            switch (event.getEventType()) {
-                case CREATED:
-                    handleNoteCreated(event);
-                    break;
-                case UPDATED:
-                    handleNoteUpdated(event);
-                    break;
-                case DELETED:
-                    handleNoteDeleted(event);
-                    break;
-                case TOGGLED:
-                    handleNoteToggled(event);
-                    break;
-                default:
-                    logger.warn("Неизвестный тип события: {}", event.getEventType());
+
+        logger.debug("Получено событие из Kafka: тип={}, noteId={}, partition={}, offset={}",
+                event.getEventType(), event.getNoteId(), partition, offset);
+
+        // Исключение не перехватывается: DefaultErrorHandler повторит запись и отправит ее
+        // в dead-letter, а не подтверждение следующей записи молча пропустит эту
+        long start = System.nanoTime();
+        List<ConsumerRecord<String, NoteEvent>> accepted =
+                noteEventSequencer.order(List.of(new ConsumerRecord<>(topic, partition, offset, null, event)));
+        if (!accepted.isEmpty()) {
+            noteCacheMaintainer.apply(List.of(event));
+            noteStatsService.apply(accepted);
+            dispatch(event.getEventType(), List.of(event));
+            noteEventSequencer.markApplied(accepted);
+            updateBroadcaster.notesChanged(List.of(event));
+            processingTimers.get(event.getEventType()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            consumedCounters.get(event.getEventType()).increment();
+        } else {
+            duplicatesCounter.increment();
+        }
+
+        // Подтверждение успешной обработки сообщения
+        // Это важно для надежности - Kafka не будет повторно отправлять обработанные сообщения
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    /**
+     * Пакетный обработчик: все записи одного poll за один вызов
+     *
+     * Сначала NoteEventSequencer убирает повторы и упорядочивает события каждой заметки по версии.
+     * Затем события группируются по типу и передаются обработчикам целиком.
+     * Если обработка группы падает, группа повторяется по одной записи,
+     * и в dead-letter топик уходят только действительно ошибочные записи.
+     * Если падает любой общий этап пачки (порядок, кэш, статистика, рассылка),
+     * пачка повторяется по одной записи. Ошибка записи передается DefaultErrorHandler
+     * через BatchListenerFailedException: записи перед ней подтверждаются, а она повторяется
+     * с паузами и уходит в dead-letter. Уже выполненные этапы повторяются безопасно:
+     * кэш перезаписывается, статистика пропускает учтенные offset'ы.
+     * Нечитаемые записи уходят в dead-letter до обработки пачки, а записи, отправленные туда
+     * при обработке группы, запоминаются: при повторе по одной записи они пропускаются
+     * и повторно в dead-letter не публикуются.
+     * Offset подтверждается один раз в конце пачки.
+     *
+     * @param records записи из одного poll (value == null, если запись не удалось десериализовать)
+     * @param acknowledgment подтверждение обработки всей пачки
+     */
+    @KafkaListener(
+            id = "noteEventBatchListener",
+            topics = "${spring.kafka.topic.name:note-events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{${app.kafka.consumer.enabled:true} and ${app.kafka.consumer.batch-mode:true}}"
+    )
+    public void consumeNoteEventBatch(List<ConsumerRecord<String, NoteEvent>> records,
+                                      Acknowledgment acknowledgment) {
+        Set<ConsumerRecord<String, NoteEvent>> deadLettered = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<ConsumerRecord<String, NoteEvent>> readable = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            NoteEvent event = record.value();
+            if (event == null || event.getEventType() == null) {
+                deadLetter(record, new IllegalArgumentException("Не удалось прочитать событие"), deadLettered);
+            } else {
+                readable.add(record);
             }
-            
-            // Подтверждение успешной обработки сообщения
-            // Это важно для надежности - Kafka не будет повторно отправлять обработанные сообщения
-            if (acknowledgment != null) {
-                acknowledgment.acknowledge();
+        }
+
+        try {
+            processBatch(readable, deadLettered);
+        } catch (Exception batchError) {
+            logger.warn("Ошибка при обработке пачки событий ({} шт.), обрабатываем по одной записи",
+                    readable.size(), batchError);
+            for (ConsumerRecord<String, NoteEvent> record : readable) {
+                if (deadLettered.contains(record)) {
+                    continue;
+                }
+                try {
+                    processBatch(List.of(record), deadLettered);
+                } catch (Exception e) {
+                    throw new BatchListenerFailedException("Ошибка при обработке события из Kafka", e, record);
+                }
             }
-            
-            logger.info("Событие успешно обработано: noteId={}", event.getNoteId());
-            
-        } catch (Exception e) {
-            logger.error("Ошибка при обработке события из Kafka: noteId={}, тип={}", 
-                    event.getNoteId(), event.getEventType(), e);
+        }
+
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
         }
     }
 
     /**
-     * Обработка события создания заметки
-     *
+     * Все этапы обработки для списка прочитанных записей (пачки или одной записи при повторе).
+     * Записи, отправленные в dead-letter, добавляются в deadLettered.
      */
-    private void handleNoteCreated(NoteEvent event) {
-        logger.info("Обработка события CREATED для заметки ID={}, заголовок={}", 
-                event.getNoteId(), event.getTitle());
-        
-        // Пример: можно отправить уведомление
-        // notificationService.sendNotification("Заметка создана: " + event.getTitle());
-        
-        // Пример: можно обновить поисковый индекс
-        // searchIndexService.indexNote(event);
+    private void processBatch(List<ConsumerRecord<String, NoteEvent>> records,
+                              Set<ConsumerRecord<String, NoteEvent>> deadLettered) {
+        Map<NoteEvent.EventType, List<ConsumerRecord<String, NoteEvent>>> byType =
+                new EnumMap<>(NoteEvent.EventType.class);
+        List<NoteEvent> inOrder = new ArrayList<>(records.size());
+        int failed = 0;
+
+        long batchStart = System.nanoTime();
+        List<ConsumerRecord<String, NoteEvent>> ordered = noteEventSequencer.order(records);
+        long stageStart = recordSince(sequencerTimer, batchStart);
+        for (ConsumerRecord<String, NoteEvent> record : ordered) {
+            NoteEvent event = record.value();
+            inOrder.add(event);
+            byType.computeIfAbsent(event.getEventType(), type -> new ArrayList<>()).add(record);
+        }
+
+        // Кэш обновляется в исходном порядке событий: группировка по типу
+        // переставила бы, например, UPDATED после DELETED той же заметки
+        noteCacheMaintainer.apply(inOrder);
+        stageStart = recordSince(cacheTimer, stageStart);
+        // Статистика учитывает offset каждой записи: при ошибке БД исключение повторит пачку,
+        // а уже учтенные записи будут пропущены
+        noteStatsService.apply(ordered);
+        stageStart = recordSince(statsTimer, stageStart);
+
+        for (Map.Entry<NoteEvent.EventType, List<ConsumerRecord<String, NoteEvent>>> entry : byType.entrySet()) {
+            failed += processGroup(entry.getKey(), entry.getValue(), deadLettered);
+            stageStart = recordSince(processingTimers.get(entry.getKey()), stageStart);
+            consumedCounters.get(entry.getKey()).increment(entry.getValue().size());
+        }
+        noteEventSequencer.markApplied(ordered);
+        // Подписчики SSE узнают об изменении, когда кэш уже обновлен: перечитывание его увидит
+        updateBroadcaster.notesChanged(inOrder);
+        recordSince(pushTimer, stageStart);
+
+        recordSince(batchTimer, batchStart);
+        duplicatesCounter.increment(records.size() - ordered.size());
+        logger.info("Обработана пачка событий из Kafka: записей={}, повторов={}, в dead-letter={}",
+                records.size(), records.size() - ordered.size(), failed);
     }
 
     /**
-     * Обработка события обновления заметки
+     * Обработка группы событий одного типа. Возвращает количество записей, ушедших в dead-letter.
      */
-    private void handleNoteUpdated(NoteEvent event) {
-        logger.info("Обработка события UPDATED для заметки ID={}, заголовок={}", 
-                event.getNoteId(), event.getTitle());
-        
-        // Пример: обновление кэша
-        // cacheService.invalidateNote(event.getNoteId());
+    private int processGroup(NoteEvent.EventType type, List<ConsumerRecord<String, NoteEvent>> group,
+                             Set<ConsumerRecord<String, NoteEvent>> deadLettered) {
+        List<NoteEvent> events = new ArrayList<>(group.size());
+        for (ConsumerRecord<String, NoteEvent> record : group) {
+            events.add(record.value());
+        }
+        try {
+            dispatch(type, events);
+            return 0;
+        } catch (Exception groupError) {
+            logger.warn("Ошибка при обработке группы событий {} ({} шт.), обрабатываем по одному",
+                    type, group.size(), groupError);
+        }
+
+        int failed = 0;
+        for (ConsumerRecord<String, NoteEvent> record : group) {
+            try {
+                dispatch(type, List.of(record.value()));
+            } catch (Exception e) {
+                deadLetter(record, e, deadLettered);
+                failed++;
+            }
+        }
+        return failed;
     }
 
     /**
-     * Обработка события удаления заметки
+     * Записывает время с start в таймер и возвращает текущее время - начало следующего этапа
      */
-    private void handleNoteDeleted(NoteEvent event) {
-        logger.info("Обработка события DELETED для заметки ID={}", event.getNoteId());
-        
-        // Пример: удаление из поискового индекса
-        // searchIndexService.removeNote(event.getNoteId());
-        
-        // Пример: очистка кэша
-        // cacheService.removeNote(event.getNoteId());
+    private static long recordSince(Timer timer, long start) {
+        long now = System.nanoTime();
+        timer.record(now - start, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("dailynotes.events.stage")
+                .description("Этапы обработки пачки событий заметок")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static Counter skippedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("dailynotes.events.skipped")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private void dispatch(NoteEvent.EventType type, List<NoteEvent> events) {
+        // Обработка событий в зависимости от их типа
+        switch (type) {
+            case CREATED:
+                handleNotesCreated(events);
+                break;
+            case UPDATED:
+                handleNotesUpdated(events);
+                break;
+            case DELETED:
+                handleNotesDeleted(events);
+                break;
+            case TOGGLED:
+                handleNotesToggled(events);
+                break;
+            case BULK_IMPORTED:
+                handleNotesImported(events);
+                break;
+            default:
+                logger.warn("Неизвестный тип события: {}", type);
+        }
+    }
+
+    private void deadLetter(ConsumerRecord<String, NoteEvent> record, Exception cause,
+                            Set<ConsumerRecord<String, NoteEvent>> deadLettered) {
+        if (!deadLettered.add(record)) {
+            return;
+        }
+        deadLetterCounter.increment();
+        logger.error("Событие отправлено в dead-letter топик: partition={}, offset={}, причина={}",
+                record.partition(), record.offset(), cause.getMessage());
+        // Если dead-letter недоступен, исключение прерывает пачку, и она будет прочитана повторно
+        try {
+            deadLetterRecoverer.accept(record, cause);
+        } catch (RuntimeException e) {
+            deadLettered.remove(record);
+            throw e;
+        }
     }
 
     /**
-     * Обработка события изменения статуса заметки
+     * Обработка событий создания заметок
+     *
      */
-    private void handleNoteToggled(NoteEvent event) {
-        logger.info("Обработка события TOGGLED для заметки ID={}", event.getNoteId());
-        
-        // Пример: обновление статистики выполненных задач
-        // statisticsService.updateCompletedTasksCount();
+    private void handleNotesCreated(List<NoteEvent> events) {
+        logger.debug("Обработка {} событий CREATED", events.size());
+
+        // Пример: можно отправить уведомление
+        // notificationService.sendNotification("Заметка создана: " + event.getTitle());
+
+        // Поисковый индекс обновляет NoteSearchIndexListener
     }
-}
 
+    /**
+     * Обработка событий обновления заметок
+     */
+    private void handleNotesUpdated(List<NoteEvent> events) {
+        logger.debug("Обработка {} событий UPDATED", events.size());
+
+        // Кэш заметок обновляется в NoteCacheMaintainer до группировки по типу
+        aiResponseCache.evictForNotes(events);
+    }
+
+    /**
+     * Обработка событий удаления заметок
+     */
+    private void handleNotesDeleted(List<NoteEvent> events) {
+        logger.debug("Обработка {} событий DELETED", events.size());
 
+        aiResponseCache.evictForNotes(events);
+    }
 
+    /**
+     * Обработка событий изменения статуса заметок
+     */
+    private void handleNotesToggled(List<NoteEvent> events) {
+        logger.debug("Обработка {} событий TOGGLED", events.size());
 
+        // Счетчики выполненных заметок обновляет NoteStatsService до группировки по типу
+    }
 
+    /**
+     * Обработка событий массового импорта: одно событие на весь импорт вместо события на заметку
+     */
+    private void handleNotesImported(List<NoteEvent> events) {
+        for (NoteEvent event : events) {
+            logger.info("Импортировано заметок: {} (даты {} - {})",
+                    event.getImportedCount(), event.getPreviousDate(), event.getDate());
+        }
+    }
+}
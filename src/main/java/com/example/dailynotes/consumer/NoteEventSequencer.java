@@ -0,0 +1,160 @@
+package com.example.dailynotes.consumer;
+
+import com.example.dailynotes.event.NoteEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Порядок и дедупликация событий заметки по NoteEvent.version.
+ *
+ * Kafka сохраняет порядок только внутри партиции, а relay outbox при повторной
+ * отправке может записать одно событие дважды. Поэтому перед обработчиками пачка
+ * проходит через sequencer:
+ * - события одной заметки внутри пачки сортируются по версии;
+ * - версия не больше уже обработанной (повтор или устаревшее событие) отбрасывается.
+ * Последние версии хранятся в note_event_versions и записываются после обработки пачки,
+ * поэтому при падении до подтверждения пачка будет обработана повторно, а не потеряна.
+ *
+ * События без версии (старые сообщения, BULK_IMPORTED) и нечитаемые записи проходят как есть.
+ * Пропуск версии здесь только логируется: кэш берет из события полное состояние
+ * заметки, а статистика считает разницу от своего учтенного состояния заметки.
+ */
+@Component
+public class NoteEventSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventSequencer.class);
+
+    private static final String RAISE_VERSION =
+            "update note_event_versions set last_version = ? where note_id = ? and last_version < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public NoteEventSequencer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Записи пачки без повторов, события каждой заметки - по возрастанию версии.
+     * Позиции в пачке сохраняются: заметка занимает те же места, что и раньше, только по порядку.
+     */
+    public List<ConsumerRecord<String, NoteEvent>> order(List<ConsumerRecord<String, NoteEvent>> records) {
+        Map<Long, List<ConsumerRecord<String, NoteEvent>>> byNote = new LinkedHashMap<>();
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            if (isVersioned(record)) {
+                byNote.computeIfAbsent(record.value().getNoteId(), id -> new ArrayList<>()).add(record);
+            }
+        }
+        if (byNote.isEmpty()) {
+            return records;
+        }
+
+        Map<Long, Long> applied = loadVersions(byNote.keySet());
+        Map<Long, Deque<ConsumerRecord<String, NoteEvent>>> queues = new HashMap<>();
+        int dropped = 0;
+        for (Map.Entry<Long, List<ConsumerRecord<String, NoteEvent>>> entry : byNote.entrySet()) {
+            List<ConsumerRecord<String, NoteEvent>> events = entry.getValue();
+            events.sort(Comparator.comparing(record -> record.value().getVersion()));
+            long last = applied.getOrDefault(entry.getKey(), -1L);
+            Deque<ConsumerRecord<String, NoteEvent>> queue = new ArrayDeque<>(events.size());
+            for (ConsumerRecord<String, NoteEvent> record : events) {
+                long version = record.value().getVersion();
+                if (version <= last) {
+                    dropped++;
+                    continue;
+                }
+                if (last >= 0 && version > last + 1) {
+                    logger.warn("Пропущены события заметки {}: версии {} - {}", entry.getKey(), last + 1, version - 1);
+                }
+                queue.add(record);
+                last = version;
+            }
+            queues.put(entry.getKey(), queue);
+        }
+
+        List<ConsumerRecord<String, NoteEvent>> ordered = new ArrayList<>(records.size() - dropped);
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            if (!isVersioned(record)) {
+                ordered.add(record);
+                continue;
+            }
+            ConsumerRecord<String, NoteEvent> next = queues.get(record.value().getNoteId()).poll();
+            if (next != null) {
+                ordered.add(next);
+            }
+        }
+        if (dropped > 0) {
+            logger.info("Отброшено повторных или устаревших событий: {}", dropped);
+        }
+        return ordered;
+    }
+
+    /**
+     * Сохранение последних версий обработанных событий. Вызывается после обработки пачки.
+     */
+    public void markApplied(List<ConsumerRecord<String, NoteEvent>> records) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            if (isVersioned(record)) {
+                versions.merge(record.value().getNoteId(), record.value().getVersion(), Math::max);
+            }
+        }
+        if (versions.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(versions.entrySet());
+        List<Object[]> batch = new ArrayList<>(entries.size());
+        for (Map.Entry<Long, Long> entry : entries) {
+            batch.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()});
+        }
+        // Версия только растет: повторно обработанная старая пачка не откатывает last_version
+        int[] updated = jdbcTemplate.batchUpdate(RAISE_VERSION, batch);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                // Строки нет или в ней версия не меньше - вставка различает эти случаи по ключу
+                insertVersion(entries.get(i).getKey(), entries.get(i).getValue());
+            }
+        }
+    }
+
+    private void insertVersion(Long noteId, long version) {
+        try {
+            jdbcTemplate.update("insert into note_event_versions (note_id, last_version) values (?, ?)", noteId, version);
+        } catch (DuplicateKeyException e) {
+            // Строка уже есть (или ее вставил параллельный поток) - поднимаем версию, если она меньше
+            jdbcTemplate.update(RAISE_VERSION, version, noteId, version);
+        }
+    }
+
+    private Map<Long, Long> loadVersions(Collection<Long> noteIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        namedJdbcTemplate.query("select note_id, last_version from note_event_versions where note_id in (:ids)",
+                new MapSqlParameterSource("ids", noteIds),
+                rs -> {
+                    versions.put(rs.getLong(1), rs.getLong(2));
+                });
+        return versions;
+    }
+
+    private static boolean isVersioned(ConsumerRecord<String, NoteEvent> record) {
+        NoteEvent event = record.value();
+        return event != null && event.getNoteId() != null && event.getVersion() != null;
+    }
+}
@@ -2,13 +2,26 @@ package com.example.dailynotes.controller;
 
 import com.example.dailynotes.dto.AIRequest;
 import com.example.dailynotes.dto.AIResponse;
+import com.example.dailynotes.dto.AiCacheStatus;
+import com.example.dailynotes.dto.AiCapacityStatus;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.exception.AiCapacityExceededException;
+import com.example.dailynotes.service.AiConcurrencyLimiter;
+import com.example.dailynotes.service.AiResponseCache;
 import com.example.dailynotes.service.AIService;
 import com.example.dailynotes.service.NoteService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * REST API контроллер для AI функций
@@ -20,6 +33,9 @@ import org.springframework.web.bind.annotation.*;
  * - Генерации заголовков
  * - Улучшения текста
  * - Генерации задач
+ *
+ * Endpoints возвращают {@link Mono}: Spring MVC освобождает поток Tomcat на время
+ * запроса к OpenAI. Если пул запросов к AI переполнен, ответ - 429 Too Many Requests.
  */
 @RestController
 @RequestMapping("/api/ai")
@@ -29,11 +45,16 @@ public class AIController {
 
     private final AIService aiService;
     private final NoteService noteService;
+    private final AiConcurrencyLimiter concurrencyLimiter;
+    private final AiResponseCache responseCache;
 
     @Autowired
-    public AIController(AIService aiService, NoteService noteService) {
+    public AIController(AIService aiService, NoteService noteService, AiConcurrencyLimiter concurrencyLimiter,
+                        AiResponseCache responseCache) {
         this.aiService = aiService;
         this.noteService = noteService;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.responseCache = responseCache;
     }
 
     /**
@@ -42,10 +63,9 @@ public class AIController {
      * Body: { "prompt": "тема заметки" }
      */
     @PostMapping("/ideas")
-    public ResponseEntity<AIResponse> generateIdeas(@RequestBody AIRequest request) {
+    public Mono<ResponseEntity<AIResponse>> generateIdeas(@RequestBody AIRequest request) {
         logger.info("Запрос на генерацию идей: {}", request.getPrompt());
-        AIResponse response = aiService.generateIdeas(request.getPrompt());
-        return ResponseEntity.ok(response);
+        return respond(aiService.generateIdeas(request.getPrompt()));
     }
 
     /**
@@ -54,10 +74,21 @@ public class AIController {
      * Body: { "prompt": "начальный текст" }
      */
     @PostMapping("/autocomplete")
-    public ResponseEntity<AIResponse> autocomplete(@RequestBody AIRequest request) {
+    public Mono<ResponseEntity<AIResponse>> autocomplete(@RequestBody AIRequest request) {
         logger.info("Запрос на автодополнение текста");
-        AIResponse response = aiService.autocompleteText(request.getPrompt());
-        return ResponseEntity.ok(response);
+        return respond(aiService.autocompleteText(request.getPrompt()));
+    }
+
+    /**
+     * Потоковое автодополнение текста
+     * POST /api/ai/autocomplete/stream
+     * Body: { "prompt": "начальный текст" }
+     * Ответ: text/event-stream, события token (AIResponse с фрагментом текста), done или error
+     */
+    @PostMapping(value = "/autocomplete/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<AIResponse>> autocompleteStream(@RequestBody AIRequest request) {
+        logger.info("Запрос на потоковое автодополнение текста");
+        return stream(aiService.streamAutocompleteText(request.getPrompt()));
     }
 
     /**
@@ -66,10 +97,9 @@ public class AIController {
      * Body: { "prompt": "содержание заметки" }
      */
     @PostMapping("/summarize")
-    public ResponseEntity<AIResponse> summarize(@RequestBody AIRequest request) {
+    public Mono<ResponseEntity<AIResponse>> summarize(@RequestBody AIRequest request) {
         logger.info("Запрос на создание резюме заметки");
-        AIResponse response = aiService.summarizeNote(request.getPrompt());
-        return ResponseEntity.ok(response);
+        return respond(aiService.summarizeNote(request.getPrompt()));
     }
 
     /**
@@ -78,10 +108,9 @@ public class AIController {
      * Body: { "prompt": "содержание заметки" }
      */
     @PostMapping("/title")
-    public ResponseEntity<AIResponse> generateTitle(@RequestBody AIRequest request) {
+    public Mono<ResponseEntity<AIResponse>> generateTitle(@RequestBody AIRequest request) {
         logger.info("Запрос на генерацию заголовка");
-        AIResponse response = aiService.generateTitle(request.getPrompt());
-        return ResponseEntity.ok(response);
+        return respond(aiService.generateTitle(request.getPrompt()));
     }
 
     /**
@@ -90,10 +119,21 @@ public class AIController {
      * Body: { "prompt": "текст для улучшения" }
      */
     @PostMapping("/improve")
-    public ResponseEntity<AIResponse> improveText(@RequestBody AIRequest request) {
+    public Mono<ResponseEntity<AIResponse>> improveText(@RequestBody AIRequest request) {
         logger.info("Запрос на улучшение текста");
-        AIResponse response = aiService.improveText(request.getPrompt());
-        return ResponseEntity.ok(response);
+        return respond(aiService.improveText(request.getPrompt()));
+    }
+
+    /**
+     * Потоковое улучшение текста
+     * POST /api/ai/improve/stream
+     * Body: { "prompt": "текст для улучшения" }
+     * Ответ: text/event-stream, события token (AIResponse с фрагментом текста), done или error
+     */
+    @PostMapping(value = "/improve/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<AIResponse>> improveTextStream(@RequestBody AIRequest request) {
+        logger.info("Запрос на потоковое улучшение текста");
+        return stream(aiService.streamImproveText(request.getPrompt()));
     }
 
     /**
@@ -102,10 +142,9 @@ public class AIController {
      * Body: { "prompt": "содержание заметки" }
      */
     @PostMapping("/tasks")
-    public ResponseEntity<AIResponse> generateTasks(@RequestBody AIRequest request) {
+    public Mono<ResponseEntity<AIResponse>> generateTasks(@RequestBody AIRequest request) {
         logger.info("Запрос на генерацию задач");
-        AIResponse response = aiService.generateTasks(request.getPrompt());
-        return ResponseEntity.ok(response);
+        return respond(aiService.generateTasks(request.getPrompt()));
     }
 
     /**
@@ -113,17 +152,11 @@ public class AIController {
      * GET /api/ai/notes/{id}/summarize
      */
     @GetMapping("/notes/{id}/summarize")
-    public ResponseEntity<AIResponse> summarizeNoteById(@PathVariable Long id) {
+    public Mono<ResponseEntity<AIResponse>> summarizeNoteById(@PathVariable Long id) {
         logger.info("Запрос на резюме заметки с ID: {}", id);
-        try {
-            var note = noteService.findNoteById(id);
-            String content = note.getTitle() + "\n\n" + note.getContent();
-            AIResponse response = aiService.summarizeNote(content);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Ошибка при получении заметки для резюме", e);
-            return ResponseEntity.ok(AIResponse.error("Заметка не найдена"));
-        }
+        return findNote(id, "резюме")
+                .flatMap(note -> respond(aiService.summarizeNote(id, note.getTitle() + "\n\n" + note.getContent())))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.ok(AIResponse.error("Заметка не найдена"))));
     }
 
     /**
@@ -131,16 +164,73 @@ public class AIController {
      * GET /api/ai/notes/{id}/title
      */
     @GetMapping("/notes/{id}/title")
-    public ResponseEntity<AIResponse> generateTitleForNote(@PathVariable Long id) {
+    public Mono<ResponseEntity<AIResponse>> generateTitleForNote(@PathVariable Long id) {
         logger.info("Запрос на генерацию заголовка для заметки с ID: {}", id);
-        try {
-            var note = noteService.findNoteById(id);
-            AIResponse response = aiService.generateTitle(note.getContent());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Ошибка при получении заметки для генерации заголовка", e);
-            return ResponseEntity.ok(AIResponse.error("Заметка не найдена"));
-        }
+        return findNote(id, "генерации заголовка")
+                .flatMap(note -> respond(aiService.generateTitle(id, note.getContent())))
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.ok(AIResponse.error("Заметка не найдена"))));
+    }
+
+    /**
+     * Состояние пула запросов к AI
+     * GET /api/ai/capacity
+     */
+    @GetMapping("/capacity")
+    public ResponseEntity<AiCapacityStatus> getCapacity() {
+        return ResponseEntity.ok(concurrencyLimiter.getStatus());
     }
-}
 
+    /**
+     * Статистика кэша ответов AI: попадания, промахи, сэкономленное время
+     * GET /api/ai/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<AiCacheStatus> getCacheStats() {
+        return ResponseEntity.ok(responseCache.getStatus());
+    }
+
+    /**
+     * Фрагменты передаются клиенту по мере поступления. Данные события - JSON
+     * AIResponse, чтобы пробелы и переводы строк во фрагментах доходили без изменений.
+     * Ответ уже начат, поэтому ошибки (в том числе переполнение пула) приходят
+     * последним событием error.
+     */
+    private Flux<ServerSentEvent<AIResponse>> stream(Flux<String> tokens) {
+        return tokens
+                .map(token -> ServerSentEvent.builder(new AIResponse(token)).event("token").build())
+                .concatWith(Mono.just(ServerSentEvent.builder(new AIResponse("")).event("done").build()))
+                .onErrorResume(e -> {
+                    if (e instanceof AiCapacityExceededException) {
+                        logger.warn("Потоковый запрос к AI отклонен: {}", e.getMessage());
+                    } else {
+                        logger.error("Ошибка потокового запроса к AI", e);
+                    }
+                    return Mono.just(ServerSentEvent.builder(AIResponse.error(e.getMessage())).event("error").build());
+                })
+                .doOnCancel(() -> logger.debug("Клиент закрыл потоковое соединение с AI"));
+    }
+
+    /**
+     * Заметка читается из БД (JPA блокирует поток) на boundedElastic, а не на потоке запроса.
+     * Ошибка чтения пишется в лог и дает пустой Mono - ответ "Заметка не найдена".
+     */
+    private Mono<Note> findNote(Long id, String purpose) {
+        return Mono.fromCallable(() -> noteService.findNoteById(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    logger.error("Ошибка при получении заметки для {}", purpose, e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<ResponseEntity<AIResponse>> respond(Mono<AIResponse> response) {
+        return response
+                .map(ResponseEntity::ok)
+                .onErrorResume(AiCapacityExceededException.class, e -> {
+                    logger.warn("Запрос к AI отклонен: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(AIResponse.error(e.getMessage())));
+                });
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.dto.BackupImportResult;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.service.DataBackupService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST API резервного копирования: выгрузка и загрузка заметок и планов в NDJSON
+ */
+@RestController
+@RequestMapping("/api/backup")
+public class BackupController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final DataBackupService dataBackupService;
+
+    public BackupController(DataBackupService dataBackupService) {
+        this.dataBackupService = dataBackupService;
+    }
+
+    /**
+     * Выгрузка всех данных файлом NDJSON, при gzip=true - сжатым
+     * GET /api/backup/export?gzip=true
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        String fileName = gzip ? "dailynotes-backup.ndjson.gz" : "dailynotes-backup.ndjson";
+        response.setContentType(gzip ? "application/gzip" : NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024)) {
+                dataBackupService.exportTo(gzipOut);
+            }
+        } else {
+            dataBackupService.exportTo(out);
+        }
+    }
+
+    /**
+     * Загрузка файла, полученного из /export (NDJSON или gzip - определяется по содержимому)
+     * POST /api/backup/import
+     */
+    @PostMapping("/import")
+    public ResponseEntity<BackupImportResult> importData(HttpServletRequest request) throws IOException {
+        try (InputStream in = openBody(request)) {
+            return ResponseEntity.ok(dataBackupService.importFrom(in));
+        }
+    }
+
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<Map<String, String>> handleValidation(ValidationException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    private static InputStream openBody(HttpServletRequest request) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(request.getInputStream(), 64 * 1024);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        boolean gzipped = first == 0x1f && second == 0x8b;
+        return gzipped ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+}
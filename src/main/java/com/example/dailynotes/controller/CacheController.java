@@ -0,0 +1,31 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.dto.CacheMaintenanceStatus;
+import com.example.dailynotes.service.NoteCacheMaintainer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Состояние кэша заметок
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final NoteCacheMaintainer noteCacheMaintainer;
+
+    public CacheController(NoteCacheMaintainer noteCacheMaintainer) {
+        this.noteCacheMaintainer = noteCacheMaintainer;
+    }
+
+    /**
+     * Задержка применения событий к кэшу в режиме event
+     * GET /api/cache/maintenance
+     */
+    @GetMapping("/maintenance")
+    public ResponseEntity<CacheMaintenanceStatus> getMaintenanceStatus() {
+        return ResponseEntity.ok(noteCacheMaintainer.getStatus());
+    }
+}
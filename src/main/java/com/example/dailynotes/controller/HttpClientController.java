@@ -0,0 +1,32 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.config.HttpClientConnectorFactory;
+import com.example.dailynotes.dto.HttpPoolStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Состояние пулов соединений исходящих HTTP-клиентов (OpenAI, сервис шаблонов задач)
+ */
+@RestController
+@RequestMapping("/api/http-clients")
+public class HttpClientController {
+
+    private final HttpClientConnectorFactory connectorFactory;
+
+    public HttpClientController(HttpClientConnectorFactory connectorFactory) {
+        this.connectorFactory = connectorFactory;
+    }
+
+    /**
+     * GET /api/http-clients/pools
+     */
+    @GetMapping("/pools")
+    public ResponseEntity<List<HttpPoolStatus>> getPools() {
+        return ResponseEntity.ok(connectorFactory.getPoolStatus());
+    }
+}
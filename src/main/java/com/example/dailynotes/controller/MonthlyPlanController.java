@@ -1,7 +1,9 @@
 package com.example.dailynotes.controller;
 
-import com.example.dailynotes.entity.MonthlyPlan;
+import com.example.dailynotes.dto.MonthlyPlanGrid;
+import com.example.dailynotes.dto.TaskOption;
 import com.example.dailynotes.entity.Task;
+import com.example.dailynotes.push.UpdateBroadcaster;
 import com.example.dailynotes.service.MonthlyPlanService;
 import com.example.dailynotes.service.TaskService;
 import com.example.dailynotes.service.TaskTemplateService;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -26,11 +29,14 @@ public class MonthlyPlanController {
     private final MonthlyPlanService monthlyPlanService;
     private final TaskService taskService;
     private final TaskTemplateService taskTemplateService;
+    private final UpdateBroadcaster updateBroadcaster;
 
-    public MonthlyPlanController(MonthlyPlanService planService, TaskService taskService, TaskTemplateService templateService){
+    public MonthlyPlanController(MonthlyPlanService planService, TaskService taskService, TaskTemplateService templateService,
+                                 UpdateBroadcaster updateBroadcaster){
         this.monthlyPlanService = planService;
         this.taskService = taskService;
         this.taskTemplateService = templateService;
+        this.updateBroadcaster = updateBroadcaster;
     }
 
     // Просмотр плана месяца
@@ -50,12 +56,12 @@ public class MonthlyPlanController {
         model.addAttribute("planYear", resolvedYear);
         model.addAttribute("planMonth", resolvedMonth);
 
-        List<Task> allTasks = taskService.getAllTasks();
+        List<TaskOption> allTasks = taskService.getTaskOptions();
         model.addAttribute("allTasks", allTasks);
         model.addAttribute("hasAvailableTasks", !allTasks.isEmpty());
 
         try {
-            List<MonthlyPlan> plans = monthlyPlanService.getMonthlyPlans(resolvedYear,resolvedMonth);
+            List<MonthlyPlanGrid> plans = monthlyPlanService.getMonthlyPlanGrid(resolvedYear,resolvedMonth);
             model.addAttribute("plans",plans);
             int daysInMonth = LocalDate.of(resolvedYear,resolvedMonth,1).lengthOfMonth();
             model.addAttribute("days", IntStream.rangeClosed(1,daysInMonth).boxed().toList());
@@ -82,7 +88,7 @@ public class MonthlyPlanController {
                                      RedirectAttributes redirectAttributes){
         try {
             if (taskIds == null || taskIds.isEmpty()) {
-                if (!taskService.getAllTasks().isEmpty()) {
+                if (taskService.hasTasks()) {
                     redirectAttributes.addFlashAttribute("error", "Выберите хотя бы одну задачу для плана");
                     return "redirect:/plans/month?planYear=" + planYear + "&planMonth=" + planMonth;
                 }
@@ -92,6 +98,8 @@ public class MonthlyPlanController {
             }
 
             monthlyPlanService.createMonthlyPlan(planYear, planMonth, taskIds);
+            // Сервис уже закоммитил план: другие открытые страницы месяца перечитают его
+            updateBroadcaster.planChanged(YearMonth.of(planYear, planMonth));
             redirectAttributes.addFlashAttribute("success", "Месячный план успешно создан");
         } catch (Exception e) {
             logger.error("Ошибка при создании месячного плана: год={}, месяц={}", planYear, planMonth, e);
@@ -114,6 +122,7 @@ public class MonthlyPlanController {
             }
             List<Long> taskIds = tasks.stream().map(Task::getId).toList();
             monthlyPlanService.createMonthlyPlan(planYear,planMonth,taskIds);
+            updateBroadcaster.planChanged(YearMonth.of(planYear, planMonth));
             redirectAttributes.addFlashAttribute("success", "План успешно создан с автозаполнением");
         } catch (Exception e) {
             logger.error("Ошибка при автозаполнении плана: год={}, месяц={}", planYear, planMonth, e);
@@ -132,6 +141,7 @@ public class MonthlyPlanController {
                                          RedirectAttributes redirectAttributes){
         try {
             monthlyPlanService.updateTaskDayStatus(monthlyTaskId,dayNumber,status);
+            updateBroadcaster.planChanged(YearMonth.of(planYear, planMonth));
             redirectAttributes.addFlashAttribute("success", "Статус задачи обновлен");
         } catch (Exception e) {
             logger.error("Ошибка при обновлении статуса задачи: taskId={}, day={}", monthlyTaskId, dayNumber, e);
@@ -0,0 +1,210 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.dto.NoteDayStats;
+import com.example.dailynotes.dto.NoteDetails;
+import com.example.dailynotes.dto.NoteFilter;
+import com.example.dailynotes.dto.NoteListItem;
+import com.example.dailynotes.dto.NotePage;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.exception.EntityNotFoundException;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.service.NoteService;
+import com.example.dailynotes.service.NoteVersionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST API заметок за период для календаря и диапазонных представлений.
+ *
+ * Заметка по ID, заметки дня и заметки за период отдаются с сильным ETag по версиям
+ * (NoteVersionService). Клиент присылает его в If-None-Match и, если данные не менялись,
+ * получает 304 без чтения БД и закэшированных заметок: версии берутся из своего кэша.
+ */
+@RestController
+@RequestMapping("/api/notes")
+public class NoteApiController {
+
+    private final NoteService noteService;
+    private final NoteVersionService noteVersionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.notes.export.batch-size:1000}")
+    private int exportBatchSize;
+
+    public NoteApiController(NoteService noteService, NoteVersionService noteVersionService,
+                             ObjectMapper objectMapper) {
+        this.noteService = noteService;
+        this.noteVersionService = noteVersionService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Заметки за период
+     * GET /api/notes?from=2025-05-01&to=2025-05-31 (If-None-Match: ETag прошлого ответа)
+     */
+    @GetMapping
+    public ResponseEntity<List<NoteListItem>> getNotes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Проверяем до расчета ETag: иначе слишком длинный период обошел бы весь кэш версий
+        noteService.validateRange(from, to);
+        // ETag считается до чтения заметок, поэтому ответ не старее своего ETag
+        String eTag = noteVersionService.rangeETag(from, to);
+        if (matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .body(noteService.findNotesBetween(from, to));
+    }
+
+    /**
+     * Заметка по ID
+     * GET /api/notes/42 (If-None-Match: ETag прошлого ответа)
+     */
+    @GetMapping("/{id:\\d+}")
+    public ResponseEntity<NoteDetails> getNote(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = noteVersionService.noteETag(id);
+        if (matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        // ETag берется из отданной заметки: закэшированная заметка может отставать от версии в БД
+        Note note = noteService.findNoteById(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(NoteVersionService.noteETag(note))
+                .body(new NoteDetails(note));
+    }
+
+    /**
+     * Заметки дня с содержанием
+     * GET /api/notes/date/2025-05-10 (If-None-Match: ETag прошлого ответа)
+     */
+    @GetMapping("/date/{date}")
+    public ResponseEntity<List<NoteDetails>> getNotesByDate(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = noteVersionService.dateETag(date);
+        if (matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        List<Note> notes = noteService.findNotesByDate(date);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(NoteVersionService.dateETag(date, notes))
+                .body(notes.stream().map(NoteDetails::new).toList());
+    }
+
+    /**
+     * Количество заметок и доля выполненных по дням
+     * GET /api/notes/stats/daily?from=2025-05-01&to=2025-05-31
+     */
+    @GetMapping("/stats/daily")
+    public ResponseEntity<List<NoteDayStats>> getDailyStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(noteService.getDayStats(from, to));
+    }
+
+    /**
+     * Все заметки страницами в порядке (date, id), без содержания
+     * GET /api/notes/page?size=50&completed=true&minWeight=60&maxWeight=80&cursor=...
+     */
+    @GetMapping("/page")
+    public ResponseEntity<NotePage> getPage(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int size,
+                                            @RequestParam(required = false) Boolean completed,
+                                            @RequestParam(required = false) Double minWeight,
+                                            @RequestParam(required = false) Double maxWeight) {
+        return ResponseEntity.ok(noteService.findNotesPage(new NoteFilter(completed, minWeight, maxWeight), cursor, size));
+    }
+
+    /**
+     * Экспорт всех заметок под фильтром одним JSON-массивом.
+     * Массив пишется в ответ по мере чтения пачек, поэтому память не зависит от числа заметок.
+     * GET /api/notes/export?completed=false
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(required = false) Boolean completed,
+                       @RequestParam(required = false) Double minWeight,
+                       @RequestParam(required = false) Double maxWeight,
+                       HttpServletResponse response) throws IOException {
+        NoteFilter filter = new NoteFilter(completed, minWeight, maxWeight);
+        // Проверяем до начала записи: после первых байт ответ уже не заменить на 400
+        noteService.validateFilter(filter);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            noteService.forEachNote(filter, exportBatchSize, item -> {
+                try {
+                    generator.writeObject(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<Map<String, String>> handleValidation(ValidationException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleNotFound(EntityNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .build();
+    }
+
+    /**
+     * Совпадает ли ETag с одним из If-None-Match (для GET сравнение слабое: W/ не учитывается)
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
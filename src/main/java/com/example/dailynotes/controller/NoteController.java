@@ -2,6 +2,7 @@ package com.example.dailynotes.controller;
 
 import com.example.dailynotes.entity.Note;
 import com.example.dailynotes.service.NoteService;
+import com.example.dailynotes.service.NoteVersionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 
 @Controller
 public class NoteController {
@@ -79,7 +81,10 @@ public class NoteController {
 
         model.addAttribute("date", currentDate);
         model.addAttribute("note",new Note());
-        model.addAttribute("todayNotes",noteService.findNotesByDate(currentDate));
+        List<Note> todayNotes = noteService.findNotesByDate(currentDate);
+        model.addAttribute("todayNotes",todayNotes);
+        // ETag отрисованного списка: по событию changed страница перечитывает день условным GET
+        model.addAttribute("notesETag", NoteVersionService.dateETag(currentDate, todayNotes));
         model.addAttribute("weight",75.0);
 
         return "notebook";
@@ -0,0 +1,82 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.dto.NoteSearchResult;
+import com.example.dailynotes.dto.SearchIndexStatus;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.search.NoteSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * REST API полнотекстового поиска по заметкам
+ */
+@RestController
+@RequestMapping("/api/notes/search")
+public class NoteSearchController {
+
+    private final NoteSearchIndex noteSearchIndex;
+
+    @Value("${app.search.max-results:100}")
+    private int maxResults;
+
+    public NoteSearchController(NoteSearchIndex noteSearchIndex) {
+        this.noteSearchIndex = noteSearchIndex;
+    }
+
+    /**
+     * Поиск с необязательным фильтром по датам
+     * GET /api/notes/search?q=зарядка утром&from=2025-01-01&to=2025-12-31&limit=20
+     */
+    @GetMapping
+    public ResponseEntity<NoteSearchResult> search(
+            @RequestParam String q,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > maxResults) {
+            throw new ValidationException("limit должен быть от 1 до " + maxResults);
+        }
+        return ResponseEntity.ok(noteSearchIndex.search(q, from, to, limit));
+    }
+
+    /**
+     * Перестроение индекса из БД в фоне
+     * POST /api/notes/search/rebuild
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<SearchIndexStatus> rebuild() {
+        boolean started = noteSearchIndex.rebuild();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(noteSearchIndex.getStatus());
+    }
+
+    /**
+     * Состояние индекса: документы, сегменты, ошибки
+     * GET /api/notes/search/status
+     */
+    @GetMapping("/status")
+    public ResponseEntity<SearchIndexStatus> getStatus() {
+        return ResponseEntity.ok(noteSearchIndex.getStatus());
+    }
+
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<Map<String, String>> handleValidation(ValidationException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleDisabled(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", ex.getMessage()));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.dto.NoteStatsBucket;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.service.NoteStatsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST API статистики заметок из агрегатной таблицы (без запросов к notes)
+ */
+@RestController
+@RequestMapping("/api/stats/notes")
+public class NoteStatsController {
+
+    private final NoteStatsService noteStatsService;
+
+    public NoteStatsController(NoteStatsService noteStatsService) {
+        this.noteStatsService = noteStatsService;
+    }
+
+    /**
+     * Статистика за период по дням, неделям или месяцам
+     * GET /api/stats/notes?from=2025-01-01&to=2025-03-31&granularity=week
+     */
+    @GetMapping
+    public ResponseEntity<List<NoteStatsBucket>> getStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity) {
+        return ResponseEntity.ok(noteStatsService.getStats(from, to, NoteStatsService.Granularity.parse(granularity)));
+    }
+
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<Map<String, String>> handleValidation(ValidationException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+}
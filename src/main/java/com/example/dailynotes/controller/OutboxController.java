@@ -0,0 +1,30 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.dto.OutboxStatus;
+import com.example.dailynotes.service.OutboxRelay;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Состояние outbox: размер очереди на отправку в Kafka
+ */
+@RestController
+@RequestMapping("/api/outbox")
+public class OutboxController {
+
+    private final OutboxRelay outboxRelay;
+
+    public OutboxController(OutboxRelay outboxRelay) {
+        this.outboxRelay = outboxRelay;
+    }
+
+    /**
+     * GET /api/outbox/status
+     */
+    @GetMapping("/status")
+    public ResponseEntity<OutboxStatus> getStatus() {
+        return ResponseEntity.ok(outboxRelay.getStatus());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.entity.NoteSummary;
+import com.example.dailynotes.entity.SummaryJob;
+import com.example.dailynotes.exception.EntityNotFoundException;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.service.NoteSummaryJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST API пакетного AI-резюмирования заметок за период
+ */
+@RestController
+@RequestMapping("/api/ai/summaries")
+public class SummaryJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryJobController.class);
+
+    private final NoteSummaryJobService summaryJobService;
+
+    public SummaryJobController(NoteSummaryJobService summaryJobService) {
+        this.summaryJobService = summaryJobService;
+    }
+
+    /**
+     * Запуск задания резюмирования
+     * POST /api/ai/summaries/jobs?from=2025-05-01&to=2025-05-31
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<SummaryJob> startJob(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        logger.info("Запрос на резюмирование заметок за период {} - {}", from, to);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(summaryJobService.startJob(from, to));
+    }
+
+    /**
+     * Прогресс задания
+     * GET /api/ai/summaries/jobs/{id}
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<SummaryJob> getJob(@PathVariable Long id) {
+        return ResponseEntity.ok(summaryJobService.getJob(id));
+    }
+
+    /**
+     * Остановка задания
+     * POST /api/ai/summaries/jobs/{id}/cancel
+     */
+    @PostMapping("/jobs/{id}/cancel")
+    public ResponseEntity<SummaryJob> cancelJob(@PathVariable Long id) {
+        return ResponseEntity.ok(summaryJobService.cancelJob(id));
+    }
+
+    /**
+     * Сохраненные резюме заметок за период
+     * GET /api/ai/summaries?from=2025-05-01&to=2025-05-31
+     */
+    @GetMapping
+    public ResponseEntity<List<NoteSummary>> getSummaries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(summaryJobService.findSummaries(from, to));
+    }
+
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<Map<String, String>> handleValidation(ValidationException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleNotFound(EntityNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.dailynotes.controller;
+
+import com.example.dailynotes.exception.PushCapacityExceededException;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.push.UpdateBroadcaster;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Подписки на изменения по Server-Sent Events вместо периодического опроса.
+ *
+ * Событие changed сообщает только, что данные темы изменились; клиент перечитывает их
+ * условным запросом с If-None-Match (/api/notes/date/{date}) или перезагружает страницу плана.
+ * Браузерный EventSource сам переподключается после обрыва.
+ */
+@RestController
+@RequestMapping("/api/updates")
+public class UpdateController {
+
+    private final UpdateBroadcaster updateBroadcaster;
+
+    public UpdateController(UpdateBroadcaster updateBroadcaster) {
+        this.updateBroadcaster = updateBroadcaster;
+    }
+
+    /**
+     * Изменения заметок дня
+     * GET /api/updates/notes?date=2025-05-01
+     */
+    @GetMapping(value = "/notes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToNotes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletResponse response) {
+        return updateBroadcaster.subscribeToDate(date, response);
+    }
+
+    /**
+     * Изменения месячного плана
+     * GET /api/updates/plans/month?planYear=2025&planMonth=5
+     */
+    @GetMapping(value = "/plans/month", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToPlan(@RequestParam int planYear, @RequestParam int planMonth,
+                                      HttpServletResponse response) {
+        if (planMonth < 1 || planMonth > 12) {
+            throw new ValidationException("Месяц должен быть от 1 до 12");
+        }
+        return updateBroadcaster.subscribeToPlan(YearMonth.of(planYear, planMonth), response);
+    }
+
+    @ExceptionHandler(ValidationException.class)
+    public ResponseEntity<Map<String, String>> handleValidation(ValidationException ex) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(PushCapacityExceededException.class)
+    public ResponseEntity<Map<String, String>> handleCapacity(PushCapacityExceededException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("error", ex.getMessage()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.dailynotes.dto;
+
+/**
+ * DTO статистики кэша ответов AI
+ */
+public class AiCacheStatus {
+    private boolean enabled;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long latencySavedMillis;
+    private long invalidations;
+    private long errors;
+
+    public AiCacheStatus() {
+    }
+
+    public AiCacheStatus(boolean enabled, long hits, long misses, long latencySavedMillis,
+                         long invalidations, long errors) {
+        this.enabled = enabled;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRatio = hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+        this.latencySavedMillis = latencySavedMillis;
+        this.invalidations = invalidations;
+        this.errors = errors;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    public void setHitRatio(double hitRatio) {
+        this.hitRatio = hitRatio;
+    }
+
+    public long getLatencySavedMillis() {
+        return latencySavedMillis;
+    }
+
+    public void setLatencySavedMillis(long latencySavedMillis) {
+        this.latencySavedMillis = latencySavedMillis;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public void setInvalidations(long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+}
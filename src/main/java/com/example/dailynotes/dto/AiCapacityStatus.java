@@ -0,0 +1,74 @@
+package com.example.dailynotes.dto;
+
+/**
+ * DTO состояния пула запросов к AI
+ */
+public class AiCapacityStatus {
+    private int maxInFlight;
+    private int maxQueued;
+    private int inFlight;
+    private int queued;
+    private long completedTotal;
+    private long rejectedTotal;
+
+    public AiCapacityStatus() {
+    }
+
+    public AiCapacityStatus(int maxInFlight, int maxQueued, int inFlight, int queued,
+                            long completedTotal, long rejectedTotal) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.inFlight = inFlight;
+        this.queued = queued;
+        this.completedTotal = completedTotal;
+        this.rejectedTotal = rejectedTotal;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public long getCompletedTotal() {
+        return completedTotal;
+    }
+
+    public void setCompletedTotal(long completedTotal) {
+        this.completedTotal = completedTotal;
+    }
+
+    public long getRejectedTotal() {
+        return rejectedTotal;
+    }
+
+    public void setRejectedTotal(long rejectedTotal) {
+        this.rejectedTotal = rejectedTotal;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.dailynotes.dto;
+
+/**
+ * DTO результата импорта резервной копии: количество загруженных записей по типам
+ */
+public class BackupImportResult {
+    private long monthlyPlans;
+    private long monthlyTasks;
+    private long weeklyPlans;
+    private long weeklyTasks;
+    private long notes;
+    private long skipped;
+
+    public long getMonthlyPlans() {
+        return monthlyPlans;
+    }
+
+    public void setMonthlyPlans(long monthlyPlans) {
+        this.monthlyPlans = monthlyPlans;
+    }
+
+    public long getMonthlyTasks() {
+        return monthlyTasks;
+    }
+
+    public void setMonthlyTasks(long monthlyTasks) {
+        this.monthlyTasks = monthlyTasks;
+    }
+
+    public long getWeeklyPlans() {
+        return weeklyPlans;
+    }
+
+    public void setWeeklyPlans(long weeklyPlans) {
+        this.weeklyPlans = weeklyPlans;
+    }
+
+    public long getWeeklyTasks() {
+        return weeklyTasks;
+    }
+
+    public void setWeeklyTasks(long weeklyTasks) {
+        this.weeklyTasks = weeklyTasks;
+    }
+
+    public long getNotes() {
+        return notes;
+    }
+
+    public void setNotes(long notes) {
+        this.notes = notes;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    @Override
+    public String toString() {
+        return "BackupImportResult{" +
+                "monthlyPlans=" + monthlyPlans +
+                ", monthlyTasks=" + monthlyTasks +
+                ", weeklyPlans=" + weeklyPlans +
+                ", weeklyTasks=" + weeklyTasks +
+                ", notes=" + notes +
+                ", skipped=" + skipped +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.dailynotes.dto;
+
+/**
+ * DTO состояния событийного обновления кэша: сколько событий применено
+ * и насколько кэш отстает от записи в БД.
+ */
+public class CacheMaintenanceStatus {
+    private boolean eventDriven;
+    private long stalenessBoundMillis;
+    private long appliedTotal;
+    private long failedTotal;
+    private long overBoundTotal;
+    private long lastLagMillis;
+    private long maxLagMillis;
+
+    public CacheMaintenanceStatus() {
+    }
+
+    public CacheMaintenanceStatus(boolean eventDriven, long stalenessBoundMillis, long appliedTotal,
+                                  long failedTotal, long overBoundTotal, long lastLagMillis, long maxLagMillis) {
+        this.eventDriven = eventDriven;
+        this.stalenessBoundMillis = stalenessBoundMillis;
+        this.appliedTotal = appliedTotal;
+        this.failedTotal = failedTotal;
+        this.overBoundTotal = overBoundTotal;
+        this.lastLagMillis = lastLagMillis;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    public void setEventDriven(boolean eventDriven) {
+        this.eventDriven = eventDriven;
+    }
+
+    public long getStalenessBoundMillis() {
+        return stalenessBoundMillis;
+    }
+
+    public void setStalenessBoundMillis(long stalenessBoundMillis) {
+        this.stalenessBoundMillis = stalenessBoundMillis;
+    }
+
+    public long getAppliedTotal() {
+        return appliedTotal;
+    }
+
+    public void setAppliedTotal(long appliedTotal) {
+        this.appliedTotal = appliedTotal;
+    }
+
+    public long getFailedTotal() {
+        return failedTotal;
+    }
+
+    public void setFailedTotal(long failedTotal) {
+        this.failedTotal = failedTotal;
+    }
+
+    public long getOverBoundTotal() {
+        return overBoundTotal;
+    }
+
+    public void setOverBoundTotal(long overBoundTotal) {
+        this.overBoundTotal = overBoundTotal;
+    }
+
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    public void setLastLagMillis(long lastLagMillis) {
+        this.lastLagMillis = lastLagMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public void setMaxLagMillis(long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+    }
+}
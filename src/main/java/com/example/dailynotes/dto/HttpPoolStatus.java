@@ -0,0 +1,94 @@
+package com.example.dailynotes.dto;
+
+/**
+ * DTO состояния пула HTTP-соединений к одному адресу
+ */
+public class HttpPoolStatus {
+    private String poolName;
+    private String remoteAddress;
+    private int acquired;
+    private int idle;
+    private int allocated;
+    private int pendingAcquire;
+    private int maxAllocated;
+    private int maxPendingAcquire;
+
+    public HttpPoolStatus() {
+    }
+
+    public HttpPoolStatus(String poolName, String remoteAddress, int acquired, int idle, int allocated,
+                          int pendingAcquire, int maxAllocated, int maxPendingAcquire) {
+        this.poolName = poolName;
+        this.remoteAddress = remoteAddress;
+        this.acquired = acquired;
+        this.idle = idle;
+        this.allocated = allocated;
+        this.pendingAcquire = pendingAcquire;
+        this.maxAllocated = maxAllocated;
+        this.maxPendingAcquire = maxPendingAcquire;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public void setPoolName(String poolName) {
+        this.poolName = poolName;
+    }
+
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public void setRemoteAddress(String remoteAddress) {
+        this.remoteAddress = remoteAddress;
+    }
+
+    public int getAcquired() {
+        return acquired;
+    }
+
+    public void setAcquired(int acquired) {
+        this.acquired = acquired;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    public int getAllocated() {
+        return allocated;
+    }
+
+    public void setAllocated(int allocated) {
+        this.allocated = allocated;
+    }
+
+    public int getPendingAcquire() {
+        return pendingAcquire;
+    }
+
+    public void setPendingAcquire(int pendingAcquire) {
+        this.pendingAcquire = pendingAcquire;
+    }
+
+    public int getMaxAllocated() {
+        return maxAllocated;
+    }
+
+    public void setMaxAllocated(int maxAllocated) {
+        this.maxAllocated = maxAllocated;
+    }
+
+    public int getMaxPendingAcquire() {
+        return maxPendingAcquire;
+    }
+
+    public void setMaxPendingAcquire(int maxPendingAcquire) {
+        this.maxPendingAcquire = maxPendingAcquire;
+    }
+}
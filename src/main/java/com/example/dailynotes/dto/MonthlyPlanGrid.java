@@ -0,0 +1,56 @@
+package com.example.dailynotes.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Модель чтения для страницы месячного плана: план и его задачи без сущностей JPA,
+ * поэтому шаблон не вызывает ленивых загрузок.
+ */
+public class MonthlyPlanGrid {
+    private Long id;
+    private int planYear;
+    private int planMonth;
+    private List<MonthlyPlanGridRow> tasks = new ArrayList<>();
+
+    public MonthlyPlanGrid() {
+    }
+
+    public MonthlyPlanGrid(Long id, int planYear, int planMonth) {
+        this.id = id;
+        this.planYear = planYear;
+        this.planMonth = planMonth;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getPlanYear() {
+        return planYear;
+    }
+
+    public void setPlanYear(int planYear) {
+        this.planYear = planYear;
+    }
+
+    public int getPlanMonth() {
+        return planMonth;
+    }
+
+    public void setPlanMonth(int planMonth) {
+        this.planMonth = planMonth;
+    }
+
+    public List<MonthlyPlanGridRow> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<MonthlyPlanGridRow> tasks) {
+        this.tasks = tasks;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.dailynotes.dto;
+
+import com.example.dailynotes.entity.MonthlyTask;
+
+/**
+ * Строка сетки месячного плана: задача плана со статусами по дням.
+ *
+ * Заполняется JPQL-проекцией одним запросом на все планы месяца.
+ * Для плана без задач приходит одна строка с monthlyTaskId == null.
+ */
+public class MonthlyPlanGridRow {
+    private Long planId;
+    private int planYear;
+    private int planMonth;
+    private Long monthlyTaskId;
+    private String taskTitle;
+    private String taskCategory;
+    private int statusMask;
+
+    public MonthlyPlanGridRow() {
+    }
+
+    public MonthlyPlanGridRow(Long planId, int planYear, int planMonth, Long monthlyTaskId,
+                              String taskTitle, String taskCategory, Integer statusMask) {
+        this.planId = planId;
+        this.planYear = planYear;
+        this.planMonth = planMonth;
+        this.monthlyTaskId = monthlyTaskId;
+        this.taskTitle = taskTitle;
+        this.taskCategory = taskCategory;
+        this.statusMask = statusMask != null ? statusMask : 0;
+    }
+
+    public boolean isCompletedOn(int day) {
+        return (statusMask & MonthlyTask.dayBit(day)) != 0;
+    }
+
+    public Long getPlanId() {
+        return planId;
+    }
+
+    public void setPlanId(Long planId) {
+        this.planId = planId;
+    }
+
+    public int getPlanYear() {
+        return planYear;
+    }
+
+    public void setPlanYear(int planYear) {
+        this.planYear = planYear;
+    }
+
+    public int getPlanMonth() {
+        return planMonth;
+    }
+
+    public void setPlanMonth(int planMonth) {
+        this.planMonth = planMonth;
+    }
+
+    public Long getMonthlyTaskId() {
+        return monthlyTaskId;
+    }
+
+    public void setMonthlyTaskId(Long monthlyTaskId) {
+        this.monthlyTaskId = monthlyTaskId;
+    }
+
+    public String getTaskTitle() {
+        return taskTitle;
+    }
+
+    public void setTaskTitle(String taskTitle) {
+        this.taskTitle = taskTitle;
+    }
+
+    public String getTaskCategory() {
+        return taskCategory;
+    }
+
+    public void setTaskCategory(String taskCategory) {
+        this.taskCategory = taskCategory;
+    }
+
+    public int getStatusMask() {
+        return statusMask;
+    }
+
+    public void setStatusMask(int statusMask) {
+        this.statusMask = statusMask;
+    }
+}
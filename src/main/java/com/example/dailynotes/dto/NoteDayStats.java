@@ -0,0 +1,49 @@
+package com.example.dailynotes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Статистика заметок за день: всего, выполнено и доля выполненных
+ */
+public class NoteDayStats {
+    private LocalDate date;
+    private long total;
+    private long completed;
+
+    public NoteDayStats() {
+    }
+
+    public NoteDayStats(LocalDate date, Long total, Long completed) {
+        this.date = date;
+        this.total = total != null ? total : 0;
+        this.completed = completed != null ? completed : 0;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public double getCompletionRatio() {
+        return total == 0 ? 0.0 : (double) completed / total;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.dailynotes.dto;
+
+import com.example.dailynotes.entity.Note;
+
+import java.time.LocalDate;
+
+/**
+ * Заметка целиком для REST API, с версией, по которой строится ETag
+ */
+public class NoteDetails {
+    private Long id;
+    private String title;
+    private String content;
+    private LocalDate date;
+    private double weight;
+    private boolean completed;
+    private long version;
+
+    public NoteDetails() {
+    }
+
+    public NoteDetails(Note note) {
+        this.id = note.getId();
+        this.title = note.getTitle();
+        this.content = note.getContent();
+        this.date = note.getDate();
+        this.weight = note.getWeight();
+        this.completed = note.isCompleted();
+        this.version = note.getVersion();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
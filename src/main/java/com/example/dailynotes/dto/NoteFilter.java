@@ -0,0 +1,43 @@
+package com.example.dailynotes.dto;
+
+/**
+ * Необязательные фильтры списка заметок: null - фильтр не применяется
+ */
+public class NoteFilter {
+    private Boolean completed;
+    private Double minWeight;
+    private Double maxWeight;
+
+    public NoteFilter() {
+    }
+
+    public NoteFilter(Boolean completed, Double minWeight, Double maxWeight) {
+        this.completed = completed;
+        this.minWeight = minWeight;
+        this.maxWeight = maxWeight;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+
+    public Double getMinWeight() {
+        return minWeight;
+    }
+
+    public void setMinWeight(Double minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    public Double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(Double maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+}
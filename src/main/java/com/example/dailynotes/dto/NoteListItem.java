@@ -0,0 +1,65 @@
+package com.example.dailynotes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Заметка в списке за период: без содержания, которое не нужно календарю и спискам
+ */
+public class NoteListItem {
+    private Long id;
+    private String title;
+    private LocalDate date;
+    private double weight;
+    private boolean completed;
+
+    public NoteListItem() {
+    }
+
+    public NoteListItem(Long id, String title, LocalDate date, double weight, boolean completed) {
+        this.id = id;
+        this.title = title;
+        this.date = date;
+        this.weight = weight;
+        this.completed = completed;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+}
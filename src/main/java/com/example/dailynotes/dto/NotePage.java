@@ -0,0 +1,35 @@
+package com.example.dailynotes.dto;
+
+import java.util.List;
+
+/**
+ * Страница списка заметок. nextCursor передается в следующий запрос; null - страниц больше нет.
+ */
+public class NotePage {
+    private List<NoteListItem> items;
+    private String nextCursor;
+
+    public NotePage() {
+    }
+
+    public NotePage(List<NoteListItem> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<NoteListItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<NoteListItem> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
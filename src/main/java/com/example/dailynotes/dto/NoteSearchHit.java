@@ -0,0 +1,75 @@
+package com.example.dailynotes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Найденная заметка: поля из индекса, релевантность и начало текста
+ */
+public class NoteSearchHit {
+    private Long id;
+    private String title;
+    private LocalDate date;
+    private boolean completed;
+    private float score;
+    private String snippet;
+
+    public NoteSearchHit() {
+    }
+
+    public NoteSearchHit(Long id, String title, LocalDate date, boolean completed, float score, String snippet) {
+        this.id = id;
+        this.title = title;
+        this.date = date;
+        this.completed = completed;
+        this.score = score;
+        this.snippet = snippet;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public void setScore(float score) {
+        this.score = score;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+}
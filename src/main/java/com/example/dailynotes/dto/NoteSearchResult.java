@@ -0,0 +1,35 @@
+package com.example.dailynotes.dto;
+
+import java.util.List;
+
+/**
+ * Результат поиска: общее число совпадений и лучшие по релевантности заметки
+ */
+public class NoteSearchResult {
+    private long totalHits;
+    private List<NoteSearchHit> hits;
+
+    public NoteSearchResult() {
+    }
+
+    public NoteSearchResult(long totalHits, List<NoteSearchHit> hits) {
+        this.totalHits = totalHits;
+        this.hits = hits;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(long totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    public List<NoteSearchHit> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<NoteSearchHit> hits) {
+        this.hits = hits;
+    }
+}
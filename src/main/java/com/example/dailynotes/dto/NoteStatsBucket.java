@@ -0,0 +1,72 @@
+package com.example.dailynotes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Статистика заметок за период (день, неделя или месяц)
+ */
+public class NoteStatsBucket {
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private long notesCount;
+    private long completedCount;
+    private double totalWeight;
+
+    public NoteStatsBucket() {
+    }
+
+    public NoteStatsBucket(LocalDate periodStart, LocalDate periodEnd) {
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+    }
+
+    public void add(long notes, long completed, double weight) {
+        this.notesCount += notes;
+        this.completedCount += completed;
+        this.totalWeight += weight;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public LocalDate getPeriodEnd() {
+        return periodEnd;
+    }
+
+    public void setPeriodEnd(LocalDate periodEnd) {
+        this.periodEnd = periodEnd;
+    }
+
+    public long getNotesCount() {
+        return notesCount;
+    }
+
+    public void setNotesCount(long notesCount) {
+        this.notesCount = notesCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public void setTotalWeight(double totalWeight) {
+        this.totalWeight = totalWeight;
+    }
+
+    public double getCompletionRatio() {
+        return notesCount <= 0 ? 0.0 : (double) completedCount / notesCount;
+    }
+}
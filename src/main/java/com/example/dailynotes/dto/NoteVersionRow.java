@@ -0,0 +1,30 @@
+package com.example.dailynotes.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Версия одной заметки дня: из таких строк складывается версия дня для ETag
+ */
+public class NoteVersionRow {
+    private final LocalDate date;
+    private final long id;
+    private final long version;
+
+    public NoteVersionRow(LocalDate date, Long id, Long version) {
+        this.date = date;
+        this.id = id;
+        this.version = version != null ? version : 0;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.dailynotes.dto;
+
+/**
+ * DTO состояния outbox: сколько событий ждет отправки и как давно.
+ */
+public class OutboxStatus {
+    private long backlog;
+    private long oldestPendingAgeMillis;
+    private long lastSentId;
+    private long sentTotal;
+    private long failed;
+    private String lastError;
+
+    public OutboxStatus() {
+    }
+
+    public OutboxStatus(long backlog, long oldestPendingAgeMillis, long lastSentId) {
+        this.backlog = backlog;
+        this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+        this.lastSentId = lastSentId;
+    }
+
+    public long getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(long backlog) {
+        this.backlog = backlog;
+    }
+
+    public long getOldestPendingAgeMillis() {
+        return oldestPendingAgeMillis;
+    }
+
+    public void setOldestPendingAgeMillis(long oldestPendingAgeMillis) {
+        this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+    }
+
+    public long getLastSentId() {
+        return lastSentId;
+    }
+
+    public void setLastSentId(long lastSentId) {
+        this.lastSentId = lastSentId;
+    }
+
+    public long getSentTotal() {
+        return sentTotal;
+    }
+
+    public void setSentTotal(long sentTotal) {
+        this.sentTotal = sentTotal;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.dailynotes.dto;
+
+/**
+ * DTO состояния поискового индекса заметок
+ */
+public class SearchIndexStatus {
+    private boolean enabled;
+    private String indexDir;
+    private long documents;
+    private int segments;
+    private boolean rebuilding;
+    private String lastRebuildAt;
+    private long appliedTotal;
+    private long failedTotal;
+    private String lastError;
+
+    public SearchIndexStatus() {
+    }
+
+    public SearchIndexStatus(boolean enabled, String indexDir, long documents, int segments, boolean rebuilding,
+                             String lastRebuildAt, long appliedTotal, long failedTotal, String lastError) {
+        this.enabled = enabled;
+        this.indexDir = indexDir;
+        this.documents = documents;
+        this.segments = segments;
+        this.rebuilding = rebuilding;
+        this.lastRebuildAt = lastRebuildAt;
+        this.appliedTotal = appliedTotal;
+        this.failedTotal = failedTotal;
+        this.lastError = lastError;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getIndexDir() {
+        return indexDir;
+    }
+
+    public void setIndexDir(String indexDir) {
+        this.indexDir = indexDir;
+    }
+
+    public long getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(long documents) {
+        this.documents = documents;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public void setSegments(int segments) {
+        this.segments = segments;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding;
+    }
+
+    public void setRebuilding(boolean rebuilding) {
+        this.rebuilding = rebuilding;
+    }
+
+    public String getLastRebuildAt() {
+        return lastRebuildAt;
+    }
+
+    public void setLastRebuildAt(String lastRebuildAt) {
+        this.lastRebuildAt = lastRebuildAt;
+    }
+
+    public long getAppliedTotal() {
+        return appliedTotal;
+    }
+
+    public void setAppliedTotal(long appliedTotal) {
+        this.appliedTotal = appliedTotal;
+    }
+
+    public long getFailedTotal() {
+        return failedTotal;
+    }
+
+    public void setFailedTotal(long failedTotal) {
+        this.failedTotal = failedTotal;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.dailynotes.dto;
+
+/**
+ * Задача для списка выбора при создании плана: только id и название
+ */
+public class TaskOption {
+    private Long id;
+    private String title;
+
+    public TaskOption() {
+    }
+
+    public TaskOption(Long id, String title) {
+        this.id = id;
+        this.title = title;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
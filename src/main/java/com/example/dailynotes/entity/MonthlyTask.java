@@ -2,12 +2,13 @@ package com.example.dailynotes.entity;
 
 import jakarta.persistence.*;
 
-import java.util.Map;
-
 @Entity
 public class MonthlyTask {
     @Id
-    @GeneratedValue
+    // Пул идентификаторов из последовательности: id известен до INSERT, поэтому вставки
+    // задач плана идут JDBC-пачками (с IDENTITY Hibernate вставляет строки по одной)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "monthly_task_seq")
+    @SequenceGenerator(name = "monthly_task_seq", sequenceName = "monthly_task_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -16,12 +17,34 @@ public class MonthlyTask {
     @ManyToOne
     private MonthlyPlan monthlyPlan;
 
-    //храним статусы завершения для каждого дня месяца
-    @ElementCollection //позволяет хранить много значений,а не одно поле
-    private Map<Integer,Boolean> statusPerDay;
+    // статусы завершения для каждого дня месяца: бит (day - 1) установлен - день выполнен
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int statusMask;
+
+    public int getStatusMask() {
+        return statusMask;
+    }
+
+    public void setStatusMask(int statusMask) {
+        this.statusMask = statusMask;
+    }
 
-    public Map<Integer, Boolean> getStatusPerDay() {
-        return statusPerDay;
+    public boolean isCompletedOn(int day) {
+        return (statusMask & dayBit(day)) != 0;
+    }
+
+    public void setCompletedOn(int day, boolean completed) {
+        statusMask = completed ? statusMask | dayBit(day) : statusMask & ~dayBit(day);
+    }
+
+    /**
+     * Бит дня месяца (1..31) в statusMask
+     */
+    public static int dayBit(int day) {
+        if (day < 1 || day > 31) {
+            throw new IllegalArgumentException("День должен быть от 1 до 31: " + day);
+        }
+        return 1 << (day - 1);
     }
 
     public Long getId() {
@@ -32,10 +55,6 @@ public class MonthlyTask {
         this.id = id;
     }
 
-    public void setStatusPerDay(Map<Integer, Boolean> statusPerDay) {
-        this.statusPerDay = statusPerDay;
-    }
-
     public MonthlyPlan getMonthlyPlan() {
         return monthlyPlan;
     }
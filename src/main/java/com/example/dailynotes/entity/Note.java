@@ -6,7 +6,13 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
-@Table(name="notes")
+@Table(name="notes", indexes = {
+        // Выборка дня и диапазона дат без полного сканирования таблицы;
+        // id во втором столбце задает порядок keyset-пагинации (date, id)
+        @Index(name = "idx_notes_date_id", columnList = "date, id"),
+        // Счетчики по дням (всего/выполнено) читаются только из индекса
+        @Index(name = "idx_notes_date_completed", columnList = "date, completed")
+})
 public class Note {
 
     @Id
@@ -19,7 +25,11 @@ public class Note {
     private double weight;
     private boolean completed;
 
-
+    // Увеличивается при каждом изменении; защищает от потерянных обновлений
+    // и задает порядок событий заметки в Kafka (NoteEvent.version)
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
 
     public Note(){}
 
@@ -41,6 +51,14 @@ public class Note {
     @OneToMany(mappedBy = "note",cascade = CascadeType.ALL)
     private List<DayTask> dayTasks;
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public double getWeight() {
         return weight;
     }
@@ -0,0 +1,69 @@
+package com.example.dailynotes.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Счетчики заметок за один день, поддерживаемые по событиям из Kafka.
+ * Одна строка на дату, для которой были заметки.
+ */
+@Entity
+@Table(name = "note_daily_stats")
+public class NoteDailyStats {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate date;
+
+    private long notesCount;
+
+    private long completedCount;
+
+    private double totalWeight;
+
+    public NoteDailyStats() {
+    }
+
+    public NoteDailyStats(LocalDate date, long notesCount, long completedCount, double totalWeight) {
+        this.date = date;
+        this.notesCount = notesCount;
+        this.completedCount = completedCount;
+        this.totalWeight = totalWeight;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getNotesCount() {
+        return notesCount;
+    }
+
+    public void setNotesCount(long notesCount) {
+        this.notesCount = notesCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public void setTotalWeight(double totalWeight) {
+        this.totalWeight = totalWeight;
+    }
+}
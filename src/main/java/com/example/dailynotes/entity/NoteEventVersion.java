@@ -0,0 +1,46 @@
+package com.example.dailynotes.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Последняя обработанная consumer'ом версия событий заметки.
+ * Строка остается и после удаления заметки, чтобы запоздавшие события отбрасывались.
+ */
+@Entity
+@Table(name = "note_event_versions")
+public class NoteEventVersion {
+
+    @Id
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Column(name = "last_version", nullable = false)
+    private long lastVersion;
+
+    public NoteEventVersion() {
+    }
+
+    public NoteEventVersion(Long noteId, long lastVersion) {
+        this.noteId = noteId;
+        this.lastVersion = lastVersion;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getLastVersion() {
+        return lastVersion;
+    }
+
+    public void setLastVersion(long lastVersion) {
+        this.lastVersion = lastVersion;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.dailynotes.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Состояние заметки, учтенное в статистике: последняя версия события и вклад заметки
+ * в счетчики (дата, выполнена, вес). lastDate == null - заметка сейчас не учтена (удалена).
+ *
+ * Обновляется в одной транзакции со счетчиками. Событие меняет счетчики на разницу между
+ * учтенным состоянием и состоянием из события, поэтому пропущенные версии не искажают счетчики,
+ * а повтор события с той же версией (relay, новый offset) пропускается.
+ */
+@Entity
+@Table(name = "note_stats_versions")
+public class NoteStatsVersion {
+
+    @Id
+    @Column(name = "note_id")
+    private Long noteId;
+
+    @Column(name = "last_version", nullable = false)
+    private long lastVersion;
+
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "weight", nullable = false)
+    private double weight;
+
+    public NoteStatsVersion() {
+    }
+
+    public NoteStatsVersion(Long noteId) {
+        this.noteId = noteId;
+        this.lastVersion = -1;
+    }
+
+    public NoteStatsVersion(Long noteId, long lastVersion, LocalDate lastDate, boolean completed, double weight) {
+        this.noteId = noteId;
+        this.lastVersion = lastVersion;
+        this.lastDate = lastDate;
+        this.completed = completed;
+        this.weight = weight;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getLastVersion() {
+        return lastVersion;
+    }
+
+    public void setLastVersion(long lastVersion) {
+        this.lastVersion = lastVersion;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(LocalDate lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+}
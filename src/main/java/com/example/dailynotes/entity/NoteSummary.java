@@ -0,0 +1,94 @@
+package com.example.dailynotes.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сохраненное AI-резюме заметки.
+ *
+ * contentHash - хэш заголовка и текста, для которых резюме построено:
+ * пока заметка не изменилась, резюме повторно не запрашивается.
+ */
+@Entity
+@Table(name = "note_summaries",
+        indexes = @Index(name = "ux_note_summaries_note_id", columnList = "noteId", unique = true))
+public class NoteSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long noteId;
+
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    @Lob
+    @Column(nullable = false)
+    private String summary;
+
+    private String model;
+
+    private LocalDateTime createdAt;
+
+    public NoteSummary() {
+    }
+
+    public NoteSummary(Long noteId, String contentHash, String summary, String model) {
+        this.noteId = noteId;
+        this.contentHash = contentHash;
+        this.summary = summary;
+        this.model = model;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(Long noteId) {
+        this.noteId = noteId;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dailynotes.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Позиция relay в outbox: ID последнего события, успешно отправленного в Kafka.
+ */
+@Entity
+@Table(name = "outbox_cursor")
+public class OutboxCursor {
+
+    @Id
+    private String name;
+
+    private long lastSentId;
+
+    private LocalDateTime updatedAt;
+
+    public OutboxCursor() {
+    }
+
+    public OutboxCursor(String name) {
+        this.name = name;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLastSentId() {
+        return lastSentId;
+    }
+
+    public void setLastSentId(long lastSentId) {
+        this.lastSentId = lastSentId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
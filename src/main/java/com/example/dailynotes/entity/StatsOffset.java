@@ -0,0 +1,56 @@
+package com.example.dailynotes.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Последний offset партиции Kafka, уже учтенный в статистике заметок.
+ * Обновляется в одной транзакции со счетчиками, поэтому повторно прочитанная
+ * пачка не учитывается дважды.
+ */
+@Entity
+@Table(name = "note_stats_offsets")
+public class StatsOffset {
+
+    @Id
+    private String name;
+
+    private long lastOffset = -1;
+
+    private LocalDateTime updatedAt;
+
+    public StatsOffset() {
+    }
+
+    public StatsOffset(String name) {
+        this.name = name;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLastOffset() {
+        return lastOffset;
+    }
+
+    public void setLastOffset(long lastOffset) {
+        this.lastOffset = lastOffset;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.dailynotes.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Фоновое задание пакетного AI-резюмирования заметок за период.
+ *
+ * lastNoteId - контрольная точка: заметки обходятся по возрастанию ID,
+ * и после перезапуска задание продолжается со следующей заметки.
+ */
+@Entity
+@Table(name = "summary_jobs")
+public class SummaryJob {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate fromDate;
+
+    @Column(nullable = false)
+    private LocalDate toDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private long totalNotes;
+    private long summarizedNotes;
+    private long skippedNotes;
+    private long failedNotes;
+    private long promptsSent;
+    private long lastNoteId;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public SummaryJob() {
+    }
+
+    public SummaryJob(LocalDate fromDate, LocalDate toDate) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getTotalNotes() {
+        return totalNotes;
+    }
+
+    public void setTotalNotes(long totalNotes) {
+        this.totalNotes = totalNotes;
+    }
+
+    public long getSummarizedNotes() {
+        return summarizedNotes;
+    }
+
+    public void setSummarizedNotes(long summarizedNotes) {
+        this.summarizedNotes = summarizedNotes;
+    }
+
+    public long getSkippedNotes() {
+        return skippedNotes;
+    }
+
+    public void setSkippedNotes(long skippedNotes) {
+        this.skippedNotes = skippedNotes;
+    }
+
+    public long getFailedNotes() {
+        return failedNotes;
+    }
+
+    public void setFailedNotes(long failedNotes) {
+        this.failedNotes = failedNotes;
+    }
+
+    public long getPromptsSent() {
+        return promptsSent;
+    }
+
+    public void setPromptsSent(long promptsSent) {
+        this.promptsSent = promptsSent;
+    }
+
+    public long getLastNoteId() {
+        return lastNoteId;
+    }
+
+    public void setLastNoteId(long lastNoteId) {
+        this.lastNoteId = lastNoteId;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -2,20 +2,21 @@ package com.example.dailynotes.entity;
 
 import jakarta.persistence.*;
 
-import java.util.Map;
-
 @Entity
 public class WeeklyTask {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Пул идентификаторов из последовательности: id известен до INSERT, поэтому вставки
+    // задач плана идут JDBC-пачками (с IDENTITY Hibernate вставляет строки по одной)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weekly_task_seq")
+    @SequenceGenerator(name = "weekly_task_seq", sequenceName = "weekly_task_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
     private Task task;
     @ManyToOne
     private WeeklyPlan weeklyPlan;
-    // храним статусы завершения для каждого дня недели (1-пн,7-вс)
-    @ElementCollection
-    private Map<Integer,Boolean> statusPerDay;
+    // статусы завершения для каждого дня недели (1-пн,7-вс): используются младшие 7 бит
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int statusMask;
 
     public Long getId() {
         return id;
@@ -41,11 +42,29 @@ public class WeeklyTask {
         this.weeklyPlan = weeklyPlan;
     }
 
-    public Map<Integer, Boolean> getStatusPerDay() {
-        return statusPerDay;
+    public int getStatusMask() {
+        return statusMask;
+    }
+
+    public void setStatusMask(int statusMask) {
+        this.statusMask = statusMask;
+    }
+
+    public boolean isCompletedOn(int dayOfWeek) {
+        return (statusMask & dayBit(dayOfWeek)) != 0;
+    }
+
+    public void setCompletedOn(int dayOfWeek, boolean completed) {
+        statusMask = completed ? statusMask | dayBit(dayOfWeek) : statusMask & ~dayBit(dayOfWeek);
     }
 
-    public void setStatusPerDay(Map<Integer, Boolean> statusPerDay) {
-        this.statusPerDay = statusPerDay;
+    /**
+     * Бит дня недели (1..7) в statusMask
+     */
+    public static int dayBit(int dayOfWeek) {
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            throw new IllegalArgumentException("День недели должен быть от 1 до 7: " + dayOfWeek);
+        }
+        return 1 << (dayOfWeek - 1);
     }
 }
@@ -1,6 +1,8 @@
 package com.example.dailynotes.event;
 
 import com.example.dailynotes.entity.Note;
+
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
@@ -14,6 +16,12 @@ import java.time.LocalDateTime;
  * - UPDATED: заметка обновлена
  * - DELETED: заметка удалена
  * - TOGGLED: статус выполнения заметки изменен
+ * - BULK_IMPORTED: пачка заметок загружена импортом (одно событие на весь импорт,
+ *   date/previousDate - последняя и первая дата загруженных заметок)
+ *
+ * version - версия заметки (Note.version) после изменения, для DELETED - следующая
+ * за последней. Ключ сообщения в Kafka - ID заметки, поэтому события одной заметки
+ * попадают в одну партицию, а по version consumer отбрасывает повторы и устаревшие события.
  */
 public class NoteEvent {
     
@@ -24,15 +32,25 @@ public class NoteEvent {
         CREATED,   // Создание заметки
         UPDATED,   // Обновление заметки
         DELETED,   // Удаление заметки
-        TOGGLED    // Изменение статуса выполнения
+        TOGGLED,   // Изменение статуса выполнения
+        BULK_IMPORTED // Массовый импорт заметок
     }
     
     private EventType eventType;      // Тип события
     private Long noteId;              // ID заметки
     private String title;             // Заголовок заметки
     private String content;           // Содержание заметки
+    private LocalDate date;           // Дата заметки после изменения
+    private LocalDate previousDate;   // Дата до изменения (для UPDATED, если дата менялась)
+    private double weight;            // Вес
+    private Double previousWeight;    // Вес до изменения (для UPDATED, если вес менялся)
+    private boolean completed;        // Статус выполнения
     private LocalDateTime timestamp;  // Время создания события
     private Long userId;              // ID пользователя (для будущего расширения)
+    private Long importedCount;       // Количество загруженных заметок (для BULK_IMPORTED)
+    private Long version;             // Версия заметки после изменения: события одной заметки идут по возрастанию
+    private Boolean contentChanged;   // Менялся ли текст (для UPDATED; null - неизвестно)
+    private Long contentHash;         // Хэш текста, если текст не передан (бинарный формат, NoteEventCodec)
     
     // Конструкторы
     public NoteEvent() {
@@ -44,6 +62,10 @@ public class NoteEvent {
         this.noteId = note.getId();
         this.title = note.getTitle();
         this.content = note.getContent();
+        this.date = note.getDate();
+        this.weight = note.getWeight();
+        this.completed = note.isCompleted();
+        this.version = note.getVersion();
         this.timestamp = LocalDateTime.now();
     }
     
@@ -86,6 +108,46 @@ public class NoteEvent {
         this.content = content;
     }
     
+    public LocalDate getDate() {
+        return date;
+    }
+    
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+    
+    public LocalDate getPreviousDate() {
+        return previousDate;
+    }
+    
+    public void setPreviousDate(LocalDate previousDate) {
+        this.previousDate = previousDate;
+    }
+    
+    public double getWeight() {
+        return weight;
+    }
+    
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+    
+    public Double getPreviousWeight() {
+        return previousWeight;
+    }
+    
+    public void setPreviousWeight(Double previousWeight) {
+        this.previousWeight = previousWeight;
+    }
+    
+    public boolean isCompleted() {
+        return completed;
+    }
+    
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+    
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -101,6 +163,38 @@ public class NoteEvent {
     public void setUserId(Long userId) {
         this.userId = userId;
     }
+
+    public Long getImportedCount() {
+        return importedCount;
+    }
+
+    public void setImportedCount(Long importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    public Boolean getContentChanged() {
+        return contentChanged;
+    }
+
+    public void setContentChanged(Boolean contentChanged) {
+        this.contentChanged = contentChanged;
+    }
+
+    public Long getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(Long contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
     
     @Override
     public String toString() {
@@ -108,6 +202,8 @@ public class NoteEvent {
                 "eventType=" + eventType +
                 ", noteId=" + noteId +
                 ", title='" + title + '\'' +
+                ", date=" + date +
+                ", version=" + version +
                 ", timestamp=" + timestamp +
                 '}';
     }
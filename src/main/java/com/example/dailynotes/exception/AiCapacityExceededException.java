@@ -0,0 +1,11 @@
+package com.example.dailynotes.exception;
+
+/**
+ * Исключение при переполнении пула запросов к AI.
+ * Запрос отклоняется сразу, чтобы не держать поток и соединение клиента.
+ */
+public class AiCapacityExceededException extends RuntimeException {
+    public AiCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.dailynotes.exception;
+
+/**
+ * Исключение при превышении числа открытых подписок на обновления (app.push.max-connections).
+ */
+public class PushCapacityExceededException extends RuntimeException {
+    public PushCapacityExceededException(String message) {
+        super(message);
+    }
+}
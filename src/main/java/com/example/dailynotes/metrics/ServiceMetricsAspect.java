@@ -0,0 +1,76 @@
+package com.example.dailynotes.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.reactivestreams.Publisher;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймер на каждый публичный метод сервисов (пакет service):
+ * dailynotes.service.calls{class, method, outcome=success|error}.
+ *
+ * Число вызовов и ошибок - count() таймера. Таймеры создаются при первом вызове метода
+ * и дальше берутся из карты, поэтому на вызов нет ни регистрации, ни выделения памяти.
+ * Методы, возвращающие Mono/Flux, не замеряются: вызов только собирает цепочку,
+ * а запрос выполняется при подписке (для OpenAI есть отдельные метрики в AIService).
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    static final String METRIC = "dailynotes.service.calls";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.example.dailynotes.service..*) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer[] methodTimers = timers.get(method);
+        if (methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(method, this::register);
+        }
+        if (methodTimers.length == 0) {
+            return joinPoint.proceed();
+        }
+
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            methodTimers[0].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            methodTimers[1].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer[] register(Method method) {
+        if (Publisher.class.isAssignableFrom(method.getReturnType())) {
+            return new Timer[0];
+        }
+        return new Timer[]{timer(method, "success"), timer(method, "error")};
+    }
+
+    private Timer timer(Method method, String outcome) {
+        return Timer.builder(METRIC)
+                .description("Время выполнения методов сервисов")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.dailynotes.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск закреплений (pinning) виртуальных потоков в режиме spring.threads.virtual.enabled.
+ *
+ * Виртуальный поток, который блокируется внутри synchronized или native-кода, не отпускает
+ * платформенный поток-носитель: несколько таких ожиданий останавливают все виртуальные потоки.
+ * JVM сообщает о них событием JFR jdk.VirtualThreadPinned; монитор подписывается на него
+ * в процессе (без записи файла), пишет в лог место блокировки и считает такие события
+ * в метрике dailynotes.threads.virtual.pinned.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Counter pinnedCounter;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${app.threads.virtual.pinned-threshold-ms:20}") long thresholdMillis) {
+        this.pinnedCounter = Counter.builder("dailynotes.threads.virtual.pinned")
+                .description("Блокировки виртуальных потоков с закреплением за потоком-носителем")
+                .register(meterRegistry);
+        this.threshold = Duration.ofMillis(thresholdMillis);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        logger.info("Отслеживание закреплений виртуальных потоков включено, порог {} мс", threshold.toMillis());
+    }
+
+    private void report(RecordedEvent event) {
+        pinnedCounter.increment();
+        logger.warn("Виртуальный поток закреплен за потоком-носителем на {} мс:\n{}",
+                event.getDuration().toMillis(), frames(event.getStackTrace()));
+    }
+
+    private static String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "    (стек недоступен)";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "    at " + frame.getMethod().getType().getName() + "."
+                        + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
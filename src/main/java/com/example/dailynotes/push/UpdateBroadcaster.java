@@ -0,0 +1,541 @@
+package com.example.dailynotes.push;
+
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.exception.PushCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Рассылка изменений подписчикам по SSE: на заметки дня и на месячный план.
+ *
+ * Источники: NoteEventConsumer передает события из Kafka, MonthlyPlanController - изменения планов.
+ * Каждое изменение доставляется своим подписчикам и публикуется в Redis (app.push.channel),
+ * чтобы его получили подписчики на других узлах: consumer узла читает только свои партиции.
+ *
+ * Клиенту уходит только событие changed с темой и числом изменений, сами данные он перечитывает
+ * условным GET с ETag (NoteApiController), поэтому уведомления можно склеивать без потерь:
+ * - подписка держит только флаг "есть изменения" и счетчик, не очередь сообщений;
+ * - раз в app.push.coalesce-ms всем отмеченным подпискам уходит по одному событию;
+ * - у подписки не больше одной отправки в работе, пока она не завершилась, новые изменения
+ *   копятся во флаге (backpressure без буферов);
+ * - подписка, чья отправка висит дольше app.push.slow-consumer-ms, отключается.
+ *
+ * Открытая подписка не держит поток (асинхронный запрос Servlet), отправки идут через небольшой
+ * пул с ограниченной очередью (app.push.sender-queue-capacity). Если очередь заполнена, отправка
+ * откладывается: подписка остается отмеченной и уходит в следующем flushPending.
+ *
+ * Запись идет в неблокирующем режиме Servlet (WriteListener на потоке ответа): блокирующую запись
+ * SseEmitter завершает под тем же замком, что и отправку, и поток пула висел бы на клиенте, который
+ * не читает поток событий, до таймаута соединения Tomcat. Отправка ставится, только если поток ответа
+ * готов (isReady). Если после отправки данные не ушли целиком, Tomcat дописывает их сам, а подписка
+ * считается занятой до onWritePossible: если его нет дольше app.push.slow-consumer-ms, подписка
+ * отключается и завершается сразу, ни один поток при этом не занят. Если контейнер неблокирующую
+ * запись не поддерживает, запись блокирующая, и поток освобождается таймаутом соединения.
+ *
+ * Раз в app.push.heartbeat-seconds молчащим подпискам уходит комментарий: так прокси
+ * не закрывают соединение, а оборванные клиенты обнаруживаются и удаляются.
+ *
+ * Метрики: dailynotes.push.connections, dailynotes.push.sent{type=change|heartbeat},
+ * dailynotes.push.dropped{reason=slow|error}, dailynotes.push.rejected, dailynotes.push.deferred.
+ */
+@Component
+public class UpdateBroadcaster implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpdateBroadcaster.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<LocalDate, Set<Subscription>> byDate = new ConcurrentHashMap<>();
+    private final Map<YearMonth, Set<Subscription>> byPlan = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Queue<Subscription> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final Counter changesSent;
+    private final Counter heartbeatsSent;
+    private final Counter droppedSlow;
+    private final Counter droppedError;
+    private final Counter rejected;
+    private final Counter deferred;
+
+    @Value("${app.push.channel:dailynotes:updates}")
+    private String channel;
+
+    @Value("${app.push.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    @Value("${app.push.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${app.push.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${app.push.coalesce-ms:250}")
+    private long coalesceMillis;
+
+    @Value("${app.push.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${app.push.slow-consumer-ms:5000}")
+    private long slowConsumerMillis;
+
+    @Value("${app.push.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${app.push.sender-queue-capacity:1000}")
+    private int senderQueueCapacity;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService sender;
+
+    public UpdateBroadcaster(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        Gauge.builder("dailynotes.push.connections", connections, AtomicInteger::get)
+                .description("Открытые подписки на обновления")
+                .register(meterRegistry);
+        this.changesSent = Counter.builder("dailynotes.push.sent").tag("type", "change").register(meterRegistry);
+        this.heartbeatsSent = Counter.builder("dailynotes.push.sent").tag("type", "heartbeat").register(meterRegistry);
+        this.droppedSlow = Counter.builder("dailynotes.push.dropped").tag("reason", "slow").register(meterRegistry);
+        this.droppedError = Counter.builder("dailynotes.push.dropped").tag("reason", "error").register(meterRegistry);
+        this.rejected = Counter.builder("dailynotes.push.rejected").register(meterRegistry);
+        this.deferred = Counter.builder("dailynotes.push.deferred")
+                .description("Отправки, отложенные из-за заполненной очереди пула")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "push-scheduler"));
+        scheduler.scheduleWithFixedDelay(this::flushPending, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(senderQueueCapacity),
+                runnable -> daemon(runnable, "push-sender-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+        for (Subscription subscription : subscriptions) {
+            completeQuietly(subscription);
+        }
+    }
+
+    /**
+     * Подписка на изменения заметок дня
+     */
+    public SseEmitter subscribeToDate(LocalDate date, HttpServletResponse response) {
+        return subscribe(byDate, date, "notes:" + date, response);
+    }
+
+    /**
+     * Подписка на изменения месячного плана
+     */
+    public SseEmitter subscribeToPlan(YearMonth month, HttpServletResponse response) {
+        return subscribe(byPlan, month, "plan:" + month, response);
+    }
+
+    /**
+     * Изменения заметок из пачки событий Kafka. Соседние даты склеиваются в один диапазон,
+     * массовый импорт уведомляет обо всем своем периоде.
+     */
+    public void notesChanged(List<NoteEvent> events) {
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        for (NoteEvent event : events) {
+            if (event.getEventType() == NoteEvent.EventType.BULK_IMPORTED) {
+                if (event.getPreviousDate() != null && event.getDate() != null) {
+                    publish(new UpdateNotice(nodeId, UpdateNotice.SCOPE_NOTES, event.getPreviousDate(), event.getDate()));
+                }
+                continue;
+            }
+            if (event.getDate() != null) {
+                dates.add(event.getDate());
+            }
+            if (event.getPreviousDate() != null) {
+                dates.add(event.getPreviousDate());
+            }
+        }
+        LocalDate from = null;
+        LocalDate to = null;
+        for (LocalDate date : dates) {
+            if (to != null && date.equals(to.plusDays(1))) {
+                to = date;
+                continue;
+            }
+            if (from != null) {
+                publish(new UpdateNotice(nodeId, UpdateNotice.SCOPE_NOTES, from, to));
+            }
+            from = date;
+            to = date;
+        }
+        if (from != null) {
+            publish(new UpdateNotice(nodeId, UpdateNotice.SCOPE_NOTES, from, to));
+        }
+    }
+
+    /**
+     * Изменение месячного плана (после коммита записи)
+     */
+    public void planChanged(YearMonth month) {
+        publish(new UpdateNotice(nodeId, UpdateNotice.SCOPE_PLAN, month.atDay(1), month.atEndOfMonth()));
+    }
+
+    public boolean isOwnNotice(UpdateNotice notice) {
+        return nodeId.equals(notice.getNodeId());
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Отмечает подписки, которых касается уведомление. Отправка - в ближайшем flushPending.
+     */
+    public void deliver(UpdateNotice notice) {
+        if (notice.getFrom() == null || notice.getTo() == null) {
+            return;
+        }
+        if (UpdateNotice.SCOPE_PLAN.equals(notice.getScope())) {
+            mark(byPlan.get(YearMonth.from(notice.getFrom())));
+            return;
+        }
+        long days = ChronoUnit.DAYS.between(notice.getFrom(), notice.getTo()) + 1;
+        if (days <= byDate.size()) {
+            for (LocalDate date = notice.getFrom(); !date.isAfter(notice.getTo()); date = date.plusDays(1)) {
+                mark(byDate.get(date));
+            }
+            return;
+        }
+        // Длинный период (импорт): дешевле пройти по датам, на которые кто-то подписан
+        for (Map.Entry<LocalDate, Set<Subscription>> entry : byDate.entrySet()) {
+            if (!entry.getKey().isBefore(notice.getFrom()) && !entry.getKey().isAfter(notice.getTo())) {
+                mark(entry.getValue());
+            }
+        }
+    }
+
+    private <K> SseEmitter subscribe(Map<K, Set<Subscription>> index, K key, String topic,
+                                     HttpServletResponse response) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.increment();
+            throw new PushCapacityExceededException("Слишком много подписок на обновления, повторите позже");
+        }
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscription subscription = new Subscription(topic, emitter, response);
+        subscription.unregister = () -> index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscriptions.add(subscription);
+
+        emitter.onCompletion(() -> close(subscription));
+        emitter.onTimeout(() -> {
+            close(subscription);
+            emitter.complete();
+        });
+        emitter.onError(e -> close(subscription));
+        try {
+            // Первый комментарий сразу отправляет заголовки: клиент видит, что подписка открыта
+            emitter.send(SseEmitter.event().comment("subscribed " + topic));
+        } catch (Exception e) {
+            close(subscription);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private void publish(UpdateNotice notice) {
+        deliver(notice);
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, notice);
+        } catch (Exception e) {
+            logger.warn("Не удалось разослать уведомление {} другим узлам: {}", notice, e.getMessage());
+        }
+    }
+
+    private void mark(Set<Subscription> targets) {
+        if (targets == null) {
+            return;
+        }
+        for (Subscription subscription : targets) {
+            subscription.changes.incrementAndGet();
+            if (subscription.dirty.compareAndSet(false, true)) {
+                pending.add(subscription);
+            }
+        }
+    }
+
+    /**
+     * Одно событие на каждую отмеченную подписку. Подписки с незавершенной отправкой
+     * остаются в очереди до следующего раза.
+     */
+    public void flushPending() {
+        long now = System.nanoTime();
+        List<Subscription> busy = new ArrayList<>();
+        Subscription subscription;
+        while ((subscription = pending.poll()) != null) {
+            if (subscription.closed.get()) {
+                continue;
+            }
+            if (!trySend(subscription, now, false)) {
+                busy.add(subscription);
+            }
+        }
+        pending.addAll(busy);
+    }
+
+    /**
+     * Комментарий подпискам, которым давно ничего не отправлялось, и отключение зависших
+     */
+    public void heartbeat() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+        for (Subscription subscription : subscriptions) {
+            if (now - subscription.lastSentAt >= idleNanos) {
+                trySend(subscription, now, true);
+            }
+        }
+    }
+
+    /**
+     * Ставит отправку в пул. false - у подписки еще идет прошлая отправка или очередь пула заполнена.
+     */
+    private boolean trySend(Subscription subscription, long now, boolean heartbeat) {
+        if (!subscription.sending.compareAndSet(false, true)) {
+            if (now - subscription.sendStartedAt > TimeUnit.MILLISECONDS.toNanos(slowConsumerMillis)) {
+                logger.debug("Подписка {} не принимает данные, отключаем", subscription.topic);
+                droppedSlow.increment();
+                close(subscription);
+                if (subscription.isWaitingForWrite()) {
+                    // Данные ждут в буфере Tomcat, ни один поток не пишет: завершаем сразу.
+                    // Идущая отправка сама завершит подписку в send()
+                    completeQuietly(subscription);
+                }
+                return true;
+            }
+            return false;
+        }
+        subscription.sendStartedAt = now;
+        try {
+            sender.execute(() -> send(subscription, heartbeat));
+        } catch (RejectedExecutionException e) {
+            // Все потоки заняты, очередь полна: изменения остаются во флаге до следующей отправки
+            subscription.sending.set(false);
+            deferred.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void send(Subscription subscription, boolean heartbeat) {
+        boolean release = true;
+        try {
+            if (subscription.closed.get()) {
+                return;
+            }
+            ServletOutputStream output = output(subscription);
+            if (!writable(subscription, output)) {
+                // Прошлая запись еще не ушла клиенту: подписка занята до onWritePossible
+                release = false;
+                if (subscription.dirty.get()) {
+                    pending.add(subscription);
+                }
+                return;
+            }
+            // Флаг снимается до чтения счетчика: изменение, пришедшее во время отправки,
+            // снова поставит подписку в очередь
+            subscription.dirty.set(false);
+            int changes = subscription.changes.getAndSet(0);
+            if (changes > 0) {
+                subscription.emitter.send(SseEmitter.event()
+                        .name("changed")
+                        .data(Map.of("topic", subscription.topic, "changes", changes)));
+                changesSent.increment();
+            } else if (heartbeat) {
+                subscription.emitter.send(SseEmitter.event().comment("ping"));
+                heartbeatsSent.increment();
+            } else {
+                return;
+            }
+            subscription.lastSentAt = System.nanoTime();
+            // Остаток, не ушедший в сокет, Tomcat допишет сам и вызовет onWritePossible
+            release = writable(subscription, output);
+        } catch (Exception e) {
+            logger.debug("Ошибка отправки подписке {}: {}", subscription.topic, e.getMessage());
+            if (!subscription.closed.get()) {
+                droppedError.increment();
+            }
+            close(subscription);
+        } finally {
+            if (release) {
+                subscription.sending.set(false);
+            }
+            if (subscription.closed.get()) {
+                // Отключенную (в том числе медленную) подписку завершаем, когда отправка вернулась
+                completeQuietly(subscription);
+            }
+        }
+    }
+
+    /**
+     * Поток ответа в неблокирующем режиме. null - контейнер его не поддерживает (например,
+     * MockHttpServletResponse), тогда запись блокирующая. Вызывается только из отправки.
+     */
+    private ServletOutputStream output(Subscription subscription) {
+        if (!subscription.outputResolved) {
+            subscription.outputResolved = true;
+            try {
+                ServletOutputStream output = subscription.response.getOutputStream();
+                output.setWriteListener(new SubscriptionWriteListener(subscription));
+                subscription.output = output;
+            } catch (Exception e) {
+                logger.debug("Неблокирующая запись недоступна для подписки {}: {}", subscription.topic, e.getMessage());
+            }
+        }
+        return subscription.output;
+    }
+
+    /**
+     * Можно ли писать в поток ответа. false - контейнер вызовет onWritePossible, когда допишет данные.
+     */
+    private static boolean writable(Subscription subscription, ServletOutputStream output) {
+        if (output == null) {
+            return true;
+        }
+        synchronized (subscription) {
+            subscription.waitingForWrite = !output.isReady();
+            return !subscription.waitingForWrite;
+        }
+    }
+
+    private void close(Subscription subscription) {
+        if (subscription.closed.compareAndSet(false, true)) {
+            subscriptions.remove(subscription);
+            subscription.unregister.run();
+            connections.decrementAndGet();
+        }
+    }
+
+    private static void completeQuietly(Subscription subscription) {
+        try {
+            subscription.emitter.complete();
+        } catch (Exception e) {
+            logger.debug("Не удалось завершить подписку {}: {}", subscription.topic, e.getMessage());
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Освобождает подписку, когда Tomcat дописал данные прошлой отправки
+     */
+    private final class SubscriptionWriteListener implements WriteListener {
+
+        private final Subscription subscription;
+
+        SubscriptionWriteListener(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onWritePossible() {
+            synchronized (subscription) {
+                if (subscription.waitingForWrite) {
+                    subscription.waitingForWrite = false;
+                    subscription.sending.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            logger.debug("Ошибка записи подписке {}: {}", subscription.topic, t.getMessage());
+            if (!subscription.closed.get()) {
+                droppedError.increment();
+            }
+            close(subscription);
+        }
+    }
+
+    /**
+     * Одно SSE-соединение: флаг несвязанных изменений и не больше одной отправки в работе
+     */
+    private static final class Subscription {
+        final String topic;
+        final SseEmitter emitter;
+        final HttpServletResponse response;
+        final AtomicBoolean dirty = new AtomicBoolean();
+        final AtomicInteger changes = new AtomicInteger();
+        final AtomicBoolean sending = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long sendStartedAt;
+        volatile long lastSentAt = System.nanoTime();
+        Runnable unregister = () -> { };
+        // Поток ответа меняет только отправка, которая держит sending
+        volatile boolean outputResolved;
+        volatile ServletOutputStream output;
+        // Под замком подписки: отправка ждет onWritePossible
+        boolean waitingForWrite;
+
+        Subscription(String topic, SseEmitter emitter, HttpServletResponse response) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.response = response;
+        }
+
+        synchronized boolean isWaitingForWrite() {
+            return waitingForWrite;
+        }
+    }
+}
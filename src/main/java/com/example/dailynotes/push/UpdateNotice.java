@@ -0,0 +1,72 @@
+package com.example.dailynotes.push;
+
+import java.time.LocalDate;
+
+/**
+ * Уведомление об изменении, рассылаемое между узлами через Redis pub/sub.
+ *
+ * scope = notes: изменились заметки дат from..to (для одного события from == to);
+ * scope = plan: изменился месячный план месяца from (to - последний день месяца).
+ */
+public class UpdateNotice {
+
+    public static final String SCOPE_NOTES = "notes";
+    public static final String SCOPE_PLAN = "plan";
+
+    private String nodeId;
+    private String scope;
+    private LocalDate from;
+    private LocalDate to;
+
+    public UpdateNotice() {
+    }
+
+    public UpdateNotice(String nodeId, String scope, LocalDate from, LocalDate to) {
+        this.nodeId = nodeId;
+        this.scope = scope;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateNotice{" +
+                "nodeId='" + nodeId + '\'' +
+                ", scope='" + scope + '\'' +
+                ", from=" + from +
+                ", to=" + to +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.dailynotes.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Принимает уведомления об изменениях от других узлов и передает их своим подписчикам.
+ */
+public class UpdateNoticeListener implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpdateNoticeListener.class);
+
+    private final UpdateBroadcaster broadcaster;
+    private final RedisSerializer<Object> serializer;
+
+    public UpdateNoticeListener(UpdateBroadcaster broadcaster, RedisSerializer<Object> serializer) {
+        this.broadcaster = broadcaster;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Object payload = serializer.deserialize(message.getBody());
+            if (!(payload instanceof UpdateNotice notice)) {
+                logger.warn("Неизвестное сообщение в канале уведомлений: {}", payload);
+                return;
+            }
+            if (broadcaster.isOwnNotice(notice)) {
+                return;
+            }
+            broadcaster.deliver(notice);
+        } catch (Exception e) {
+            logger.warn("Ошибка при обработке уведомления об изменении", e);
+        }
+    }
+}
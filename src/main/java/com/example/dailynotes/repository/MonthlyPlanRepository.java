@@ -1,7 +1,10 @@
 package com.example.dailynotes.repository;
 
+import com.example.dailynotes.dto.MonthlyPlanGridRow;
 import com.example.dailynotes.entity.MonthlyPlan;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +12,15 @@ import java.util.List;
 @Repository
 public interface MonthlyPlanRepository extends JpaRepository<MonthlyPlan,Long> {
     List<MonthlyPlan> findByPlanYearAndPlanMonth(int planYear,int planMonth);
+
+    /**
+     * Сетка всех планов месяца одним запросом: план x задача плана x название задачи.
+     * Left join оставляет планы без задач (одна строка с пустыми полями задачи).
+     */
+    @Query("select new com.example.dailynotes.dto.MonthlyPlanGridRow(" +
+            "p.id, p.planYear, p.planMonth, mt.id, t.title, t.category, mt.statusMask) " +
+            "from MonthlyPlan p left join p.tasks mt left join mt.task t " +
+            "where p.planYear = :planYear and p.planMonth = :planMonth " +
+            "order by p.id, mt.id")
+    List<MonthlyPlanGridRow> findGridRows(@Param("planYear") int planYear, @Param("planMonth") int planMonth);
 }
@@ -2,6 +2,9 @@ package com.example.dailynotes.repository;
 
 import com.example.dailynotes.entity.MonthlyTask;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +12,19 @@ import java.util.List;
 @Repository
 public interface MonthlyTaskRepository extends JpaRepository<MonthlyTask,Long> {
     List<MonthlyTask> findByMonthlyPlanId(Long planId);
+
+    /**
+     * Атомарная установка бита дня одним UPDATE, без загрузки сущности.
+     * Возвращает число обновленных строк (0 - задачи нет).
+     */
+    @Modifying
+    @Query("update MonthlyTask t set t.statusMask = bitor(t.statusMask, cast(:bit as Integer)) where t.id = :id")
+    int setDayBit(@Param("id") Long id, @Param("bit") int bit);
+
+    /**
+     * Атомарный сброс бита дня: bitand с инвертированным битом
+     */
+    @Modifying
+    @Query("update MonthlyTask t set t.statusMask = bitand(t.statusMask, cast(:keepMask as Integer)) where t.id = :id")
+    int clearDayBit(@Param("id") Long id, @Param("keepMask") int keepMask);
 }
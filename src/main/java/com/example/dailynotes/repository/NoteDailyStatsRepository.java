@@ -0,0 +1,37 @@
+package com.example.dailynotes.repository;
+
+import com.example.dailynotes.entity.NoteDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface NoteDailyStatsRepository extends JpaRepository<NoteDailyStats, LocalDate> {
+
+    List<NoteDailyStats> findByDateBetweenOrderByDateAsc(LocalDate from, LocalDate to);
+
+    /**
+     * Атомарное приращение счетчиков дня. Возвращает 0, если строки за этот день еще нет.
+     */
+    @Modifying
+    @Query("update NoteDailyStats s set s.notesCount = s.notesCount + :notes, "
+            + "s.completedCount = s.completedCount + :completed, s.totalWeight = s.totalWeight + :weight "
+            + "where s.date = :date")
+    int addDelta(@Param("date") LocalDate date, @Param("notes") long notes,
+                 @Param("completed") long completed, @Param("weight") double weight);
+
+    /**
+     * Первая строка за день (обычным INSERT, чтобы строка не оставалась в контексте Hibernate
+     * и последующие приращения были видны в той же транзакции)
+     */
+    @Modifying
+    @Query(value = "insert into note_daily_stats (stat_date, notes_count, completed_count, total_weight) "
+            + "values (:date, :notes, :completed, :weight)", nativeQuery = true)
+    int insertDay(@Param("date") LocalDate date, @Param("notes") long notes,
+                  @Param("completed") long completed, @Param("weight") double weight);
+}
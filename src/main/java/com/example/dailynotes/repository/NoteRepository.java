@@ -1,15 +1,98 @@
 package com.example.dailynotes.repository;
 
+import com.example.dailynotes.dto.NoteDayStats;
+import com.example.dailynotes.dto.NoteListItem;
+import com.example.dailynotes.dto.NoteVersionRow;
 import com.example.dailynotes.entity.Note;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note,Long> {
 
+    String LIST_ITEM_SELECT = "select new com.example.dailynotes.dto.NoteListItem(" +
+            "n.id, n.title, n.date, n.weight, n.completed) from Note n ";
+
+    String LIST_FILTERS = "(:completed is null or n.completed = :completed) " +
+            "and (:minWeight is null or n.weight >= :minWeight) " +
+            "and (:maxWeight is null or n.weight <= :maxWeight) ";
+
     List<Note> findByDate(LocalDate date);
 
+    /**
+     * Страница заметок периода после контрольной точки (обход по возрастанию ID)
+     */
+    List<Note> findByDateBetweenAndIdGreaterThanOrderByIdAsc(LocalDate from, LocalDate to, Long afterId,
+                                                              Pageable pageable);
+
+    long countByDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Обход всей таблицы страницами по возрастанию ID (перестроение поискового индекса)
+     */
+    List<Note> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Заметки за период без содержания (индекс idx_notes_date_id)
+     */
+    @Query(LIST_ITEM_SELECT + "where n.date between :from and :to order by n.date, n.id")
+    List<NoteListItem> findListItemsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Версия заметки для ETag без загрузки самой заметки
+     */
+    @Query("select n.version from Note n where n.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Текущие версии заметок по id (удаленных заметок в ответе нет)
+     */
+    @Query("select new com.example.dailynotes.dto.NoteVersionRow(n.date, n.id, n.version) from Note n where n.id in :ids")
+    List<NoteVersionRow> findVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Пары (id, version) заметок периода для версий дней (ETag)
+     */
+    @Query("select new com.example.dailynotes.dto.NoteVersionRow(n.date, n.id, n.version) " +
+            "from Note n where n.date between :from and :to")
+    List<NoteVersionRow> findVersionsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Количество заметок и выполненных заметок по дням периода.
+     * Читает только колонки индекса idx_notes_date_completed; дни без заметок не возвращаются.
+     */
+    @Query("select new com.example.dailynotes.dto.NoteDayStats(n.date, count(n), " +
+            "sum(case when n.completed = true then 1L else 0L end)) " +
+            "from Note n where n.date between :from and :to group by n.date order by n.date")
+    List<NoteDayStats> findDayStatsBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Первая страница списка заметок в порядке (date, id)
+     */
+    @Query(LIST_ITEM_SELECT + "where " + LIST_FILTERS + "order by n.date, n.id")
+    List<NoteListItem> findListPage(@Param("completed") Boolean completed,
+                                    @Param("minWeight") Double minWeight,
+                                    @Param("maxWeight") Double maxWeight,
+                                    Pageable pageable);
+
+    /**
+     * Следующая страница после (afterDate, afterId): поиск по индексу вместо OFFSET,
+     * стоимость не зависит от номера страницы
+     */
+    @Query(LIST_ITEM_SELECT + "where n.date >= :afterDate and (n.date > :afterDate or n.id > :afterId) " +
+            "and " + LIST_FILTERS + "order by n.date, n.id")
+    List<NoteListItem> findListPageAfter(@Param("afterDate") LocalDate afterDate,
+                                         @Param("afterId") Long afterId,
+                                         @Param("completed") Boolean completed,
+                                         @Param("minWeight") Double minWeight,
+                                         @Param("maxWeight") Double maxWeight,
+                                         Pageable pageable);
 }
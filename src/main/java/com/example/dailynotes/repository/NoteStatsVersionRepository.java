@@ -0,0 +1,35 @@
+package com.example.dailynotes.repository;
+
+import com.example.dailynotes.entity.NoteStatsVersion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface NoteStatsVersionRepository extends JpaRepository<NoteStatsVersion, Long> {
+
+    /**
+     * Заметки, еще не учтенные в статистике (нет строки состояния), с текущим состоянием из notes
+     */
+    @Query("select new com.example.dailynotes.entity.NoteStatsVersion(n.id, n.version, n.date, n.completed, n.weight) "
+            + "from Note n where n.id > :afterId "
+            + "and not exists (select v.noteId from NoteStatsVersion v where v.noteId = n.id) order by n.id")
+    List<NoteStatsVersion> findUncounted(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Первое состояние заметки обычным INSERT: если строку параллельно вставил другой поток
+     * (событие заметки или подсчет новых заметок), транзакция откатится по первичному ключу,
+     * и заметка не будет учтена дважды
+     */
+    @Modifying
+    @Query(value = "insert into note_stats_versions (note_id, last_version, last_date, completed, weight) "
+            + "values (:noteId, :version, :date, :completed, :weight)", nativeQuery = true)
+    int insertState(@Param("noteId") Long noteId, @Param("version") long version, @Param("date") LocalDate date,
+                    @Param("completed") boolean completed, @Param("weight") double weight);
+}
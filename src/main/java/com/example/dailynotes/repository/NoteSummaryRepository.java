@@ -0,0 +1,24 @@
+package com.example.dailynotes.repository;
+
+import com.example.dailynotes.entity.NoteSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NoteSummaryRepository extends JpaRepository<NoteSummary, Long> {
+
+    List<NoteSummary> findByNoteIdIn(Collection<Long> noteIds);
+
+    /**
+     * Резюме существующих заметок за период
+     */
+    @Query("select s from NoteSummary s where s.noteId in "
+            + "(select n.id from Note n where n.date between :from and :to) order by s.noteId")
+    List<NoteSummary> findForNotesBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
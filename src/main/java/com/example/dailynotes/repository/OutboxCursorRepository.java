@@ -0,0 +1,20 @@
+package com.example.dailynotes.repository;
+
+import com.example.dailynotes.entity.OutboxCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OutboxCursorRepository extends JpaRepository<OutboxCursor, String> {
+
+    // Блокировка строки не дает двум узлам отправлять одну и ту же пачку одновременно
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from OutboxCursor c where c.name = :name")
+    Optional<OutboxCursor> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,38 @@
+package com.example.dailynotes.repository;
+
+import com.example.dailynotes.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * События, ожидающие отправки, и события, взятые в работу до claimedBefore
+     * (relay упал или завис, не дождавшись подтверждений)
+     */
+    @Query("select e from OutboxEvent e where e.status = 'PENDING' "
+            + "or (e.status = 'SENDING' and e.claimedAt < :claimedBefore) order by e.id")
+    List<OutboxEvent> findReadyToSend(@Param("claimedBefore") LocalDateTime claimedBefore, Pageable pageable);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.status = :status, e.claimedAt = :claimedAt where e.id in :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("status") String status,
+                     @Param("claimedAt") LocalDateTime claimedAt);
+
+    long countByStatusIn(Collection<String> statuses);
+
+    long countByStatus(String status);
+
+    Optional<OutboxEvent> findFirstByStatusInOrderByIdAsc(Collection<String> statuses);
+}
@@ -0,0 +1,20 @@
+package com.example.dailynotes.repository;
+
+import com.example.dailynotes.entity.StatsOffset;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StatsOffsetRepository extends JpaRepository<StatsOffset, String> {
+
+    // Блокировка строки на время применения пачки (после ребаланса партиция может прийти другому потоку)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from StatsOffset o where o.name = :name")
+    Optional<StatsOffset> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,14 @@
+package com.example.dailynotes.repository;
+
+import com.example.dailynotes.entity.SummaryJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SummaryJobRepository extends JpaRepository<SummaryJob, Long> {
+
+    List<SummaryJob> findByStatusInOrderByIdAsc(Collection<SummaryJob.Status> statuses);
+}
@@ -1,12 +1,18 @@
 package com.example.dailynotes.repository;
 
+import com.example.dailynotes.dto.TaskOption;
 import com.example.dailynotes.entity.Task;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task,Long> {
     Optional<Task> findByTitleIgnoreCaseAndCategoryIgnoreCase(String title, String category);
+
+    @Query("select new com.example.dailynotes.dto.TaskOption(t.id, t.title) from Task t order by t.id")
+    List<TaskOption> findAllOptions();
 }
@@ -0,0 +1,68 @@
+package com.example.dailynotes.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.charfilter.MappingCharFilter;
+import org.apache.lucene.analysis.charfilter.NormalizeCharMap;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.en.EnglishPossessiveFilter;
+import org.apache.lucene.analysis.en.PorterStemFilter;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.snowball.SnowballFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.tartarus.snowball.ext.RussianStemmer;
+
+import java.io.Reader;
+
+/**
+ * Анализатор текста заметок на русском и английском одновременно.
+ *
+ * Заметки смешивают языки ("повторить Java streams"), поэтому оба стеммера
+ * применяются к каждому слову: русский Snowball меняет только кириллицу,
+ * Porter - только латиницу. Перед разбором "ё" приводится к "е".
+ */
+public class NoteAnalyzer extends Analyzer {
+
+    private static final NormalizeCharMap YO_MAP;
+    private static final CharArraySet STOP_WORDS;
+
+    static {
+        NormalizeCharMap.Builder builder = new NormalizeCharMap.Builder();
+        builder.add("ё", "е");
+        builder.add("Ё", "Е");
+        YO_MAP = builder.build();
+
+        CharArraySet stopWords = new CharArraySet(RussianAnalyzer.getDefaultStopSet(), true);
+        stopWords.addAll(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET);
+        STOP_WORDS = CharArraySet.unmodifiableSet(stopWords);
+    }
+
+    @Override
+    protected Reader initReader(String fieldName, Reader reader) {
+        return new MappingCharFilter(YO_MAP, reader);
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        StandardTokenizer source = new StandardTokenizer();
+        TokenStream result = new EnglishPossessiveFilter(source);
+        result = new LowerCaseFilter(result);
+        result = new StopFilter(result, STOP_WORDS);
+        result = new SnowballFilter(result, new RussianStemmer());
+        result = new PorterStemFilter(result);
+        return new TokenStreamComponents(source, result);
+    }
+
+    @Override
+    protected Reader initReaderForNormalization(String fieldName, Reader reader) {
+        return new MappingCharFilter(YO_MAP, reader);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new LowerCaseFilter(in);
+    }
+}
@@ -0,0 +1,492 @@
+package com.example.dailynotes.search;
+
+import com.example.dailynotes.codec.NoteEventCodec;
+import com.example.dailynotes.dto.NoteSearchHit;
+import com.example.dailynotes.dto.NoteSearchResult;
+import com.example.dailynotes.dto.NoteVersionRow;
+import com.example.dailynotes.dto.SearchIndexStatus;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.repository.NoteRepository;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Полнотекстовый индекс заметок (title + content) на Lucene.
+ *
+ * Индекс лежит на локальном диске (app.search.index-dir) и читается через MMapDirectory.
+ * Обновляется инкрементально событиями из Kafka: после каждой пачки событий изменения
+ * коммитятся и становятся видны поиску. Мелкие сегменты сливаются в фоне по TieredMergePolicy.
+ *
+ * Индекс локален для узла: события всех партиций приносит NoteSearchIndexListener в группе узла.
+ * Событие с версией меньше текущей версии заметки в БД (или для уже удаленной заметки) устарело
+ * и пропускается: событие текущей версии уже применено или еще придет. Так повтор relay и чтение
+ * топика с начала не откатывают документы.
+ *
+ * Перестроение из БД (rebuild) выполняется в отдельном потоке; оно же запускается при старте,
+ * если число документов в индексе не совпадает с числом заметок в БД (например, индекс
+ * пережил перезапуск, а БД в памяти - нет). Перестроение не очищает индекс: документы
+ * заменяются по id постранично, и в конце удаляются документы прошлых поколений (заметки,
+ * которых нет в БД). Поиск все время видит полный индекс, а страница перестроения и пачка
+ * событий не выполняются одновременно, поэтому событие не затирается старым чтением из БД.
+ */
+@Component
+public class NoteSearchIndex implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+    static final String ID = "id";
+    static final String TITLE = "title";
+    static final String CONTENT = "content";
+    static final String DATE = "date";
+    static final String COMPLETED = "completed";
+    static final String GENERATION = "generation";
+
+    private static final int SNIPPET_LENGTH = 200;
+
+    private final NoteRepository noteRepository;
+    private final NoteAnalyzer analyzer = new NoteAnalyzer();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Пачка событий и страница перестроения применяются по очереди
+    private final Object indexLock = new Object();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Поколение документов: перестроение начинает новое и удаляет документы старых
+    private volatile String generation = Long.toString(System.currentTimeMillis());
+    private final AtomicLong appliedTotal = new AtomicLong();
+    private final AtomicLong failedTotal = new AtomicLong();
+    private volatile LocalDateTime lastRebuildAt;
+    private volatile String lastError;
+
+    @Value("${app.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.index-dir:./data/search-index}")
+    private String indexDir;
+
+    @Value("${app.search.ram-buffer-mb:32}")
+    private double ramBufferMb;
+
+    @Value("${app.search.merge.segments-per-tier:10}")
+    private double segmentsPerTier;
+
+    @Value("${app.search.merge.max-merged-segment-mb:1024}")
+    private double maxMergedSegmentMb;
+
+    @Value("${app.search.rebuild.batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${app.search.rebuild-if-stale:true}")
+    private boolean rebuildIfStale;
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    public NoteSearchIndex(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            logger.info("Поисковый индекс заметок отключен (app.search.enabled=false)");
+            return;
+        }
+        Path path = Path.of(indexDir);
+        Files.createDirectories(path);
+        directory = new MMapDirectory(path);
+
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setSegmentsPerTier(segmentsPerTier);
+        mergePolicy.setMaxMergedSegmentMB(maxMergedSegmentMb);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setMergePolicy(mergePolicy)
+                .setRAMBufferSizeMB(ramBufferMb);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+        logger.info("Поисковый индекс открыт: {}, документов={}", path.toAbsolutePath(), writer.getDocStats().numDocs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfStale() {
+        if (!enabled || !rebuildIfStale) {
+            return;
+        }
+        int documents = writer.getDocStats().numDocs;
+        long notes = noteRepository.count();
+        if (documents != notes) {
+            logger.info("Поисковый индекс не совпадает с БД (документов={}, заметок={}), запускаем перестроение",
+                    documents, notes);
+            rebuild();
+        }
+    }
+
+    /**
+     * Применение событий в порядке их получения и коммит индекса.
+     * Ошибки по отдельным событиям не пробрасываются, чтобы не блокировать consumer.
+     */
+    public void apply(List<NoteEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        synchronized (indexLock) {
+            Map<Long, Long> current = currentVersions(events);
+            int stale = 0;
+            for (NoteEvent event : events) {
+                if (isStale(event, current)) {
+                    stale++;
+                    continue;
+                }
+                try {
+                    applyEvent(event);
+                    appliedTotal.incrementAndGet();
+                } catch (Exception e) {
+                    failedTotal.incrementAndGet();
+                    lastError = e.getMessage();
+                    logger.warn("Не удалось применить событие к поисковому индексу: {}", event, e);
+                }
+            }
+            if (stale > 0) {
+                logger.debug("Поисковый индекс: пропущено устаревших событий {}", stale);
+            }
+            commitAndRefresh();
+        }
+    }
+
+    /**
+     * Ранжированный поиск (BM25) по названию и тексту, совпадение в названии весит вдвое больше.
+     * Запрос - слова через пробел (все обязательны), "фраза в кавычках", префикс*, -исключение, a | b.
+     */
+    public NoteSearchResult search(String text, LocalDate from, LocalDate to, int limit) {
+        requireEnabled();
+        if (text == null || text.isBlank()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым");
+        }
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, Map.of(TITLE, 2.0f, CONTENT, 1.0f));
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query textQuery = parser.parse(text);
+        if (textQuery == null) {
+            return new NoteSearchResult(0, List.of());
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST);
+        if (from != null || to != null) {
+            long lower = from != null ? from.toEpochDay() : Long.MIN_VALUE;
+            long upper = to != null ? to.toEpochDay() : Long.MAX_VALUE;
+            query.add(LongPoint.newRangeQuery(DATE, lower, upper), BooleanClause.Occur.FILTER);
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query.build(), limit);
+                StoredFields storedFields = searcher.storedFields();
+                List<NoteSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    hits.add(toHit(storedFields.document(scoreDoc.doc), scoreDoc.score));
+                }
+                return new NoteSearchResult(topDocs.totalHits.value, hits);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Запуск перестроения индекса из БД в фоне. Возвращает false, если перестроение уже идет.
+     */
+    public boolean rebuild() {
+        requireEnabled();
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                long started = System.currentTimeMillis();
+                String rebuildGeneration = Long.toString(started);
+                synchronized (indexLock) {
+                    generation = rebuildGeneration;
+                }
+                long indexed = 0;
+                Long afterId = 0L;
+                List<Note> page;
+                do {
+                    synchronized (indexLock) {
+                        page = noteRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                                PageRequest.of(0, rebuildBatchSize));
+                        for (Note note : page) {
+                            writer.updateDocument(idTerm(note.getId()), toDocument(note));
+                        }
+                    }
+                    indexed += page.size();
+                    if (!page.isEmpty()) {
+                        afterId = page.get(page.size() - 1).getId();
+                    }
+                } while (page.size() == rebuildBatchSize);
+                synchronized (indexLock) {
+                    // Документы старых поколений - заметки, которых нет в БД
+                    writer.deleteDocuments(new BooleanQuery.Builder()
+                            .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+                            .add(new TermQuery(new Term(GENERATION, rebuildGeneration)), BooleanClause.Occur.MUST_NOT)
+                            .build());
+                    commitAndRefresh();
+                }
+                // После полной загрузки сливаем сегменты, чтобы поиск читал меньше файлов
+                writer.forceMerge(1);
+                commitAndRefresh();
+                lastRebuildAt = LocalDateTime.now();
+                logger.info("Поисковый индекс перестроен: заметок={}, за {} мс", indexed,
+                        System.currentTimeMillis() - started);
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                logger.error("Ошибка при перестроении поискового индекса", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    public SearchIndexStatus getStatus() {
+        if (!enabled) {
+            return new SearchIndexStatus(false, indexDir, 0, 0, false, null,
+                    appliedTotal.get(), failedTotal.get(), lastError);
+        }
+        int segments;
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                segments = searcher.getIndexReader().leaves().size();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SearchIndexStatus(true, indexDir, writer.getDocStats().numDocs, segments, rebuilding.get(),
+                lastRebuildAt != null ? lastRebuildAt.toString() : null,
+                appliedTotal.get(), failedTotal.get(), lastError);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        rebuildExecutor.shutdownNow();
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        if (writer != null) {
+            // close() коммитит незакоммиченные изменения
+            writer.close();
+        }
+        if (directory != null) {
+            directory.close();
+        }
+    }
+
+    private void applyEvent(NoteEvent event) throws IOException {
+        switch (event.getEventType()) {
+            case DELETED -> writer.deleteDocuments(idTerm(event.getNoteId()));
+            case BULK_IMPORTED -> reindexDates(event.getPreviousDate(), event.getDate());
+            default -> {
+                String content = hasFullState(event) ? event.getContent() : indexedContent(event);
+                if (content != null) {
+                    writer.updateDocument(idTerm(event.getNoteId()), toDocument(event.getNoteId(), event.getTitle(),
+                            content, event.getDate(), event.isCompleted()));
+                } else {
+                    // В событии нет текста заметки - берем актуальное состояние из БД
+                    Optional<Note> note = noteRepository.findById(event.getNoteId());
+                    if (note.isPresent()) {
+                        writer.updateDocument(idTerm(event.getNoteId()), toDocument(note.get()));
+                    } else {
+                        writer.deleteDocuments(idTerm(event.getNoteId()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Текущие версии заметок событий пачки в БД. Заметок, удаленных из БД, в ответе нет.
+     */
+    private Map<Long, Long> currentVersions(List<NoteEvent> events) {
+        Set<Long> noteIds = new HashSet<>();
+        for (NoteEvent event : events) {
+            if (event.getNoteId() != null && event.getVersion() != null) {
+                noteIds.add(event.getNoteId());
+            }
+        }
+        Map<Long, Long> versions = new HashMap<>();
+        if (!noteIds.isEmpty()) {
+            for (NoteVersionRow row : noteRepository.findVersionsByIdIn(noteIds)) {
+                versions.put(row.getId(), row.getVersion());
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Событие не последней версии заметки. DELETED применяется всегда.
+     */
+    private static boolean isStale(NoteEvent event, Map<Long, Long> current) {
+        if (event.getNoteId() == null || event.getVersion() == null
+                || event.getEventType() == NoteEvent.EventType.DELETED
+                || event.getEventType() == NoteEvent.EventType.BULK_IMPORTED) {
+            return false;
+        }
+        Long version = current.get(event.getNoteId());
+        return version == null || event.getVersion() < version;
+    }
+
+    /**
+     * Текст из индекса для события без текста (бинарный формат передает хэш).
+     * null, если документа нет или его текст не совпадает по хэшу - тогда заметка читается из БД.
+     * Поиск видит только закоммиченные изменения, поэтому после правки текста в той же пачке
+     * хэш не совпадет.
+     */
+    private String indexedContent(NoteEvent event) throws IOException {
+        if (event.getContentHash() == null || event.getTitle() == null) {
+            return null;
+        }
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs found = searcher.search(new TermQuery(idTerm(event.getNoteId())), 1);
+            if (found.scoreDocs.length == 0) {
+                return null;
+            }
+            String content = searcher.storedFields().document(found.scoreDocs[0].doc).get(CONTENT);
+            return NoteEventCodec.contentHash(content) == event.getContentHash() ? content : null;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Индексация заметок периода (после массового импорта)
+     */
+    private void reindexDates(LocalDate from, LocalDate to) throws IOException {
+        if (from == null || to == null) {
+            return;
+        }
+        Long afterId = 0L;
+        List<Note> page;
+        do {
+            page = noteRepository.findByDateBetweenAndIdGreaterThanOrderByIdAsc(from, to, afterId,
+                    PageRequest.of(0, rebuildBatchSize));
+            for (Note note : page) {
+                writer.updateDocument(idTerm(note.getId()), toDocument(note));
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == rebuildBatchSize);
+    }
+
+    private void commitAndRefresh() {
+        try {
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new IllegalStateException("Поиск по заметкам отключен");
+        }
+    }
+
+    private static Term idTerm(Long noteId) {
+        return new Term(ID, String.valueOf(noteId));
+    }
+
+    private Document toDocument(Note note) {
+        return toDocument(note.getId(), note.getTitle(), note.getContent(), note.getDate(), note.isCompleted());
+    }
+
+    private Document toDocument(Long id, String title, String content, LocalDate date, boolean completed) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        document.add(new StringField(GENERATION, generation, Field.Store.NO));
+        document.add(new TextField(TITLE, title != null ? title : "", Field.Store.YES));
+        document.add(new TextField(CONTENT, content != null ? content : "", Field.Store.YES));
+        if (date != null) {
+            document.add(new LongPoint(DATE, date.toEpochDay()));
+            document.add(new StoredField(DATE, date.toEpochDay()));
+        }
+        document.add(new StoredField(COMPLETED, completed ? 1 : 0));
+        return document;
+    }
+
+    private static NoteSearchHit toHit(Document document, float score) {
+        String content = document.get(CONTENT);
+        String snippet = content != null && content.length() > SNIPPET_LENGTH
+                ? content.substring(0, SNIPPET_LENGTH) + "..."
+                : content;
+        Number date = document.getField(DATE) != null ? document.getField(DATE).numericValue() : null;
+        Number completed = document.getField(COMPLETED).numericValue();
+        return new NoteSearchHit(Long.valueOf(document.get(ID)), document.get(TITLE),
+                date != null ? LocalDate.ofEpochDay(date.longValue()) : null,
+                completed.intValue() == 1, score, snippet);
+    }
+
+    private static boolean hasFullState(NoteEvent event) {
+        return event.getTitle() != null && event.getContent() != null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.dailynotes.search;
+
+import com.example.dailynotes.event.NoteEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Обновление поискового индекса узла событиями из Kafka.
+ *
+ * Индекс лежит на локальном диске каждого узла, поэтому слушатель читает топик в своей группе
+ * (spring.kafka.consumer.group-id + "-search-" + app.node-id) и получает события всех партиций,
+ * а не только назначенных узлу в общей группе NoteEventConsumer. Новая группа читает топик
+ * с начала (auto-offset-reset=earliest); устаревшие события NoteSearchIndex отбрасывает по версии.
+ */
+@Component
+public class NoteSearchIndexListener {
+
+    private final NoteSearchIndex noteSearchIndex;
+    private final Timer searchTimer;
+
+    public NoteSearchIndexListener(NoteSearchIndex noteSearchIndex, MeterRegistry meterRegistry) {
+        this.noteSearchIndex = noteSearchIndex;
+        this.searchTimer = Timer.builder("dailynotes.events.stage")
+                .description("Этапы обработки пачки событий заметок")
+                .tag("stage", "search")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ошибки по отдельным событиям NoteSearchIndex не пробрасывает, нечитаемые записи пропускаются:
+     * в dead-letter их отправляет основной consumer
+     */
+    @KafkaListener(
+            id = "noteSearchIndexListener",
+            topics = "${spring.kafka.topic.name:note-events}",
+            groupId = "${spring.kafka.consumer.group-id}-search-${app.node-id}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{${app.kafka.consumer.enabled:true} and ${app.search.enabled:true}}"
+    )
+    public void consume(List<ConsumerRecord<String, NoteEvent>> records, Acknowledgment acknowledgment) {
+        List<NoteEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            if (record.value() != null && record.value().getEventType() != null) {
+                events.add(record.value());
+            }
+        }
+        searchTimer.record(() -> noteSearchIndex.apply(events));
+        if (acknowledgment != null) {
+            acknowledgment.acknowledge();
+        }
+    }
+}
@@ -2,19 +2,29 @@ package com.example.dailynotes.service;
 
 import com.example.dailynotes.config.OpenAIConfig;
 import com.example.dailynotes.dto.AIResponse;
+import com.example.dailynotes.exception.AiCapacityExceededException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Сервис для работы с AI (OpenAI)
@@ -25,6 +35,15 @@ import java.util.Map;
  * 3. Анализ и резюме заметок
  * 4. Генерация заголовков на основе содержания
  * 5. Улучшение текста заметок
+ *
+ * Все методы неблокирующие и возвращают {@link Mono}: запрос к OpenAI не занимает
+ * поток сервлета, а число одновременных запросов ограничено {@link AiConcurrencyLimiter}.
+ * При переполнении пула Mono завершается {@link AiCapacityExceededException},
+ * остальные ошибки возвращаются как {@link AIResponse#error(String)}.
+ *
+ * Метрики обычных (не потоковых) запросов: dailynotes.openai.requests{result=success|error} -
+ * время ответа OpenAI без ожидания в очереди пула, dailynotes.openai.tokens{type=prompt|completion} -
+ * расход токенов по полю usage ответа.
  */
 @Service
 public class AIService {
@@ -34,6 +53,34 @@ public class AIService {
     private final WebClient webClient;
     private final OpenAIConfig openAIConfig;
     private final ObjectMapper objectMapper;
+    private final AiConcurrencyLimiter concurrencyLimiter;
+    private final AiResponseCache responseCache;
+    private final Timer requestSuccessTimer;
+    private final Timer requestErrorTimer;
+    private final Counter promptTokens;
+    private final Counter completionTokens;
+
+    private static final String AUTOCOMPLETE_TEMPLATE =
+            "Продолжи следующую заметку естественным образом, сохраняя стиль и тон: '%s'";
+    private static final String IMPROVE_TEMPLATE =
+            "Улучши следующий текст заметки: исправь грамматические ошибки, улучши стиль, " +
+            "сделай текст более читаемым, но сохрани оригинальный смысл и тон:\n\n%s";
+
+    /**
+     * Маркер конца потока в streaming API OpenAI
+     */
+    private static final String STREAM_DONE = "[DONE]";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private static final String SUMMARY_TEMPLATE =
+            "Проанализируй следующую заметку и создай краткое резюме (2-3 предложения):\n\n%s";
+    private static final String TITLE_TEMPLATE =
+            "На основе следующего текста заметки предложи краткий и информативный заголовок (максимум 10 слов):\n\n%s";
+    private static final String TASKS_TEMPLATE =
+            "На основе следующей заметки предложи 3-5 конкретных задач или действий. " +
+            "Каждая задача должна быть на отдельной строке и начинаться с глагола:\n\n%s";
 
     @Value("${openai.model:gpt-3.5-turbo}")
     private String model;
@@ -41,11 +88,26 @@ public class AIService {
     @Value("${openai.max-tokens:500}")
     private Integer defaultMaxTokens;
 
+    @Value("${openai.timeout-seconds:30}")
+    private long timeoutSeconds;
+
     @Autowired
-    public AIService(@Qualifier("openaiWebClient") WebClient openaiWebClient, OpenAIConfig openAIConfig) {
+    public AIService(@Qualifier("openaiWebClient") WebClient openaiWebClient, OpenAIConfig openAIConfig,
+                     AiConcurrencyLimiter concurrencyLimiter, AiResponseCache responseCache,
+                     MeterRegistry meterRegistry) {
         this.webClient = openaiWebClient;
         this.openAIConfig = openAIConfig;
         this.objectMapper = new ObjectMapper();
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.responseCache = responseCache;
+        this.requestSuccessTimer = requestTimer(meterRegistry, "success");
+        this.requestErrorTimer = requestTimer(meterRegistry, "error");
+        this.promptTokens = tokenCounter(meterRegistry, "prompt");
+        this.completionTokens = tokenCounter(meterRegistry, "completion");
+    }
+
+    public String getModel() {
+        return model;
     }
 
     /**
@@ -54,9 +116,9 @@ public class AIService {
      * @param topic тема для генерации идей
      * @return список идей в виде текста
      */
-    public AIResponse generateIdeas(String topic) {
+    public Mono<AIResponse> generateIdeas(String topic) {
         if (!openAIConfig.isApiKeyConfigured()) {
-            return AIResponse.error("OpenAI API ключ не настроен. Установите openai.api.key в application.properties");
+            return Mono.just(AIResponse.error("OpenAI API ключ не настроен. Установите openai.api.key в application.properties"));
         }
 
         String prompt = String.format(
@@ -75,17 +137,25 @@ public class AIService {
      * @param partialText начальный текст заметки
      * @return дополненный текст
      */
-    public AIResponse autocompleteText(String partialText) {
+    public Mono<AIResponse> autocompleteText(String partialText) {
         if (!openAIConfig.isApiKeyConfigured()) {
-            return AIResponse.error("OpenAI API ключ не настроен");
+            return Mono.just(AIResponse.error("OpenAI API ключ не настроен"));
         }
 
-        String prompt = String.format(
-            "Продолжи следующую заметку естественным образом, сохраняя стиль и тон: '%s'",
-            partialText
-        );
+        return callOpenAI(String.format(AUTOCOMPLETE_TEMPLATE, partialText), 300);
+    }
 
-        return callOpenAI(prompt, 300);
+    /**
+     * Потоковое автодополнение: фрагменты текста приходят по мере генерации
+     *
+     * @param partialText начальный текст заметки
+     * @return поток фрагментов продолжения
+     */
+    public Flux<String> streamAutocompleteText(String partialText) {
+        if (!openAIConfig.isApiKeyConfigured()) {
+            return Flux.error(new IllegalStateException("OpenAI API ключ не настроен"));
+        }
+        return streamOpenAI(String.format(AUTOCOMPLETE_TEMPLATE, partialText), 300);
     }
 
     /**
@@ -94,17 +164,39 @@ public class AIService {
      * @param noteContent содержание заметки
      * @return резюме заметки
      */
-    public AIResponse summarizeNote(String noteContent) {
+    public Mono<AIResponse> summarizeNote(String noteContent) {
+        return summarizeNote(null, noteContent);
+    }
+
+    /**
+     * Резюме заметки по ID: ответ кэшируется и сбрасывается при изменении заметки
+     *
+     * @param noteId ID заметки (null - без привязки к заметке)
+     * @param noteContent содержание заметки
+     * @return резюме заметки
+     */
+    public Mono<AIResponse> summarizeNote(Long noteId, String noteContent) {
         if (!openAIConfig.isApiKeyConfigured()) {
-            return AIResponse.error("OpenAI API ключ не настроен");
+            return Mono.just(AIResponse.error("OpenAI API ключ не настроен"));
         }
 
-        String prompt = String.format(
-            "Проанализируй следующую заметку и создай краткое резюме (2-3 предложения):\n\n%s",
-            noteContent
-        );
+        return callOpenAICached(noteId, AiResponseCache.OP_SUMMARY, SUMMARY_TEMPLATE, noteContent, 200);
+    }
 
-        return callOpenAI(prompt, 200);
+    /**
+     * Резюме нескольких заметок одним запросом (пакетные задания).
+     * Промпт уже собран {@link SummaryPromptPacker}; ответ не кэшируется,
+     * результаты сохраняет само задание.
+     *
+     * @param prompt промпт с несколькими заметками
+     * @param maxTokens максимальное количество токенов в ответе
+     * @return ответ модели с JSON-массивом резюме
+     */
+    public Mono<AIResponse> summarizeNotesBatch(String prompt, int maxTokens) {
+        if (!openAIConfig.isApiKeyConfigured()) {
+            return Mono.just(AIResponse.error("OpenAI API ключ не настроен"));
+        }
+        return callOpenAI(prompt, maxTokens);
     }
 
     /**
@@ -113,17 +205,23 @@ public class AIService {
      * @param noteContent содержание заметки
      * @return предложенный заголовок
      */
-    public AIResponse generateTitle(String noteContent) {
+    public Mono<AIResponse> generateTitle(String noteContent) {
+        return generateTitle(null, noteContent);
+    }
+
+    /**
+     * Генерация заголовка для заметки по ID: ответ кэшируется и сбрасывается при изменении заметки
+     *
+     * @param noteId ID заметки (null - без привязки к заметке)
+     * @param noteContent содержание заметки
+     * @return предложенный заголовок
+     */
+    public Mono<AIResponse> generateTitle(Long noteId, String noteContent) {
         if (!openAIConfig.isApiKeyConfigured()) {
-            return AIResponse.error("OpenAI API ключ не настроен");
+            return Mono.just(AIResponse.error("OpenAI API ключ не настроен"));
         }
 
-        String prompt = String.format(
-            "На основе следующего текста заметки предложи краткий и информативный заголовок (максимум 10 слов):\n\n%s",
-            noteContent
-        );
-
-        return callOpenAI(prompt, 50);
+        return callOpenAICached(noteId, AiResponseCache.OP_TITLE, TITLE_TEMPLATE, noteContent, 50);
     }
 
     /**
@@ -132,18 +230,25 @@ public class AIService {
      * @param noteContent исходный текст заметки
      * @return улучшенный текст
      */
-    public AIResponse improveText(String noteContent) {
+    public Mono<AIResponse> improveText(String noteContent) {
         if (!openAIConfig.isApiKeyConfigured()) {
-            return AIResponse.error("OpenAI API ключ не настроен");
+            return Mono.just(AIResponse.error("OpenAI API ключ не настроен"));
         }
 
-        String prompt = String.format(
-            "Улучши следующий текст заметки: исправь грамматические ошибки, улучши стиль, " +
-            "сделай текст более читаемым, но сохрани оригинальный смысл и тон:\n\n%s",
-            noteContent
-        );
+        return callOpenAI(String.format(IMPROVE_TEMPLATE, noteContent), defaultMaxTokens);
+    }
 
-        return callOpenAI(prompt, defaultMaxTokens);
+    /**
+     * Потоковое улучшение текста: фрагменты текста приходят по мере генерации
+     *
+     * @param noteContent исходный текст заметки
+     * @return поток фрагментов улучшенного текста
+     */
+    public Flux<String> streamImproveText(String noteContent) {
+        if (!openAIConfig.isApiKeyConfigured()) {
+            return Flux.error(new IllegalStateException("OpenAI API ключ не настроен"));
+        }
+        return streamOpenAI(String.format(IMPROVE_TEMPLATE, noteContent), defaultMaxTokens);
     }
 
     /**
@@ -152,18 +257,23 @@ public class AIService {
      * @param noteContent содержание заметки
      * @return список задач
      */
-    public AIResponse generateTasks(String noteContent) {
+    public Mono<AIResponse> generateTasks(String noteContent) {
         if (!openAIConfig.isApiKeyConfigured()) {
-            return AIResponse.error("OpenAI API ключ не настроен");
+            return Mono.just(AIResponse.error("OpenAI API ключ не настроен"));
         }
 
-        String prompt = String.format(
-            "На основе следующей заметки предложи 3-5 конкретных задач или действий. " +
-            "Каждая задача должна быть на отдельной строке и начинаться с глагола:\n\n%s",
-            noteContent
-        );
+        return callOpenAICached(null, AiResponseCache.OP_TASKS, TASKS_TEMPLATE, noteContent, 300);
+    }
 
-        return callOpenAI(prompt, 300);
+    /**
+     * Вызов OpenAI через кэш ответов. Ключ строится по модели, шаблону,
+     * нормализованному тексту и maxTokens, а не по готовому промпту.
+     */
+    private Mono<AIResponse> callOpenAICached(Long noteId, String operation, String template,
+                                              String input, int maxTokens) {
+        String key = AiResponseCache.key(model, template, input, maxTokens);
+        return responseCache.getOrCall(key, noteId, operation,
+                () -> callOpenAI(String.format(template, input), maxTokens));
     }
 
     /**
@@ -173,38 +283,107 @@ public class AIService {
      * @param maxTokens максимальное количество токенов в ответе
      * @return ответ от AI
      */
-    private AIResponse callOpenAI(String prompt, Integer maxTokens) {
-        try {
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-            requestBody.put("messages", new Object[]{
-                Map.of("role", "user", "content", prompt)
-            });
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("temperature", 0.7);
-
-            logger.debug("Отправка запроса к OpenAI: модель={}, maxTokens={}", model, maxTokens);
+    private Mono<AIResponse> callOpenAI(String prompt, Integer maxTokens) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("messages", new Object[]{
+            Map.of("role", "user", "content", prompt)
+        });
+        requestBody.put("max_tokens", maxTokens);
+        requestBody.put("temperature", 0.7);
+
+        // Таймаут относится только к самому запросу, время в очереди ограничивает пул
+        return concurrencyLimiter.execute(() -> {
+                    logger.debug("Отправка запроса к OpenAI: модель={}, maxTokens={}", model, maxTokens);
+                    long start = System.nanoTime();
+                    return webClient.post()
+                            .uri("/chat/completions")
+                            .bodyValue(requestBody)
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .timeout(Duration.ofSeconds(timeoutSeconds))
+                            .doOnSuccess(body -> requestSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                            .doOnError(e -> requestErrorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+                })
+                .map(this::parseResponse)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.error("Получен пустой ответ от OpenAI");
+                    return AIResponse.error("Пустой ответ от AI сервиса");
+                }))
+                .onErrorResume(e -> !(e instanceof AiCapacityExceededException), e -> {
+                    logger.error("Ошибка при вызове OpenAI API", e);
+                    return Mono.just(AIResponse.error("Ошибка при обращении к AI: " + e.getMessage()));
+                });
+    }
 
-            String response = webClient.post()
+    /**
+     * Потоковый вызов OpenAI API (stream: true).
+     *
+     * Ответ - server-sent events, каждое событие содержит JSON-фрагмент с
+     * choices[0].delta.content; поток завершается событием [DONE].
+     * Фрагменты разбираются по одному, без накопления всего ответа.
+     * Отмена подписки (клиент закрыл соединение) закрывает запрос к OpenAI
+     * и возвращает разрешение в пул. Таймаут считается между фрагментами.
+     *
+     * @param prompt промпт для AI
+     * @param maxTokens максимальное количество токенов в ответе
+     * @return поток фрагментов текста
+     */
+    private Flux<String> streamOpenAI(String prompt, Integer maxTokens) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        requestBody.put("messages", new Object[]{
+            Map.of("role", "user", "content", prompt)
+        });
+        requestBody.put("max_tokens", maxTokens);
+        requestBody.put("temperature", 0.7);
+        requestBody.put("stream", true);
+
+        return concurrencyLimiter.executeMany(() -> {
+            logger.debug("Отправка потокового запроса к OpenAI: модель={}, maxTokens={}", model, maxTokens);
+            return webClient.post()
                     .uri("/chat/completions")
+                    .accept(MediaType.TEXT_EVENT_STREAM)
                     .bodyValue(requestBody)
                     .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
+                    .bodyToFlux(SSE_TYPE)
+                    .timeout(Duration.ofSeconds(timeoutSeconds))
+                    .map(event -> event.data() == null ? "" : event.data().trim())
+                    .takeWhile(data -> !STREAM_DONE.equals(data))
+                    .map(this::parseDelta)
+                    .filter(delta -> !delta.isEmpty());
+        });
+    }
 
-            if (response == null) {
-                logger.error("Получен пустой ответ от OpenAI");
-                return AIResponse.error("Пустой ответ от AI сервиса");
-            }
+    private String parseDelta(String chunk) {
+        if (chunk.isEmpty()) {
+            return "";
+        }
+        try {
+            return objectMapper.readTree(chunk)
+                    .path("choices")
+                    .path(0)
+                    .path("delta")
+                    .path("content")
+                    .asText("");
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось разобрать фрагмент ответа OpenAI", e);
+        }
+    }
 
-            logger.debug("Получен ответ от OpenAI: {}", response);
+    private AIResponse parseResponse(String response) {
+        logger.debug("Получен ответ от OpenAI: {}", response);
 
+        try {
             // Парсинг JSON ответа
             JsonNode jsonNode = objectMapper.readTree(response);
+            JsonNode usage = jsonNode.path("usage");
+            promptTokens.increment(usage.path("prompt_tokens").asLong(0));
+            completionTokens.increment(usage.path("completion_tokens").asLong(0));
+
             String content = jsonNode
                     .path("choices")
-                    .get(0)
+                    .path(0)
                     .path("message")
                     .path("content")
                     .asText();
@@ -216,11 +395,23 @@ public class AIService {
 
             logger.info("Успешно получен ответ от OpenAI, длина: {}", content.length());
             return new AIResponse(content.trim());
-
         } catch (Exception e) {
-            logger.error("Ошибка при вызове OpenAI API", e);
+            logger.error("Не удалось разобрать ответ OpenAI", e);
             return AIResponse.error("Ошибка при обращении к AI: " + e.getMessage());
         }
     }
-}
 
+    private static Timer requestTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("dailynotes.openai.requests")
+                .description("Время ответа OpenAI /chat/completions")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter tokenCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("dailynotes.openai.tokens")
+                .description("Токены OpenAI по полю usage ответа")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
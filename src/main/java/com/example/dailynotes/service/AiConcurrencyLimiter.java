@@ -0,0 +1,142 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.AiCapacityStatus;
+import com.example.dailynotes.exception.AiCapacityExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ограничение числа одновременных запросов к AI.
+ *
+ * Не больше maxInFlight запросов выполняются одновременно, еще maxQueued ждут
+ * в очереди (FIFO) не дольше queueTimeout. Если очередь полна или ожидание
+ * истекло, запрос отклоняется {@link AiCapacityExceededException}.
+ * Ожидание неблокирующее: ни поток сервлета, ни поток Netty не занимаются.
+ */
+@Component
+public class AiConcurrencyLimiter {
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private int inFlight;
+
+    private final AtomicLong completedTotal = new AtomicLong();
+    private final AtomicLong rejectedTotal = new AtomicLong();
+
+    public AiConcurrencyLimiter(@Value("${app.ai.max-in-flight:8}") int maxInFlight,
+                                @Value("${app.ai.max-queued:32}") int maxQueued,
+                                @Value("${app.ai.queue-timeout-ms:2000}") long queueTimeoutMillis) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.queueTimeout = Duration.ofMillis(queueTimeoutMillis);
+    }
+
+    /**
+     * Выполнение запроса под разрешением пула. Разрешение возвращается при любом
+     * завершении запроса: успехе, ошибке или отмене подписки.
+     */
+    public <T> Mono<T> execute(Supplier<? extends Mono<T>> call) {
+        return acquire().flatMap(permit -> Mono.defer(call)
+                .doFinally(signal -> permit.release()));
+    }
+
+    /**
+     * Потоковый запрос: разрешение занято, пока поток не завершится или не будет отменен.
+     */
+    public <T> Flux<T> executeMany(Supplier<? extends Flux<T>> call) {
+        return acquire().flatMapMany(permit -> Flux.defer(call)
+                .doFinally(signal -> permit.release()));
+    }
+
+    public AiCapacityStatus getStatus() {
+        synchronized (waiters) {
+            return new AiCapacityStatus(maxInFlight, maxQueued, inFlight, waiters.size(),
+                    completedTotal.get(), rejectedTotal.get());
+        }
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            synchronized (waiters) {
+                if (inFlight < maxInFlight) {
+                    inFlight++;
+                    waiter.permit = new Permit();
+                } else if (waiters.size() < maxQueued) {
+                    waiters.addLast(waiter);
+                } else {
+                    rejectedTotal.incrementAndGet();
+                    sink.error(new AiCapacityExceededException("AI сервис перегружен, повторите запрос позже"));
+                    return;
+                }
+            }
+            if (waiter.permit != null) {
+                sink.success(waiter.permit);
+            } else {
+                sink.onCancel(() -> cancel(waiter));
+            }
+        }).timeout(queueTimeout, Mono.defer(() -> {
+            rejectedTotal.incrementAndGet();
+            return Mono.error(new AiCapacityExceededException("Истекло ожидание в очереди к AI сервису"));
+        }));
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit granted;
+        synchronized (waiters) {
+            if (waiters.remove(waiter)) {
+                return;
+            }
+            granted = waiter.permit;
+        }
+        // Разрешение успели выдать одновременно с отменой - возвращаем его
+        if (granted != null) {
+            granted.release();
+        }
+    }
+
+    private void handOver() {
+        Waiter next;
+        synchronized (waiters) {
+            next = waiters.pollFirst();
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+            next.permit = new Permit();
+        }
+        next.sink.success(next.permit);
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private Permit permit;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                completedTotal.incrementAndGet();
+                handOver();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.cache.AiCachedResponse;
+import com.example.dailynotes.dto.AIResponse;
+import com.example.dailynotes.dto.AiCacheStatus;
+import com.example.dailynotes.event.NoteEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш ответов AI с адресацией по содержимому.
+ *
+ * Ключ - SHA-256 от модели, шаблона промпта, нормализованного текста и maxTokens,
+ * поэтому одинаковый запрос для неизменной заметки не идет в OpenAI повторно,
+ * а любое изменение текста или шаблона дает новый ключ.
+ *
+ * Значения лежат в двухуровневом кэше {@value #CACHE_NAME} (L1 + Redis) со своими
+ * TTL и ограничением размера. Для endpoints по ID заметки дополнительно хранится
+ * ссылка "note:{id}:{операция}" на ключ ответа: по событиям UPDATED/DELETED
+ * ответ для старого текста удаляется, не дожидаясь TTL.
+ *
+ * Ошибки Redis не ломают запрос: кэш просто пропускается.
+ */
+@Component
+public class AiResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiResponseCache.class);
+
+    public static final String CACHE_NAME = "aiResponses";
+
+    public static final String OP_SUMMARY = "summary";
+    public static final String OP_TITLE = "title";
+    public static final String OP_TASKS = "tasks";
+
+    /**
+     * Операции, у которых есть endpoints по ID заметки
+     */
+    private static final List<String> NOTE_OPERATIONS = List.of(OP_SUMMARY, OP_TITLE);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final CacheManager cacheManager;
+
+    @Value("${app.ai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai.cache.max-response-chars:8000}")
+    private int maxResponseChars;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong latencySavedMillis = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public AiResponseCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Ключ ответа: модель + шаблон + нормализованный текст + maxTokens
+     */
+    public static String key(String model, String template, String input, int maxTokens) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{model, template, normalize(input), String.valueOf(maxTokens)}) {
+                byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+                // Длина перед каждой частью, чтобы границы между частями не смешивались
+                digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+            return "ai:" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Нормализация текста: Unicode NFC, пробелы схлопываются, края обрезаются.
+     * Регистр не меняется - для модели это разный текст.
+     */
+    static String normalize(String input) {
+        if (input == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(input, Normalizer.Form.NFC);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    /**
+     * Ответ из кэша или вызов AI с сохранением успешного ответа.
+     *
+     * @param key ключ из {@link #key(String, String, String, int)}
+     * @param noteId ID заметки для endpoints по ID (может быть null)
+     * @param operation операция, под которой запоминается ссылка на ответ для заметки
+     * @param call запрос к AI при промахе
+     */
+    public Mono<AIResponse> getOrCall(String key, Long noteId, String operation, Supplier<Mono<AIResponse>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        // Обращения к Redis блокирующие, поэтому выполняются вне потоков сервлета и Netty
+        return Mono.fromCallable(() -> Optional.ofNullable(lookup(key)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> {
+                    if (cached.isPresent()) {
+                        hits.incrementAndGet();
+                        latencySavedMillis.addAndGet(cached.get().getLatencyMillis());
+                        return Mono.just(new AIResponse(cached.get().getContent()));
+                    }
+                    misses.incrementAndGet();
+                    long started = System.nanoTime();
+                    return Mono.defer(call).flatMap(response -> {
+                        if (!response.isSuccess() || response.getContent() == null
+                                || response.getContent().length() > maxResponseChars) {
+                            return Mono.just(response);
+                        }
+                        long latency = (System.nanoTime() - started) / 1_000_000;
+                        return Mono.fromRunnable(() -> store(key, noteId, operation,
+                                        new AiCachedResponse(response.getContent(), latency)))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .thenReturn(response);
+                    });
+                });
+    }
+
+    /**
+     * Удаление ответов для заметок из событий UPDATED/DELETED
+     */
+    public void evictForNotes(List<NoteEvent> events) {
+        Cache cache = cache();
+        if (!enabled || cache == null) {
+            return;
+        }
+        for (NoteEvent event : events) {
+            if (event.getNoteId() == null) {
+                continue;
+            }
+            for (String operation : NOTE_OPERATIONS) {
+                String noteKey = noteKey(event.getNoteId(), operation);
+                try {
+                    Cache.ValueWrapper pointer = cache.get(noteKey);
+                    if (pointer != null && pointer.get() instanceof String responseKey) {
+                        cache.evict(responseKey);
+                        cache.evict(noteKey);
+                        invalidations.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    logger.warn("Не удалось сбросить кэш AI для заметки {}: {}", event.getNoteId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    public AiCacheStatus getStatus() {
+        return new AiCacheStatus(enabled, hits.get(), misses.get(), latencySavedMillis.get(),
+                invalidations.get(), errors.get());
+    }
+
+    private AiCachedResponse lookup(String key) {
+        Cache cache = cache();
+        if (cache == null) {
+            return null;
+        }
+        try {
+            return cache.get(key, AiCachedResponse.class);
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            logger.warn("Кэш AI недоступен при чтении: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String key, Long noteId, String operation, AiCachedResponse value) {
+        Cache cache = cache();
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.put(key, value);
+            if (noteId != null) {
+                cache.put(noteKey(noteId, operation), key);
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            logger.warn("Кэш AI недоступен при записи: {}", e.getMessage());
+        }
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    private static String noteKey(Long noteId, String operation) {
+        return "note:" + noteId + ":" + operation;
+    }
+}
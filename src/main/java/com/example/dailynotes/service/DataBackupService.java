@@ -0,0 +1,423 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.BackupImportResult;
+import com.example.dailynotes.entity.Task;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.repository.TaskRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Резервная копия заметок и планов в формате NDJSON (одна JSON-запись на строку).
+ *
+ * Порядок записей: header, task, monthlyPlan, monthlyTask, weeklyPlan, weeklyTask, note.
+ * Ссылки (taskId, planId) указывают на id из этого же файла.
+ *
+ * Экспорт читает таблицы потоком скалярных проекций (без сущностей в контексте
+ * персистентности) с fetch size, поэтому память не зависит от объема данных.
+ *
+ * Импорт добавляет данные к существующим: задачи сопоставляются по названию и категории,
+ * планы и заметки получают новые id. Заметки и задачи планов вставляются JDBC-пачками,
+ * каждая пачка коммитится отдельно; вместо события на каждую заметку в outbox
+ * пишется одно событие BULK_IMPORTED.
+ */
+@Service
+public class DataBackupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataBackupService.class);
+
+    public static final String FORMAT = "dailynotes-backup";
+    public static final int FORMAT_VERSION = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskRepository taskRepository;
+    private final OutboxService outboxService;
+    private final NoteCacheService noteCacheService;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.backup.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.backup.import.batch-size:1000}")
+    private int batchSize;
+
+    public DataBackupService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             TaskRepository taskRepository,
+                             OutboxService outboxService,
+                             NoteCacheService noteCacheService,
+                             ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskRepository = taskRepository;
+        this.outboxService = outboxService;
+        this.noteCacheService = noteCacheService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Запись всех данных в out. Поток не закрывается.
+     */
+    @Transactional(readOnly = true)
+    public void exportTo(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+
+        generator.writeStartObject();
+        generator.writeStringField("type", "header");
+        generator.writeStringField("format", FORMAT);
+        generator.writeNumberField("version", FORMAT_VERSION);
+        generator.writeStringField("exportedAt", LocalDateTime.now().toString());
+        generator.writeEndObject();
+        newLine(generator);
+
+        long rows = 0;
+        rows += export(generator, "select t.id, t.title, t.category from Task t order by t.id", row -> {
+            writeStart(generator, "task", row[0]);
+            writeString(generator, "title", row[1]);
+            writeString(generator, "category", row[2]);
+        });
+        rows += export(generator, "select p.id, p.planYear, p.planMonth from MonthlyPlan p order by p.id", row -> {
+            writeStart(generator, "monthlyPlan", row[0]);
+            writeNumber(generator, "planYear", row[1]);
+            writeNumber(generator, "planMonth", row[2]);
+        });
+        rows += export(generator, "select mt.id, mt.monthlyPlan.id, mt.task.id, mt.statusMask " +
+                "from MonthlyTask mt order by mt.id", row -> {
+            writeStart(generator, "monthlyTask", row[0]);
+            writeNumber(generator, "planId", row[1]);
+            writeNumber(generator, "taskId", row[2]);
+            writeNumber(generator, "statusMask", row[3]);
+        });
+        rows += export(generator, "select p.id, p.weekYear, p.weekNumber from WeeklyPlan p order by p.id", row -> {
+            writeStart(generator, "weeklyPlan", row[0]);
+            writeNumber(generator, "weekYear", row[1]);
+            writeNumber(generator, "weekNumber", row[2]);
+        });
+        rows += export(generator, "select wt.id, wt.weeklyPlan.id, wt.task.id, wt.statusMask " +
+                "from WeeklyTask wt order by wt.id", row -> {
+            writeStart(generator, "weeklyTask", row[0]);
+            writeNumber(generator, "planId", row[1]);
+            writeNumber(generator, "taskId", row[2]);
+            writeNumber(generator, "statusMask", row[3]);
+        });
+        rows += export(generator, "select n.id, n.title, n.content, n.date, n.weight, n.completed " +
+                "from Note n order by n.id", row -> {
+            writeStart(generator, "note", row[0]);
+            writeString(generator, "title", row[1]);
+            writeString(generator, "content", row[2]);
+            writeString(generator, "date", row[3] != null ? row[3].toString() : null);
+            writeNumber(generator, "weight", row[4]);
+            writeBoolean(generator, "completed", row[5]);
+        });
+        generator.flush();
+        logger.info("Экспорт завершен: записей={}", rows);
+    }
+
+    /**
+     * Загрузка NDJSON из in. Каждая пачка коммитится отдельно: при ошибке в середине файла
+     * уже загруженные пачки остаются, а сообщение об ошибке содержит номер строки.
+     * Событие BULK_IMPORTED публикуется и при ошибке - для закоммиченных заметок,
+     * иначе кэш, поисковый индекс и статистика их бы не увидели.
+     */
+    public BackupImportResult importFrom(InputStream in) throws IOException {
+        ImportState state = new ImportState();
+        try {
+            readRecords(state, in);
+            state.flush();
+        } catch (IOException | RuntimeException e) {
+            try {
+                publishImported(state);
+            } catch (RuntimeException publishError) {
+                e.addSuppressed(publishError);
+            }
+            logger.warn("Импорт прерван, загружено до ошибки: {}", state.result);
+            throw e;
+        }
+        publishImported(state);
+        logger.info("Импорт завершен: {}", state.result);
+        return state.result;
+    }
+
+    private void readRecords(ImportState state, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode record;
+            try {
+                record = objectMapper.readTree(line);
+            } catch (IOException e) {
+                throw new ValidationException("Некорректный JSON в строке " + lineNumber);
+            }
+            try {
+                importRecord(state, record);
+            } catch (ValidationException e) {
+                throw new ValidationException("Строка " + lineNumber + ": " + e.getMessage());
+            } catch (DateTimeException e) {
+                throw new ValidationException("Строка " + lineNumber + ": некорректная дата");
+            }
+        }
+    }
+
+    private long export(JsonGenerator generator, String jpql, RowWriter writer) throws IOException {
+        long count = 0;
+        try (Stream<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                writer.write(row);
+                generator.writeEndObject();
+                newLine(generator);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void importRecord(ImportState state, JsonNode record) {
+        String type = record.path("type").asText();
+        switch (type) {
+            case "header" -> {
+                if (!FORMAT.equals(record.path("format").asText())
+                        || record.path("version").asInt() > FORMAT_VERSION) {
+                    throw new ValidationException("Неподдерживаемый формат резервной копии");
+                }
+            }
+            case "task" -> state.taskIds.put(record.path("id").asLong(),
+                    findOrCreateTask(text(record, "title"), text(record, "category")));
+            case "monthlyPlan" -> {
+                state.monthlyPlanIds.put(record.path("id").asLong(),
+                        insertPlan("insert into monthly_plan (plan_year, plan_month) values (?, ?)",
+                                record.path("planYear").asInt(), record.path("planMonth").asInt()));
+                state.result.setMonthlyPlans(state.result.getMonthlyPlans() + 1);
+            }
+            case "weeklyPlan" -> {
+                state.weeklyPlanIds.put(record.path("id").asLong(),
+                        insertPlan("insert into weekly_plan (week_year, week_number) values (?, ?)",
+                                record.path("weekYear").asInt(), record.path("weekNumber").asInt()));
+                state.result.setWeeklyPlans(state.result.getWeeklyPlans() + 1);
+            }
+            case "monthlyTask" -> state.add(state.monthlyTasks, new Object[]{
+                    reference(state.taskIds, record, "taskId"),
+                    reference(state.monthlyPlanIds, record, "planId"),
+                    record.path("statusMask").asInt()});
+            case "weeklyTask" -> state.add(state.weeklyTasks, new Object[]{
+                    reference(state.taskIds, record, "taskId"),
+                    reference(state.weeklyPlanIds, record, "planId"),
+                    record.path("statusMask").asInt()});
+            case "note" -> {
+                LocalDate date = record.hasNonNull("date") ? LocalDate.parse(record.get("date").asText()) : null;
+                state.trackDate(date);
+                state.add(state.notes, new Object[]{text(record, "title"), text(record, "content"),
+                        date != null ? Date.valueOf(date) : null,
+                        record.path("weight").asDouble(), record.path("completed").asBoolean()});
+            }
+            default -> state.result.setSkipped(state.result.getSkipped() + 1);
+        }
+    }
+
+    private Long findOrCreateTask(String title, String category) {
+        return taskRepository.findByTitleIgnoreCaseAndCategoryIgnoreCase(title, category)
+                .map(Task::getId)
+                .orElseGet(() -> {
+                    Task task = new Task();
+                    task.setTitle(title);
+                    task.setCategory(category);
+                    return taskRepository.save(task).getId();
+                });
+    }
+
+    private Long insertPlan(String sql, int first, int second) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, first);
+            statement.setInt(2, second);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKeyAs(Long.class);
+    }
+
+    private void publishImported(ImportState state) {
+        if (state.result.getNotes() == 0) {
+            return;
+        }
+        NoteEvent event = new NoteEvent();
+        event.setEventType(NoteEvent.EventType.BULK_IMPORTED);
+        event.setImportedCount(state.result.getNotes());
+        event.setPreviousDate(state.minDate);
+        event.setDate(state.maxDate);
+        outboxService.append(event);
+        if (!noteCacheService.isEventDriven()) {
+            // Данные уже закоммичены: ошибка кэша не должна превращать успешный импорт в ошибку
+            try {
+                noteCacheService.clearCache(NoteCacheService.NOTES_BY_DATE_CACHE);
+                noteCacheService.clearCache(NoteCacheService.NOTE_DATE_VERSIONS_CACHE);
+            } catch (Exception e) {
+                logger.warn("Не удалось очистить кэш {} после импорта", NoteCacheService.NOTES_BY_DATE_CACHE, e);
+            }
+        }
+    }
+
+    private static Long reference(Map<Long, Long> ids, JsonNode record, String field) {
+        Long id = ids.get(record.path(field).asLong());
+        if (id == null) {
+            throw new ValidationException("Ссылка " + field + "=" + record.path(field).asText()
+                    + " не найдена среди предыдущих записей");
+        }
+        return id;
+    }
+
+    private static String text(JsonNode record, String field) {
+        return record.hasNonNull(field) ? record.get(field).asText() : null;
+    }
+
+    private static void newLine(JsonGenerator generator) throws IOException {
+        generator.writeRaw('\n');
+    }
+
+    private static void writeStart(JsonGenerator generator, String type, Object id) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+        writeNumber(generator, "id", id);
+    }
+
+    private static void writeString(JsonGenerator generator, String field, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeStringField(field, value.toString());
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else if (value instanceof Double d) {
+            generator.writeNumberField(field, d);
+        } else {
+            generator.writeNumberField(field, ((Number) value).longValue());
+        }
+    }
+
+    private static void writeBoolean(JsonGenerator generator, String field, Object value) throws IOException {
+        generator.writeBooleanField(field, Boolean.TRUE.equals(value));
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Object[] row) throws IOException;
+    }
+
+    /**
+     * Состояние одного импорта: соответствие id из файла новым id и накопленные пачки вставок
+     */
+    private class ImportState {
+        final BackupImportResult result = new BackupImportResult();
+        final Map<Long, Long> taskIds = new HashMap<>();
+        final Map<Long, Long> monthlyPlanIds = new HashMap<>();
+        final Map<Long, Long> weeklyPlanIds = new HashMap<>();
+        final List<Object[]> monthlyTasks = new ArrayList<>();
+        final List<Object[]> weeklyTasks = new ArrayList<>();
+        final List<Object[]> notes = new ArrayList<>();
+        // Период закоммиченных заметок и период заметок текущей пачки
+        LocalDate minDate;
+        LocalDate maxDate;
+        LocalDate pendingMinDate;
+        LocalDate pendingMaxDate;
+
+        void add(List<Object[]> batch, Object[] row) {
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void trackDate(LocalDate date) {
+            if (date == null) {
+                return;
+            }
+            if (pendingMinDate == null || date.isBefore(pendingMinDate)) {
+                pendingMinDate = date;
+            }
+            if (pendingMaxDate == null || date.isAfter(pendingMaxDate)) {
+                pendingMaxDate = date;
+            }
+        }
+
+        void flush() {
+            boolean hasNotes = !notes.isEmpty();
+            transactionTemplate.executeWithoutResult(status -> {
+                // id задач планов берутся из тех же последовательностей, что использует Hibernate:
+                // каждое значение - начало блока из allocationSize id, поэтому с его диапазонами не пересекается
+                insert("insert into monthly_task (id, task_id, monthly_plan_id, status_mask) " +
+                        "values (next value for monthly_task_seq, ?, ?, ?)", monthlyTasks,
+                        count -> result.setMonthlyTasks(result.getMonthlyTasks() + count));
+                insert("insert into weekly_task (id, task_id, weekly_plan_id, status_mask) " +
+                        "values (next value for weekly_task_seq, ?, ?, ?)", weeklyTasks,
+                        count -> result.setWeeklyTasks(result.getWeeklyTasks() + count));
+                insert("insert into notes (title, content, date, weight, completed) values (?, ?, ?, ?, ?)",
+                        notes, count -> result.setNotes(result.getNotes() + count));
+            });
+            if (hasNotes && pendingMinDate != null) {
+                minDate = minDate == null || pendingMinDate.isBefore(minDate) ? pendingMinDate : minDate;
+                maxDate = maxDate == null || pendingMaxDate.isAfter(maxDate) ? pendingMaxDate : maxDate;
+                pendingMinDate = null;
+                pendingMaxDate = null;
+            }
+        }
+
+        private void insert(String sql, List<Object[]> batch, Consumer<Integer> counter) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(sql, batch);
+            counter.accept(batch.size());
+            batch.clear();
+        }
+    }
+}
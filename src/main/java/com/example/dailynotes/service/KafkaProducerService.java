@@ -1,6 +1,8 @@
 package com.example.dailynotes.service;
 
 import com.example.dailynotes.event.NoteEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,7 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Сервис для отправки событий в Kafka
@@ -17,6 +20,8 @@ import java.util.concurrent.CompletableFuture;
  * Этот сервис отвечает за публикацию событий в Kafka топик.
  * Используется для асинхронной обработки событий, связанных с заметками.
  *
+ * Метрика dailynotes.kafka.send{topic, result=success|failure} - время от отправки
+ * до подтверждения брокером, число отправок и ошибок.
  */
 @Service
 public class KafkaProducerService {
@@ -27,48 +32,35 @@ public class KafkaProducerService {
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
     // Название топика Kafka, куда отправляются события
-    @Value("${spring.kafka.topic.name:note-events}")
-    private String topicName;
+    private final String topicName;
+
+    private final Timer sendSuccessTimer;
+    private final Timer sendFailureTimer;
 
     @Autowired
-    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${spring.kafka.topic.name:note-events}") String topicName) {
         this.kafkaTemplate = kafkaTemplate;
+        this.topicName = topicName;
+        this.sendSuccessTimer = sendTimer(meterRegistry, "success");
+        this.sendFailureTimer = sendTimer(meterRegistry, "failure");
     }
 
     /**
-     * Отправка события о создании заметки
-     * 
-     * @param event событие с информацией о заметке
-     */
-    public void sendNoteCreatedEvent(NoteEvent event) {
-        sendEvent("CREATED", event);
-    }
-
-    /**
-     * Отправка события об обновлении заметки
-     * 
-     * @param event событие с информацией о заметке
-     */
-    public void sendNoteUpdatedEvent(NoteEvent event) {
-        sendEvent("UPDATED", event);
-    }
-
-    /**
-     * Отправка события об удалении заметки
-     * 
-     * @param event событие с информацией о заметке
-     */
-    public void sendNoteDeletedEvent(NoteEvent event) {
-        sendEvent("DELETED", event);
-    }
-
-    /**
-     * Отправка события об изменении статуса заметки
-     * 
-     * @param event событие с информацией о заметке
+     * Отправка события в Kafka без ожидания подтверждения
+     *
+     * Вызывается из OutboxRelay: отправляет всю пачку подряд, а затем ждет результаты.
+     * Ключ сообщения - ID заметки: события одной заметки попадают в одну партицию
+     * и читаются по порядку, а разные заметки распределяются по всем партициям.
+     * У BULK_IMPORTED заметки нет, ключом остается тип события.
+     *
+     * @param event событие для отправки
+     * @return future с результатом отправки
      */
-    public void sendNoteToggledEvent(NoteEvent event) {
-        sendEvent("TOGGLED", event);
+    public CompletableFuture<SendResult<String, Object>> publish(NoteEvent event) {
+        String key = event.getNoteId() != null ? String.valueOf(event.getNoteId()) : event.getEventType().name();
+        return sendEvent(key, event);
     }
 
     /**
@@ -77,36 +69,38 @@ public class KafkaProducerService {
      * @param key ключ сообщения (используется для партиционирования)
      * @param event событие для отправки
      */
-    private void sendEvent(String key, NoteEvent event) {
+    private CompletableFuture<SendResult<String, Object>> sendEvent(String key, NoteEvent event) {
+        logger.debug("Отправка события в Kafka: тип={}, noteId={}, топик={}",
+                event.getEventType(), event.getNoteId(), topicName);
+
+        // Отправка сообщения асинхронно
+        // CompletableFuture позволяет обработать результат отправки
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> future;
         try {
-            logger.info("Отправка события в Kafka: тип={}, noteId={}, топик={}", 
-                    event.getEventType(), event.getNoteId(), topicName);
-
-            // Отправка сообщения асинхронно
-            // CompletableFuture позволяет обработать результат отправки
-            CompletableFuture<SendResult<String, Object>> future = 
-                    kafkaTemplate.send(topicName, key, event);
+            future = kafkaTemplate.send(topicName, key, event);
+        } catch (RuntimeException e) {
+            sendFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
 
-            // Обработка успешной отправки
-            future.whenComplete((result, exception) -> {
-                if (exception == null) {
-                    logger.info("Событие успешно отправлено в Kafka: offset={}, partition={}", 
-                            result.getRecordMetadata().offset(),
-                            result.getRecordMetadata().partition());
-                } else {
-                    logger.error("Ошибка при отправке события в Kafka: {}", exception.getMessage(), exception);
-                }
-            });
+        future.whenComplete((result, exception) -> {
+            long elapsed = System.nanoTime() - start;
+            if (exception != null) {
+                sendFailureTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                logger.error("Ошибка при отправке события в Kafka: {}", exception.getMessage(), exception);
+            } else {
+                sendSuccessTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        });
+        return future;
+    }
 
-        } catch (Exception e) {
-            logger.error("Критическая ошибка при отправке события в Kafka", e);
-            // В реальном приложении здесь можно добавить fallback механизм
-            // Например, сохранить событие в базу данных для последующей отправки
-        }
+    private Timer sendTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("dailynotes.kafka.send")
+                .description("Время отправки события в Kafka до подтверждения брокером")
+                .tag("topic", topicName)
+                .tag("result", result)
+                .register(meterRegistry);
     }
 }
-
-
-
-
-
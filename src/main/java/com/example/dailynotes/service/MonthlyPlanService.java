@@ -1,5 +1,7 @@
 package com.example.dailynotes.service;
 
+import com.example.dailynotes.dto.MonthlyPlanGrid;
+import com.example.dailynotes.dto.MonthlyPlanGridRow;
 import com.example.dailynotes.entity.MonthlyPlan;
 import com.example.dailynotes.entity.MonthlyTask;
 import com.example.dailynotes.entity.Task;
@@ -13,7 +15,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -50,22 +54,33 @@ public class MonthlyPlanService {
         plan.setPlanYear(planYear);
         plan.setPlanMonth(planMonth);
         monthlyPlanRepository.save(plan);
-        
-        // Добавляем задачи
+
+        // Все задачи одним запросом, вставки задач плана уходят пачками при flush
+        Map<Long, Task> tasksById = findTasks(taskIds);
+        List<MonthlyTask> monthlyTasks = new ArrayList<>(taskIds.size());
         for(Long id : taskIds){
-            Task task = taskRepository.findById(id)
-                    .orElseThrow(() -> new EntityNotFoundException("Задача", id));
             MonthlyTask monthlyTask = new MonthlyTask();
-            monthlyTask.setTask(task);
+            monthlyTask.setTask(tasksById.get(id));
             monthlyTask.setMonthlyPlan(plan);
-            monthlyTask.setStatusPerDay(new HashMap<>());
-            monthlyTaskRepository.save(monthlyTask);
+            monthlyTasks.add(monthlyTask);
+        }
+        monthlyTaskRepository.saveAll(monthlyTasks);
+        plan.setTasks(monthlyTasks);
+        logger.info("Месячный план создан с ID: {}", plan.getId());
+        return plan;
+    }
+
+    private Map<Long, Task> findTasks(List<Long> taskIds){
+        Map<Long, Task> tasksById = new HashMap<>();
+        for (Task task : taskRepository.findAllById(taskIds)) {
+            tasksById.put(task.getId(), task);
         }
-        // Подгружаем обновлённый список задач
-        plan.setTasks(monthlyTaskRepository.findByMonthlyPlanId(plan.getId()));
-        MonthlyPlan saved = monthlyPlanRepository.save(plan);
-        logger.info("Месячный план создан с ID: {}", saved.getId());
-        return saved;
+        for (Long id : taskIds) {
+            if (!tasksById.containsKey(id)) {
+                throw new EntityNotFoundException("Задача", id);
+            }
+        }
+        return tasksById;
     }
 
     // Получить план на месяц
@@ -74,13 +89,27 @@ public class MonthlyPlanService {
         return monthlyPlanRepository.findByPlanYearAndPlanMonth(planYear, planMonth);
     }
 
+    // Сетка планов месяца для страницы: один запрос вместо обхода ленивых связей в шаблоне
+    @Transactional(readOnly = true)
+    public List<MonthlyPlanGrid> getMonthlyPlanGrid(int planYear, int planMonth){
+        Map<Long, MonthlyPlanGrid> plans = new LinkedHashMap<>();
+        for (MonthlyPlanGridRow row : monthlyPlanRepository.findGridRows(planYear, planMonth)) {
+            MonthlyPlanGrid plan = plans.computeIfAbsent(row.getPlanId(),
+                    id -> new MonthlyPlanGrid(id, row.getPlanYear(), row.getPlanMonth()));
+            if (row.getMonthlyTaskId() != null) {
+                plan.getTasks().add(row);
+            }
+        }
+        return new ArrayList<>(plans.values());
+    }
+
     // Получить задачи плана
     @Transactional(readOnly = true)
     public List<MonthlyTask> getMonthlyTasks(Long planId){
         return monthlyTaskRepository.findByMonthlyPlanId(planId);
     }
 
-    // Изменить статус задачи на день
+    // Изменить статус задачи на день: один UPDATE бита в statusMask, без чтения задачи
     @Transactional
     public void updateTaskDayStatus(Long monthlyTaskId,Integer day,Boolean status){
         if (day == null || day < 1 || day > 31) {
@@ -91,15 +120,13 @@ public class MonthlyPlanService {
         }
         
         logger.debug("Обновление статуса задачи: monthlyTaskId={}, day={}, status={}", monthlyTaskId, day, status);
-        MonthlyTask monthlyTask = monthlyTaskRepository.findById(monthlyTaskId)
-                .orElseThrow(() -> new EntityNotFoundException("Задача месяца", monthlyTaskId));
-        Map<Integer,Boolean> map = monthlyTask.getStatusPerDay();
-        if (map == null) {
-            map = new HashMap<>();
+        int bit = MonthlyTask.dayBit(day);
+        int updated = status
+                ? monthlyTaskRepository.setDayBit(monthlyTaskId, bit)
+                : monthlyTaskRepository.clearDayBit(monthlyTaskId, ~bit);
+        if (updated == 0) {
+            throw new EntityNotFoundException("Задача месяца", monthlyTaskId);
         }
-        map.put(day,status);
-        monthlyTask.setStatusPerDay(map);
-        monthlyTaskRepository.save(monthlyTask);
         logger.debug("Статус задачи обновлен");
     }
 }
@@ -0,0 +1,184 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.codec.NoteEventCodec;
+import com.example.dailynotes.dto.CacheMaintenanceStatus;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.event.NoteEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронное обновление кэшей заметок по событиям из Kafka (режим event).
+ *
+ * Вместо сброса ключей в HTTP-запросе consumer применяет события к кэшу:
+ * - notesById: запись заменяется состоянием заметки из события
+ * - notesByDate: списки затронутых дней сбрасываются и загружаются из БД при следующем чтении.
+ *   Править список на месте (get - изменить - put) нельзя: заметки одного дня лежат в разных
+ *   партициях, их события применяют разные потоки и узлы, и параллельные правки затирали бы
+ *   друг друга без ошибок до истечения TTL
+ *
+ * Версии для ETag (noteVersions, noteDateVersions) сбрасываются после применения события,
+ * чтобы ETag не опережал закэшированные заметки.
+ *
+ * Устаревание ограничено сверху TTL кэшей заметок в Redis (app.cache.event.max-staleness-seconds),
+ * а фактическая задержка применения событий измеряется и доступна в {@link #getStatus()}.
+ */
+@Component
+public class NoteCacheMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteCacheMaintainer.class);
+
+    private final CacheManager cacheManager;
+    private final NoteCacheService noteCacheService;
+
+    @Value("${app.cache.event.max-staleness-seconds:60}")
+    private long maxStalenessSeconds;
+
+    private final AtomicLong appliedTotal = new AtomicLong();
+    private final AtomicLong failedTotal = new AtomicLong();
+    private final AtomicLong overBoundTotal = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public NoteCacheMaintainer(CacheManager cacheManager, NoteCacheService noteCacheService) {
+        this.cacheManager = cacheManager;
+        this.noteCacheService = noteCacheService;
+    }
+
+    /**
+     * Применение событий в порядке их получения. Ошибки не пробрасываются:
+     * при сбое затронутые ключи сбрасываются, а в худшем случае запись устареет
+     * не дольше TTL.
+     */
+    public void apply(List<NoteEvent> events) {
+        if (!noteCacheService.isEventDriven() || events.isEmpty()) {
+            return;
+        }
+        for (NoteEvent event : events) {
+            try {
+                applyEvent(event);
+                appliedTotal.incrementAndGet();
+                recordLag(event);
+            } catch (Exception e) {
+                failedTotal.incrementAndGet();
+                logger.warn("Не удалось применить событие к кэшу, сбрасываем ключи: {}", event, e);
+                evictQuietly(event);
+            }
+        }
+    }
+
+    public CacheMaintenanceStatus getStatus() {
+        return new CacheMaintenanceStatus(noteCacheService.isEventDriven(), maxStalenessSeconds * 1000,
+                appliedTotal.get(), failedTotal.get(), overBoundTotal.get(), lastLagMillis, maxLagMillis);
+    }
+
+    private void applyEvent(NoteEvent event) {
+        Cache byId = cacheManager.getCache(NoteCacheService.NOTES_BY_ID_CACHE);
+        Cache byDate = cacheManager.getCache(NoteCacheService.NOTES_BY_DATE_CACHE);
+        if (event.getEventType() == NoteEvent.EventType.BULK_IMPORTED) {
+            // Импорт мог затронуть любые дни, списки дней перечитаются из БД
+            if (byDate != null) {
+                byDate.clear();
+            }
+            noteCacheService.clearCache(NoteCacheService.NOTE_DATE_VERSIONS_CACHE);
+            return;
+        }
+        Long noteId = event.getNoteId();
+        if (noteId == null || byId == null || byDate == null) {
+            return;
+        }
+
+        if (event.getEventType() == NoteEvent.EventType.DELETED) {
+            byId.evict(noteId);
+            evictDay(byDate, event.getDate());
+            noteCacheService.evictVersions(noteId, event.getDate());
+            return;
+        }
+
+        Note note = hasFullState(event) ? toNote(event) : withCachedContent(byId, event);
+        // put и evict рассылают инвалидацию L1 остальным узлам
+        if (note != null) {
+            byId.put(noteId, note);
+        } else {
+            byId.evict(noteId);
+        }
+        if (event.getPreviousDate() != null && !Objects.equals(event.getPreviousDate(), event.getDate())) {
+            evictDay(byDate, event.getPreviousDate());
+        }
+        evictDay(byDate, event.getDate());
+        noteCacheService.evictVersions(noteId, event.getDate(), event.getPreviousDate());
+    }
+
+    private static void evictDay(Cache byDate, LocalDate date) {
+        if (date != null) {
+            byDate.evict(date);
+        }
+    }
+
+    private void evictQuietly(NoteEvent event) {
+        try {
+            noteCacheService.evictNoteById(event.getNoteId());
+            noteCacheService.evictNotesByDates(event.getDate(), event.getPreviousDate());
+            noteCacheService.evictVersions(event.getNoteId(), event.getDate(), event.getPreviousDate());
+        } catch (Exception e) {
+            logger.warn("Не удалось сбросить кэш для события {}", event, e);
+        }
+    }
+
+    private void recordLag(NoteEvent event) {
+        if (event.getTimestamp() == null) {
+            return;
+        }
+        long lag = Math.max(0, Duration.between(event.getTimestamp(), LocalDateTime.now()).toMillis());
+        lastLagMillis = lag;
+        if (lag > maxLagMillis) {
+            maxLagMillis = lag;
+        }
+        if (lag > maxStalenessSeconds * 1000) {
+            overBoundTotal.incrementAndGet();
+        }
+    }
+
+    /**
+     * Событие без текста (бинарный формат передает хэш): если закэшированный текст
+     * совпадает по хэшу, заметка собирается из события и этого текста
+     */
+    private static Note withCachedContent(Cache byId, NoteEvent event) {
+        if (event.getContentHash() == null || event.getTitle() == null || event.getDate() == null) {
+            return null;
+        }
+        Cache.ValueWrapper cached = byId.get(event.getNoteId());
+        if (cached == null || !(cached.get() instanceof Note current)
+                || NoteEventCodec.contentHash(current.getContent()) != event.getContentHash()) {
+            return null;
+        }
+        Note note = toNote(event);
+        note.setContent(current.getContent());
+        return note;
+    }
+
+    private static boolean hasFullState(NoteEvent event) {
+        return event.getTitle() != null && event.getContent() != null && event.getDate() != null;
+    }
+
+    private static Note toNote(NoteEvent event) {
+        Note note = new Note(event.getTitle(), event.getContent(), event.getDate(), event.getWeight());
+        note.setId(event.getNoteId());
+        note.setCompleted(event.isCompleted());
+        if (event.getVersion() != null) {
+            note.setVersion(event.getVersion());
+        }
+        return note;
+    }
+}
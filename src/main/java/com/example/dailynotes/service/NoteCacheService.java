@@ -2,9 +2,12 @@ package com.example.dailynotes.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -12,19 +15,81 @@ import java.util.Objects;
 
 /**
  * Утилитный сервис для взаимодействия с кэшом заметок в Redis.
+ *
+ * Режимы поддержки кэша (app.cache.maintenance-mode):
+ * - sync: NoteService сбрасывает ключи синхронно в рамках записи
+ * - event: запись не обращается к кэшу вовсе, кэш обновляет NoteCacheMaintainer
+ *   по событиям из Kafka; устаревание ограничено app.cache.event.max-staleness-seconds
+ *
+ * Рядом с заметками кэшируются их версии для ETag (noteVersions, noteDateVersions, см. NoteVersionService).
  */
 @Service
 public class NoteCacheService {
 
     public static final String NOTES_BY_DATE_CACHE = "notesByDate";
     public static final String NOTES_BY_ID_CACHE = "notesById";
+    public static final String NOTE_VERSIONS_CACHE = "noteVersions";
+    public static final String NOTE_DATE_VERSIONS_CACHE = "noteDateVersions";
+
+    public static final String MODE_SYNC = "sync";
+    public static final String MODE_EVENT = "event";
 
     private static final Logger logger = LoggerFactory.getLogger(NoteCacheService.class);
 
     private final CacheManager cacheManager;
+    private final boolean eventDriven;
 
-    public NoteCacheService(CacheManager cacheManager) {
+    public NoteCacheService(CacheManager cacheManager,
+                            @Value("${app.cache.maintenance-mode:sync}") String maintenanceMode) {
         this.cacheManager = cacheManager;
+        this.eventDriven = MODE_EVENT.equalsIgnoreCase(maintenanceMode);
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    /**
+     * Сброс кэшей после записи заметки. В режиме event ничего не делает:
+     * кэш обновится асинхронно по событию из Kafka.
+     */
+    public void evictAfterWrite(Long noteId, LocalDate... dates) {
+        if (eventDriven) {
+            return;
+        }
+        evictNoteById(noteId);
+        evictNotesByDates(dates);
+        evictVersions(noteId, dates);
+    }
+
+    /**
+     * Сброс версий заметки и дней. Внутри транзакции - после коммита: до него в БД
+     * еще старые версии, и параллельное чтение вернуло бы их в кэш уже после сброса,
+     * а клиенты получали бы 304 на устаревшие данные.
+     */
+    public void evictVersions(Long noteId, LocalDate... dates) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            doEvictVersions(noteId, dates);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Данные уже закоммичены: ошибка кэша не должна превращать запись в ошибку
+                try {
+                    doEvictVersions(noteId, dates);
+                } catch (Exception e) {
+                    logger.warn("Не удалось сбросить версии заметки {} после коммита", noteId, e);
+                }
+            }
+        });
+    }
+
+    private void doEvictVersions(Long noteId, LocalDate... dates) {
+        evict(NOTE_VERSIONS_CACHE, noteId);
+        if (dates != null) {
+            Arrays.stream(dates).filter(Objects::nonNull).forEach(date -> evict(NOTE_DATE_VERSIONS_CACHE, date));
+        }
     }
 
     public void evictNoteById(Long noteId) {
@@ -0,0 +1,41 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.NoteListItem;
+import com.example.dailynotes.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации заметок: позиция (date, id) последней отданной заметки.
+ *
+ * Для клиента курсор непрозрачен: "v1:{epochDay}:{id}" в base64url без паддинга.
+ * Префикс версии позволяет поменять формат, не ломая курсоры у клиентов.
+ */
+public record NoteCursor(LocalDate date, long id) {
+
+    private static final String VERSION = "v1";
+
+    public static NoteCursor after(NoteListItem item) {
+        return new NoteCursor(item.getDate(), item.getId());
+    }
+
+    public String encode() {
+        String raw = VERSION + ":" + date.toEpochDay() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NoteCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new ValidationException("Некорректный курсор");
+            }
+            return new NoteCursor(LocalDate.ofEpochDay(Long.parseLong(parts[1])), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new ValidationException("Некорректный курсор");
+        }
+    }
+}
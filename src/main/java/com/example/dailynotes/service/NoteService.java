@@ -1,17 +1,28 @@
 package com.example.dailynotes.service;
 
+import com.example.dailynotes.dto.NoteDayStats;
+import com.example.dailynotes.dto.NoteFilter;
+import com.example.dailynotes.dto.NoteListItem;
+import com.example.dailynotes.dto.NotePage;
 import com.example.dailynotes.entity.Note;
 import com.example.dailynotes.event.NoteEvent;
 import com.example.dailynotes.exception.EntityNotFoundException;
+import com.example.dailynotes.exception.ValidationException;
 import com.example.dailynotes.repository.NoteRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 
 @Service
@@ -19,26 +30,32 @@ public class NoteService {
 
     private static final Logger logger = LoggerFactory.getLogger(NoteService.class);
     private final NoteRepository noteRepository;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
     private final NoteCacheService noteCacheService;
 
+    @Value("${app.notes.range.max-days:366}")
+    private long maxRangeDays;
+
+    @Value("${app.notes.page.max-size:500}")
+    private int maxPageSize;
+
     /**
      * Конструктор с внедрением зависимостей
      * 
      * @param noteRepository репозиторий для работы с базой данных
-     * @param kafkaProducerService сервис для отправки событий в Kafka
+     * @param outboxService outbox для событий, отправляемых в Kafka
      */
     public NoteService(NoteRepository noteRepository,
-                       KafkaProducerService kafkaProducerService,
+                       OutboxService outboxService,
                        NoteCacheService noteCacheService) {
         this.noteRepository = noteRepository;
-        this.kafkaProducerService = kafkaProducerService;
+        this.outboxService = outboxService;
         this.noteCacheService = noteCacheService;
     }
 
     /**
      * Создание новой заметки
-     * После сохранения в БД отправляет событие CREATED в Kafka
+     * Событие CREATED записывается в outbox в той же транзакции
      */
     @Transactional
     public Note createNote(String title, String content,double weight, LocalDate date){
@@ -47,19 +64,10 @@ public class NoteService {
         Note saved = noteRepository.save(note);
         logger.info("Заметка создана с ID: {}", saved.getId());
 
-        noteCacheService.evictNotesByDate(saved.getDate());
-        noteCacheService.evictNoteById(saved.getId());
+        noteCacheService.evictAfterWrite(saved.getId(), saved.getDate());
         
-        // Отправка события о создании заметки в Kafka
-        // Это происходит асинхронно и не блокирует выполнение метода
-        try {
-            NoteEvent event = new NoteEvent(NoteEvent.EventType.CREATED, saved);
-            kafkaProducerService.sendNoteCreatedEvent(event);
-        } catch (Exception e) {
-            // Логируем ошибку, но не прерываем выполнение
-            // Заметка уже сохранена в БД, событие можно отправить позже
-            logger.error("Ошибка при отправке события о создании заметки в Kafka", e);
-        }
+        // Событие попадает в outbox вместе с заметкой и отправляется в Kafka фоновым OutboxRelay
+        outboxService.append(new NoteEvent(NoteEvent.EventType.CREATED, saved));
         
         return saved;
     }
@@ -70,6 +78,89 @@ public class NoteService {
         return noteRepository.findByDate(date);
     }
 
+    /**
+     * Заметки за период (включительно) для календаря и списков, без содержания
+     */
+    @Transactional(readOnly = true)
+    public List<NoteListItem> findNotesBetween(LocalDate from, LocalDate to){
+        validateRange(from, to);
+        return noteRepository.findListItemsBetween(from, to);
+    }
+
+    /**
+     * Количество заметок и доля выполненных по дням периода (дни без заметок пропускаются)
+     */
+    @Transactional(readOnly = true)
+    public List<NoteDayStats> getDayStats(LocalDate from, LocalDate to){
+        validateRange(from, to);
+        return noteRepository.findDayStatsBetween(from, to);
+    }
+
+    /**
+     * Страница списка всех заметок в порядке (date, id) по keyset-курсору
+     *
+     * @param cursor nextCursor предыдущей страницы или null для первой страницы
+     */
+    @Transactional(readOnly = true)
+    public NotePage findNotesPage(NoteFilter filter, String cursor, int size){
+        if (size < 1 || size > maxPageSize) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + maxPageSize);
+        }
+        validateFilter(filter);
+        NoteCursor after = cursor == null || cursor.isBlank() ? null : NoteCursor.decode(cursor);
+
+        // Запрашиваем на одну запись больше, чтобы без count узнать, есть ли следующая страница
+        List<NoteListItem> items = findListPage(filter, after, size + 1);
+        if (items.size() <= size) {
+            return new NotePage(items, null);
+        }
+        List<NoteListItem> page = new ArrayList<>(items.subList(0, size));
+        return new NotePage(page, NoteCursor.after(page.get(size - 1)).encode());
+    }
+
+    /**
+     * Обход всех заметок под фильтром пачками по keyset-курсору (для экспорта).
+     * Каждая пачка - отдельный короткий запрос, таблица целиком в память не загружается.
+     */
+    public void forEachNote(NoteFilter filter, int batchSize, Consumer<NoteListItem> consumer){
+        validateFilter(filter);
+        NoteCursor after = null;
+        while (true) {
+            List<NoteListItem> batch = findListPage(filter, after, batchSize);
+            batch.forEach(consumer);
+            if (batch.size() < batchSize) {
+                return;
+            }
+            after = NoteCursor.after(batch.get(batch.size() - 1));
+        }
+    }
+
+    private List<NoteListItem> findListPage(NoteFilter filter, NoteCursor after, int limit){
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        if (after == null) {
+            return noteRepository.findListPage(filter.getCompleted(), filter.getMinWeight(),
+                    filter.getMaxWeight(), pageRequest);
+        }
+        return noteRepository.findListPageAfter(after.date(), after.id(), filter.getCompleted(),
+                filter.getMinWeight(), filter.getMaxWeight(), pageRequest);
+    }
+
+    public void validateFilter(NoteFilter filter){
+        if (filter.getMinWeight() != null && filter.getMaxWeight() != null
+                && filter.getMinWeight() > filter.getMaxWeight()) {
+            throw new ValidationException("minWeight не может быть больше maxWeight");
+        }
+    }
+
+    public void validateRange(LocalDate from, LocalDate to){
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new ValidationException("Некорректный период: from должен быть не позже to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new ValidationException("Период не может быть длиннее " + maxRangeDays + " дней");
+        }
+    }
+
     @Transactional(readOnly = true)
     @Cacheable(cacheNames = NoteCacheService.NOTES_BY_ID_CACHE, key = "#id")
     public Note findNoteById(Long id){
@@ -80,7 +171,7 @@ public class NoteService {
 
     /**
      * Обновление существующей заметки
-     * После сохранения в БД отправляет событие UPDATED в Kafka
+     * Событие UPDATED записывается в outbox в той же транзакции
      */
     @Transactional
     public Note updateNote(Long id, Note updatedNote){
@@ -88,32 +179,37 @@ public class NoteService {
         Note existingNote = noteRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Заметка", id));
         LocalDate previousDate = existingNote.getDate();
+        double previousWeight = existingNote.getWeight();
+        boolean contentChanged = !Objects.equals(existingNote.getContent(), updatedNote.getContent());
 
         existingNote.setTitle(updatedNote.getTitle());
         existingNote.setContent(updatedNote.getContent());
         existingNote.setWeight(updatedNote.getWeight());
         existingNote.setDate(updatedNote.getDate());
 
-        Note saved = noteRepository.save(existingNote);
+        // flush до записи события, чтобы в событие попала уже увеличенная версия
+        Note saved = noteRepository.saveAndFlush(existingNote);
         logger.info("Заметка с ID {} обновлена", id);
 
-        noteCacheService.evictNoteById(id);
-        noteCacheService.evictNotesByDates(previousDate, saved.getDate());
+        noteCacheService.evictAfterWrite(id, previousDate, saved.getDate());
         
-        // Отправка события об обновлении заметки в Kafka
-        try {
-            NoteEvent event = new NoteEvent(NoteEvent.EventType.UPDATED, saved);
-            kafkaProducerService.sendNoteUpdatedEvent(event);
-        } catch (Exception e) {
-            logger.error("Ошибка при отправке события об обновлении заметки в Kafka", e);
+        NoteEvent event = new NoteEvent(NoteEvent.EventType.UPDATED, saved);
+        if (!Objects.equals(previousDate, saved.getDate())) {
+            event.setPreviousDate(previousDate);
+        }
+        if (Double.compare(previousWeight, saved.getWeight()) != 0) {
+            event.setPreviousWeight(previousWeight);
         }
+        // Без изменения текста бинарный формат передает вместо него хэш
+        event.setContentChanged(contentChanged);
+        outboxService.append(event);
         
         return saved;
     }
 
     /**
      * Изменение статуса выполнения заметки
-     * После сохранения в БД отправляет событие TOGGLED в Kafka
+     * Событие TOGGLED записывается в outbox в той же транзакции
      */
     @Transactional
     public void toggleNoteCompletion(Long id){
@@ -121,24 +217,17 @@ public class NoteService {
         Note note = noteRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Заметка", id));
         note.setCompleted(!note.isCompleted());
-        Note saved = noteRepository.save(note);
+        Note saved = noteRepository.saveAndFlush(note);
         logger.info("Статус заметки с ID {} изменен на: {}", id, saved.isCompleted());
 
-        noteCacheService.evictNoteById(id);
-        noteCacheService.evictNotesByDate(saved.getDate());
+        noteCacheService.evictAfterWrite(id, saved.getDate());
         
-        // Отправка события об изменении статуса заметки в Kafka
-        try {
-            NoteEvent event = new NoteEvent(NoteEvent.EventType.TOGGLED, saved);
-            kafkaProducerService.sendNoteToggledEvent(event);
-        } catch (Exception e) {
-            logger.error("Ошибка при отправке события об изменении статуса заметки в Kafka", e);
-        }
+        outboxService.append(new NoteEvent(NoteEvent.EventType.TOGGLED, saved));
     }
 
     /**
      * Удаление заметки
-     * ВАЖНО: Событие отправляется ДО удаления, так как после удаления объект Note недоступен
+     * ВАЖНО: Событие создается ДО удаления, так как после удаления объект Note недоступен
      */
     @Transactional
     public void deleteNote(Long id){
@@ -147,19 +236,15 @@ public class NoteService {
                 .orElseThrow(() -> new EntityNotFoundException("Заметка", id));
         LocalDate noteDate = note.getDate();
         
-        // Отправка события об удалении заметки в Kafka
-        // Делаем это ДО удаления, чтобы иметь доступ к данным заметки
-        try {
-            NoteEvent event = new NoteEvent(NoteEvent.EventType.DELETED, note);
-            kafkaProducerService.sendNoteDeletedEvent(event);
-        } catch (Exception e) {
-            logger.error("Ошибка при отправке события об удалении заметки в Kafka", e);
-        }
+        // Создаем событие ДО удаления, чтобы иметь доступ к данным заметки.
+        // Удаление не меняет версию, поэтому событию назначается следующая
+        NoteEvent event = new NoteEvent(NoteEvent.EventType.DELETED, note);
+        event.setVersion(note.getVersion() + 1);
+        outboxService.append(event);
         
         noteRepository.deleteById(id);
         logger.info("Заметка с ID {} удалена", id);
 
-        noteCacheService.evictNoteById(id);
-        noteCacheService.evictNotesByDate(noteDate);
+        noteCacheService.evictAfterWrite(id, noteDate);
     }
 }
@@ -0,0 +1,403 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.NoteStatsBucket;
+import com.example.dailynotes.entity.NoteDailyStats;
+import com.example.dailynotes.entity.NoteStatsVersion;
+import com.example.dailynotes.entity.StatsOffset;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.repository.NoteDailyStatsRepository;
+import com.example.dailynotes.repository.NoteStatsVersionRepository;
+import com.example.dailynotes.repository.StatsOffsetRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Статистика заметок по дням, неделям и месяцам без запросов к таблице notes.
+ *
+ * Счетчики за день (note_daily_stats) меняются по событиям из Kafka. Для каждой заметки
+ * хранится учтенное состояние (note_stats_versions: версия, дата, выполнена, вес), и событие
+ * меняет счетчики на разницу между ним и полным состоянием заметки из события. Поэтому:
+ * - событие с версией не больше учтенной (повтор relay с новым offset, устаревшее) пропускается;
+ * - пропущенные версии не искажают счетчики: разница считается от учтенного состояния.
+ * Для каждой партиции хранится последний учтенный offset (note_stats_offsets), повторная
+ * доставка пачки ничего не меняет. Все это обновляется в одной транзакции со счетчиками.
+ *
+ * Заметки без строки состояния (существовавшие до первого старта, массовый импорт) учитываются
+ * по текущему состоянию из notes, и строка получает текущую версию заметки: события, уже
+ * вошедшие в это состояние, потом пропускаются. Это делается при старте до запуска слушателей
+ * Kafka и по событию BULK_IMPORTED. Первое состояние вставляется обычным INSERT, поэтому
+ * параллельный учет той же заметки событием откатывается по первичному ключу и повторяется.
+ *
+ * Недели и месяцы собираются из дневных строк. Дневные строки кэшируются в памяти
+ * помесячно и сбрасываются после применения событий этого месяца.
+ *
+ * События без версии (старые сообщения) меняют счетчики по полям previousDate/previousWeight.
+ */
+@Service
+public class NoteStatsService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteStatsService.class);
+
+    private static final int MAX_BACKFILL_CONFLICTS = 3;
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        public static Granularity parse(String value) {
+            try {
+                return Granularity.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Неизвестная группировка: " + value + " (day, week, month)");
+            }
+        }
+    }
+
+    private final NoteDailyStatsRepository statsRepository;
+    private final StatsOffsetRepository offsetRepository;
+    private final NoteStatsVersionRepository versionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<YearMonth, List<NoteDailyStats>> monthCache;
+
+    @Value("${app.stats.max-range-days:1096}")
+    private int maxRangeDays;
+
+    @Value("${app.stats.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.stats.backfill.batch-size:1000}")
+    private int backfillBatchSize;
+
+    public NoteStatsService(NoteDailyStatsRepository statsRepository,
+                            StatsOffsetRepository offsetRepository,
+                            NoteStatsVersionRepository versionRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.stats.cache.max-months:240}") long cacheMaxMonths,
+                            @Value("${app.stats.cache.ttl-seconds:60}") long cacheTtlSeconds) {
+        this.statsRepository = statsRepository;
+        this.offsetRepository = offsetRepository;
+        this.versionRepository = versionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // TTL ограничивает устаревание на других узлах: их партиции обрабатываются не здесь
+        this.monthCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxMonths)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Учет заметок без строки состояния. Вызывается после создания бинов, до запуска
+     * слушателей Kafka (они стартуют вместе с контекстом), поэтому события при старте
+     * не мешают решению, что учитывать.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    /**
+     * Учет всех заметок, которых еще нет в статистике, постранично, каждая страница в своей транзакции.
+     * Возвращает число учтенных заметок.
+     */
+    public long backfill() {
+        long counted = 0;
+        int conflicts = 0;
+        Long afterId = 0L;
+        while (true) {
+            Long from = afterId;
+            Set<YearMonth> touched = new HashSet<>();
+            List<NoteStatsVersion> page;
+            try {
+                page = transactionTemplate.execute(status -> countUncounted(from, touched));
+            } catch (DataIntegrityViolationException e) {
+                // Часть заметок страницы параллельно учел слушатель или другой узел: страница перечитывается
+                if (++conflicts > MAX_BACKFILL_CONFLICTS) {
+                    throw e;
+                }
+                logger.warn("Статистика: конфликт при учете заметок после id={}, повтор", from);
+                continue;
+            } finally {
+                monthCache.invalidateAll(touched);
+            }
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            counted += page.size();
+            afterId = page.get(page.size() - 1).getNoteId();
+        }
+        if (counted > 0) {
+            logger.info("Статистика: учтено заметок по таблице notes {}", counted);
+        }
+        return counted;
+    }
+
+    /**
+     * Применение записей из Kafka. Записи каждой партиции применяются в своей транзакции,
+     * уже учтенные offset пропускаются. Записи без события (не прочитались) только сдвигают offset.
+     */
+    public void apply(List<ConsumerRecord<String, NoteEvent>> records) {
+        Map<String, List<ConsumerRecord<String, NoteEvent>>> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            byPartition.computeIfAbsent(record.topic() + "-" + record.partition(), key -> new ArrayList<>())
+                    .add(record);
+        }
+
+        Set<YearMonth> touched = new HashSet<>();
+        for (Map.Entry<String, List<ConsumerRecord<String, NoteEvent>>> entry : byPartition.entrySet()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    applyPartition(entry.getKey(), entry.getValue(), touched));
+        }
+        // Кэш сбрасывается после коммита, иначе другой поток может закэшировать старые строки
+        monthCache.invalidateAll(touched);
+    }
+
+    /**
+     * Статистика за период с группировкой по дням, неделям (с понедельника) или месяцам.
+     * Границы расширяются до целых недель/месяцев, периоды без заметок возвращаются с нулями.
+     */
+    public List<NoteStatsBucket> getStats(LocalDate from, LocalDate to, Granularity granularity) {
+        if (from == null || to == null) {
+            throw new ValidationException("Нужно указать начало и конец периода");
+        }
+        if (from.isAfter(to)) {
+            throw new ValidationException("Начало периода не может быть позже конца");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxRangeDays) {
+            throw new ValidationException("Период не может быть длиннее " + maxRangeDays + " дней");
+        }
+
+        LocalDate start = periodStart(from, granularity);
+        LocalDate end = periodEnd(periodStart(to, granularity), granularity);
+        TreeMap<LocalDate, NoteStatsBucket> buckets = new TreeMap<>();
+        for (LocalDate period = start; !period.isAfter(end); period = periodEnd(period, granularity).plusDays(1)) {
+            buckets.put(period, new NoteStatsBucket(period, periodEnd(period, granularity)));
+        }
+
+        for (YearMonth month = YearMonth.from(start); !month.isAfter(YearMonth.from(end)); month = month.plusMonths(1)) {
+            for (NoteDailyStats day : loadMonth(month)) {
+                if (!day.getDate().isBefore(start) && !day.getDate().isAfter(end)) {
+                    buckets.floorEntry(day.getDate()).getValue()
+                            .add(day.getNotesCount(), day.getCompletedCount(), day.getTotalWeight());
+                }
+            }
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    private List<NoteDailyStats> loadMonth(YearMonth month) {
+        return monthCache.get(month, key ->
+                List.copyOf(statsRepository.findByDateBetweenOrderByDateAsc(key.atDay(1), key.atEndOfMonth())));
+    }
+
+    private void applyPartition(String name, List<ConsumerRecord<String, NoteEvent>> records, Set<YearMonth> touched) {
+        StatsOffset position = offsetRepository.findForUpdate(name)
+                .orElseGet(() -> offsetRepository.save(new StatsOffset(name)));
+
+        Map<LocalDate, NoteStatsBucket> deltas = new TreeMap<>();
+        Map<Long, NoteStatsVersion> states = loadStates(records, position.getLastOffset());
+        List<NoteStatsVersion> created = new ArrayList<>();
+        boolean imported = false;
+        long lastOffset = position.getLastOffset();
+        int skipped = 0;
+        int duplicates = 0;
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            if (record.offset() <= position.getLastOffset()) {
+                skipped++;
+                continue;
+            }
+            lastOffset = Math.max(lastOffset, record.offset());
+            NoteEvent event = record.value();
+            if (event == null || event.getEventType() == null) {
+                continue;
+            }
+            if (event.getEventType() == NoteEvent.EventType.BULK_IMPORTED) {
+                imported = true;
+                continue;
+            }
+            if (event.getNoteId() == null || event.getVersion() == null) {
+                collectDelta(event, deltas);
+                continue;
+            }
+
+            NoteStatsVersion state = states.get(event.getNoteId());
+            if (state == null) {
+                state = new NoteStatsVersion(event.getNoteId());
+                states.put(event.getNoteId(), state);
+                created.add(state);
+            } else if (event.getVersion() <= state.getLastVersion()) {
+                duplicates++;
+                continue;
+            }
+            // Учтенный вклад заметки заменяется состоянием из события
+            if (state.getLastDate() != null) {
+                delta(deltas, state.getLastDate()).add(-1, state.isCompleted() ? -1 : 0, -state.getWeight());
+            }
+            boolean present = event.getEventType() != NoteEvent.EventType.DELETED && event.getDate() != null;
+            if (present) {
+                delta(deltas, event.getDate()).add(1, event.isCompleted() ? 1 : 0, event.getWeight());
+            }
+            state.setLastVersion(event.getVersion());
+            state.setLastDate(present ? event.getDate() : null);
+            state.setCompleted(present && event.isCompleted());
+            state.setWeight(present ? event.getWeight() : 0);
+        }
+        if (skipped > 0 || duplicates > 0) {
+            logger.info("Статистика: пропущено уже учтенных записей {}, повторных событий {} ({})",
+                    skipped, duplicates, name);
+        }
+
+        // Новые строки - INSERT (конфликт с параллельным учетом откатит транзакцию),
+        // загруженные сохранятся при коммите
+        for (NoteStatsVersion state : created) {
+            versionRepository.insertState(state.getNoteId(), state.getLastVersion(), state.getLastDate(),
+                    state.isCompleted(), state.getWeight());
+        }
+        applyDeltas(deltas, touched);
+        if (imported) {
+            // Импорт не несет данных заметок: учитываем все заметки, которых еще нет в статистике
+            int counted = 0;
+            List<NoteStatsVersion> page;
+            Long afterId = 0L;
+            do {
+                page = countUncounted(afterId, touched);
+                counted += page.size();
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getNoteId();
+                }
+            } while (!page.isEmpty());
+            logger.info("Статистика: учтено заметок после импорта {}", counted);
+        }
+
+        position.setLastOffset(lastOffset);
+        position.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Одна страница заметок без строки состояния: строки вставляются с текущей версией заметки,
+     * заметки добавляются в счетчики своих дней
+     */
+    private List<NoteStatsVersion> countUncounted(Long afterId, Set<YearMonth> touched) {
+        List<NoteStatsVersion> page = versionRepository.findUncounted(afterId, PageRequest.of(0, backfillBatchSize));
+        Map<LocalDate, NoteStatsBucket> deltas = new TreeMap<>();
+        for (NoteStatsVersion state : page) {
+            versionRepository.insertState(state.getNoteId(), state.getLastVersion(), state.getLastDate(),
+                    state.isCompleted(), state.getWeight());
+            if (state.getLastDate() != null) {
+                delta(deltas, state.getLastDate()).add(1, state.isCompleted() ? 1 : 0, state.getWeight());
+            }
+        }
+        applyDeltas(deltas, touched);
+        return page;
+    }
+
+    private void applyDeltas(Map<LocalDate, NoteStatsBucket> deltas, Set<YearMonth> touched) {
+        for (NoteStatsBucket delta : deltas.values()) {
+            if (delta.getNotesCount() == 0 && delta.getCompletedCount() == 0 && delta.getTotalWeight() == 0) {
+                continue;
+            }
+            int updated = statsRepository.addDelta(delta.getPeriodStart(), delta.getNotesCount(),
+                    delta.getCompletedCount(), delta.getTotalWeight());
+            if (updated == 0) {
+                // Если строку параллельно вставил поток другой партиции, транзакция откатится
+                // вместе с offset, и пачка будет применена повторно
+                statsRepository.insertDay(delta.getPeriodStart(), delta.getNotesCount(),
+                        delta.getCompletedCount(), delta.getTotalWeight());
+            }
+            touched.add(YearMonth.from(delta.getPeriodStart()));
+        }
+    }
+
+    /**
+     * Учтенные состояния заметок из еще не учтенных записей
+     */
+    private Map<Long, NoteStatsVersion> loadStates(List<ConsumerRecord<String, NoteEvent>> records, long afterOffset) {
+        Set<Long> noteIds = new HashSet<>();
+        for (ConsumerRecord<String, NoteEvent> record : records) {
+            NoteEvent event = record.value();
+            if (record.offset() > afterOffset && event != null && event.getNoteId() != null
+                    && event.getVersion() != null) {
+                noteIds.add(event.getNoteId());
+            }
+        }
+        if (noteIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return versionRepository.findAllById(noteIds).stream()
+                .collect(Collectors.toMap(NoteStatsVersion::getNoteId, Function.identity(), (a, b) -> a, HashMap::new));
+    }
+
+    /**
+     * Разница в счетчиках, которую вносит одно событие без версии
+     */
+    private static void collectDelta(NoteEvent event, Map<LocalDate, NoteStatsBucket> deltas) {
+        if (event.getDate() == null) {
+            return;
+        }
+        long completed = event.isCompleted() ? 1 : 0;
+        switch (event.getEventType()) {
+            case CREATED -> delta(deltas, event.getDate()).add(1, completed, event.getWeight());
+            case DELETED -> delta(deltas, event.getDate()).add(-1, -completed, -event.getWeight());
+            case TOGGLED -> delta(deltas, event.getDate()).add(0, completed == 1 ? 1 : -1, 0);
+            case UPDATED -> {
+                // previousDate/previousWeight заполнены, только если значение менялось
+                LocalDate oldDate = event.getPreviousDate() != null ? event.getPreviousDate() : event.getDate();
+                double oldWeight = event.getPreviousWeight() != null ? event.getPreviousWeight() : event.getWeight();
+                delta(deltas, oldDate).add(-1, -completed, -oldWeight);
+                delta(deltas, event.getDate()).add(1, completed, event.getWeight());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static NoteStatsBucket delta(Map<LocalDate, NoteStatsBucket> deltas, LocalDate date) {
+        return deltas.computeIfAbsent(date, day -> new NoteStatsBucket(day, day));
+    }
+
+    private static LocalDate periodStart(LocalDate date, Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private static LocalDate periodEnd(LocalDate periodStart, Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> periodStart;
+            case WEEK -> periodStart.plusDays(6);
+            case MONTH -> periodStart.with(TemporalAdjusters.lastDayOfMonth());
+        };
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.AIResponse;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.entity.NoteSummary;
+import com.example.dailynotes.entity.SummaryJob;
+import com.example.dailynotes.exception.AiCapacityExceededException;
+import com.example.dailynotes.exception.EntityNotFoundException;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.repository.NoteRepository;
+import com.example.dailynotes.repository.NoteSummaryRepository;
+import com.example.dailynotes.repository.SummaryJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетное AI-резюмирование заметок за период (день, месяц).
+ *
+ * Задание выполняется в отдельном фоновом потоке:
+ * 1. Заметки читаются страницами по возрастанию ID после контрольной точки.
+ * 2. Заметки, для которых уже есть резюме того же текста, пропускаются.
+ * 3. Остальные упаковываются по несколько в промпт в пределах бюджета токенов.
+ * 4. Промпты отправляются параллельно, но не больше app.ai.summary.parallelism
+ *    одновременно (поверх общего пула запросов к AI).
+ * 5. Резюме сохраняются, контрольная точка сдвигается на конец страницы.
+ *
+ * Незавершенные задания продолжаются после перезапуска приложения.
+ */
+@Service
+public class NoteSummaryJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteSummaryJobService.class);
+
+    private static final Set<SummaryJob.Status> UNFINISHED =
+            EnumSet.of(SummaryJob.Status.PENDING, SummaryJob.Status.RUNNING);
+
+    private final NoteRepository noteRepository;
+    private final NoteSummaryRepository noteSummaryRepository;
+    private final SummaryJobRepository summaryJobRepository;
+    private final AIService aiService;
+    private final SummaryPromptPacker packer;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "summary-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Long> cancelRequested = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.ai.summary.page-size:200}")
+    private int pageSize;
+
+    @Value("${app.ai.summary.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.ai.summary.max-range-days:366}")
+    private long maxRangeDays;
+
+    public NoteSummaryJobService(NoteRepository noteRepository,
+                                 NoteSummaryRepository noteSummaryRepository,
+                                 SummaryJobRepository summaryJobRepository,
+                                 AIService aiService,
+                                 @Value("${app.ai.summary.prompt-token-budget:3000}") int tokenBudget,
+                                 @Value("${app.ai.summary.max-notes-per-prompt:25}") int maxNotesPerPrompt,
+                                 @Value("${app.ai.summary.max-note-chars:4000}") int maxNoteChars) {
+        this.noteRepository = noteRepository;
+        this.noteSummaryRepository = noteSummaryRepository;
+        this.summaryJobRepository = summaryJobRepository;
+        this.aiService = aiService;
+        this.packer = new SummaryPromptPacker(tokenBudget, maxNotesPerPrompt, maxNoteChars);
+    }
+
+    /**
+     * Создание и запуск задания для заметок с датами в [from, to]
+     */
+    public SummaryJob startJob(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new ValidationException("Некорректный период: начало должно быть не позже конца");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new ValidationException("Период не может быть длиннее " + maxRangeDays + " дней");
+        }
+        SummaryJob job = new SummaryJob(from, to);
+        job.setTotalNotes(noteRepository.countByDateBetween(from, to));
+        SummaryJob saved = summaryJobRepository.save(job);
+        logger.info("Создано задание резюмирования {}: период {} - {}, заметок {}",
+                saved.getId(), from, to, saved.getTotalNotes());
+        executor.submit(() -> run(saved.getId()));
+        return saved;
+    }
+
+    public SummaryJob getJob(Long id) {
+        return summaryJobRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Задание резюмирования", id));
+    }
+
+    /**
+     * Запрос остановки: задание остановится перед следующей страницей заметок
+     */
+    public SummaryJob cancelJob(Long id) {
+        SummaryJob job = getJob(id);
+        if (!job.isFinished()) {
+            cancelRequested.add(id);
+        }
+        return job;
+    }
+
+    public List<NoteSummary> findSummaries(LocalDate from, LocalDate to) {
+        return noteSummaryRepository.findForNotesBetween(from, to);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        for (SummaryJob job : summaryJobRepository.findByStatusInOrderByIdAsc(UNFINISHED)) {
+            logger.info("Продолжаем задание резюмирования {} с заметки ID > {}", job.getId(), job.getLastNoteId());
+            executor.submit(() -> run(job.getId()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void run(Long jobId) {
+        SummaryJob job = summaryJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+        job.setStatus(SummaryJob.Status.RUNNING);
+        save(job);
+        try {
+            while (true) {
+                if (cancelRequested.remove(jobId) || Thread.currentThread().isInterrupted()) {
+                    job.setStatus(SummaryJob.Status.CANCELLED);
+                    save(job);
+                    logger.info("Задание резюмирования {} остановлено", jobId);
+                    return;
+                }
+                List<Note> page = noteRepository.findByDateBetweenAndIdGreaterThanOrderByIdAsc(
+                        job.getFromDate(), job.getToDate(), job.getLastNoteId(), PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    job.setStatus(SummaryJob.Status.COMPLETED);
+                    save(job);
+                    logger.info("Задание резюмирования {} завершено: резюме {}, пропущено {}, ошибок {}, промптов {}",
+                            jobId, job.getSummarizedNotes(), job.getSkippedNotes(), job.getFailedNotes(),
+                            job.getPromptsSent());
+                    return;
+                }
+                processPage(job, page);
+                // Контрольная точка: следующая итерация (или перезапуск) начнет после этой страницы
+                job.setLastNoteId(page.get(page.size() - 1).getId());
+                save(job);
+            }
+        } catch (Exception e) {
+            logger.error("Ошибка задания резюмирования {}", jobId, e);
+            job.setStatus(SummaryJob.Status.FAILED);
+            job.setLastError(abbreviate(e.getMessage()));
+            save(job);
+        }
+    }
+
+    private void processPage(SummaryJob job, List<Note> page) {
+        Map<Long, NoteSummary> existing = noteSummaryRepository
+                .findByNoteIdIn(page.stream().map(Note::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(NoteSummary::getNoteId, Function.identity()));
+
+        Map<Long, String> hashes = new HashMap<>();
+        List<Note> pending = new ArrayList<>();
+        for (Note note : page) {
+            String hash = contentHash(note);
+            NoteSummary summary = existing.get(note.getId());
+            if (summary != null && hash.equals(summary.getContentHash())) {
+                job.setSkippedNotes(job.getSkippedNotes() + 1);
+            } else {
+                hashes.put(note.getId(), hash);
+                pending.add(note);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<SummaryPromptPacker.Batch> batches = packer.pack(pending);
+        List<BatchResult> results = Flux.fromIterable(batches)
+                .flatMap(this::summarize, Math.max(1, parallelism))
+                .collectList()
+                .block();
+
+        List<NoteSummary> toSave = new ArrayList<>();
+        for (BatchResult result : results) {
+            if (result.error() != null) {
+                job.setLastError(abbreviate(result.error()));
+            }
+            for (SummaryPromptPacker.NoteInput note : result.batch().notes()) {
+                String text = result.summaries().get(note.noteId());
+                if (text == null) {
+                    job.setFailedNotes(job.getFailedNotes() + 1);
+                    continue;
+                }
+                NoteSummary summary = existing.get(note.noteId());
+                if (summary == null) {
+                    summary = new NoteSummary(note.noteId(), hashes.get(note.noteId()), text, aiService.getModel());
+                } else {
+                    summary.setContentHash(hashes.get(note.noteId()));
+                    summary.setSummary(text);
+                    summary.setModel(aiService.getModel());
+                    summary.setCreatedAt(LocalDateTime.now());
+                }
+                toSave.add(summary);
+            }
+        }
+        noteSummaryRepository.saveAll(toSave);
+        job.setSummarizedNotes(job.getSummarizedNotes() + toSave.size());
+        job.setPromptsSent(job.getPromptsSent() + batches.size());
+    }
+
+    /**
+     * Один промпт. Переполнение общего пула AI - повод подождать и повторить,
+     * остальные ошибки учитываются в задании, и заметки пачки считаются необработанными.
+     */
+    private Mono<BatchResult> summarize(SummaryPromptPacker.Batch batch) {
+        return Mono.defer(() -> aiService.summarizeNotesBatch(packer.render(batch), packer.responseTokens(batch)))
+                .retryWhen(Retry.backoff(5, Duration.ofSeconds(1))
+                        .filter(AiCapacityExceededException.class::isInstance))
+                .map(response -> toResult(batch, response))
+                .onErrorResume(e -> Mono.just(new BatchResult(batch, Map.of(), e.getMessage())));
+    }
+
+    private static BatchResult toResult(SummaryPromptPacker.Batch batch, AIResponse response) {
+        if (!response.isSuccess()) {
+            return new BatchResult(batch, Map.of(), response.getError());
+        }
+        Map<Long, String> summaries = SummaryPromptPacker.parse(response.getContent());
+        String error = summaries.size() < batch.notes().size()
+                ? "Модель вернула резюме не для всех заметок пачки" : null;
+        return new BatchResult(batch, summaries, error);
+    }
+
+    private void save(SummaryJob job) {
+        job.setUpdatedAt(LocalDateTime.now());
+        summaryJobRepository.save(job);
+    }
+
+    static String contentHash(Note note) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(note.getTitle()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(note.getContent()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private static String abbreviate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    private record BatchResult(SummaryPromptPacker.Batch batch, Map<Long, String> summaries, String error) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.NoteVersionRow;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.exception.EntityNotFoundException;
+import com.example.dailynotes.repository.NoteRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Версии заметок и дней для ETag REST API (условные GET с If-None-Match).
+ *
+ * Версия заметки - столбец Note.version, он растет при каждом изменении.
+ * Версия дня - сумма 64-битных хэшей пар (id, version) заметок дня: меняется при создании,
+ * изменении и удалении заметки и при переносе ее на другой день. Сумма не зависит
+ * от порядка, поэтому одинаково считается по строкам БД и по закэшированному списку дня.
+ *
+ * Версии лежат в своих кэшах (noteVersions, noteDateVersions) отдельно от заметок:
+ * ответ 304 не читает ни БД, ни закэшированные заметки. Кэши версий сбрасывает
+ * NoteCacheService после коммита записи (в режиме event - NoteCacheMaintainer по событию).
+ */
+@Service
+public class NoteVersionService {
+
+    private final NoteRepository noteRepository;
+    private final CacheManager cacheManager;
+
+    public NoteVersionService(NoteRepository noteRepository, CacheManager cacheManager) {
+        this.noteRepository = noteRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * ETag заметки по закэшированной версии, при промахе - одним запросом версии
+     */
+    public String noteETag(Long id) {
+        Cache cache = cacheManager.getCache(NoteCacheService.NOTE_VERSIONS_CACHE);
+        String version = cache != null ? cache.get(id, String.class) : null;
+        if (version == null) {
+            version = Long.toString(noteRepository.findVersionById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Заметка", id)));
+            if (cache != null) {
+                cache.put(id, version);
+            }
+        }
+        return noteETag(id, version);
+    }
+
+    /**
+     * ETag списка заметок дня
+     */
+    public String dateETag(LocalDate date) {
+        return dateETag(date, dateVersions(date, date)[0]);
+    }
+
+    /**
+     * ETag заметок за период: свертка версий всех дней периода по порядку
+     */
+    public String rangeETag(LocalDate from, LocalDate to) {
+        long hash = 0;
+        for (long version : dateVersions(from, to)) {
+            hash = mix(hash + version);
+        }
+        return "\"r" + from + "." + to + "." + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * ETag отданной заметки - совпадает с noteETag(id), пока версия в кэше не изменилась
+     */
+    public static String noteETag(Note note) {
+        return noteETag(note.getId(), Long.toString(note.getVersion()));
+    }
+
+    /**
+     * ETag отданного списка заметок дня - совпадает с dateETag(date) для тех же заметок
+     */
+    public static String dateETag(LocalDate date, Collection<Note> notes) {
+        long version = 0;
+        for (Note note : notes) {
+            version += noteHash(note.getId(), note.getVersion());
+        }
+        return dateETag(date, version);
+    }
+
+    /**
+     * Версии дней периода по порядку. Дни, которых нет в кэше, читаются одним запросом
+     * по отрезку от первого до последнего такого дня; дни без заметок получают версию 0.
+     */
+    private long[] dateVersions(LocalDate from, LocalDate to) {
+        Cache cache = cacheManager.getCache(NoteCacheService.NOTE_DATE_VERSIONS_CACHE);
+        long[] versions = new long[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        boolean[] missing = new boolean[versions.length];
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (int i = 0; i < versions.length; i++) {
+            LocalDate date = from.plusDays(i);
+            String cached = cache != null ? cache.get(date, String.class) : null;
+            if (cached != null) {
+                versions[i] = Long.parseUnsignedLong(cached, 16);
+                continue;
+            }
+            missing[i] = true;
+            if (firstMissing == null) {
+                firstMissing = date;
+            }
+            lastMissing = date;
+        }
+        if (firstMissing == null) {
+            return versions;
+        }
+
+        Map<LocalDate, Long> loaded = new HashMap<>();
+        for (NoteVersionRow row : noteRepository.findVersionsBetween(firstMissing, lastMissing)) {
+            loaded.merge(row.getDate(), noteHash(row.getId(), row.getVersion()), Long::sum);
+        }
+        for (int i = 0; i < versions.length; i++) {
+            if (missing[i]) {
+                LocalDate date = from.plusDays(i);
+                versions[i] = loaded.getOrDefault(date, 0L);
+                if (cache != null) {
+                    cache.put(date, Long.toHexString(versions[i]));
+                }
+            }
+        }
+        return versions;
+    }
+
+    private static String noteETag(Long id, String version) {
+        return "\"n" + id + "." + version + "\"";
+    }
+
+    private static String dateETag(LocalDate date, long version) {
+        return "\"d" + date + "." + Long.toHexString(version) + "\"";
+    }
+
+    private static long noteHash(Long id, long version) {
+        return mix(mix(id != null ? id : 0) + version);
+    }
+
+    /**
+     * Перемешивание битов из SplitMix64: соседние id и версии дают несвязанные хэши
+     */
+    private static long mix(long value) {
+        long z = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
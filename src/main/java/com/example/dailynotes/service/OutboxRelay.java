@@ -0,0 +1,198 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.OutboxStatus;
+import com.example.dailynotes.entity.OutboxCursor;
+import com.example.dailynotes.entity.OutboxEvent;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.repository.OutboxCursorRepository;
+import com.example.dailynotes.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая отправка событий из outbox в Kafka.
+ *
+ * Каждая итерация идет в три шага, и ни один из них не держит транзакцию или блокировку,
+ * пока ждет Kafka:
+ * 1. Короткая транзакция под блокировкой строки outbox_cursor берет пачку записей в статусе
+ *    PENDING (и SENDING, взятые слишком давно) и помечает их SENDING.
+ * 2. События отправляются все сразу без ожидания (Kafka producer сам объединяет их в batch),
+ *    затем relay ждет подтверждений.
+ * 3. Вторая короткая транзакция удаляет ровно подтвержденные записи, неподтвержденные
+ *    возвращает в PENDING, а нечитаемые откладывает в FAILED, чтобы они не останавливали очередь.
+ *
+ * Ожидающие записи ищутся по статусу, а не по курсору: транзакция, получившая меньший ID
+ * и закоммитившая его позже, не будет пропущена. Курсор хранит только ID последнего
+ * подтвержденного события для статуса. Запись SENDING, которую relay не завершил (упал узел),
+ * снова берется в работу через два send-timeout-seconds.
+ *
+ * Гарантия - at-least-once: неподтвержденное событие будет отправлено повторно, порядок
+ * повторов восстанавливает consumer по версии заметки (NoteEventSequencer).
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCursorRepository outboxCursorRepository;
+    private final OutboxService outboxService;
+    private final KafkaProducerService kafkaProducerService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong sentTotal = new AtomicLong();
+    private volatile String lastError;
+
+    @Value("${app.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.relay.send-timeout-seconds:30}")
+    private long sendTimeoutSeconds;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxCursorRepository outboxCursorRepository,
+                       OutboxService outboxService,
+                       KafkaProducerService kafkaProducerService,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxCursorRepository = outboxCursorRepository;
+        this.outboxService = outboxService;
+        this.kafkaProducerService = kafkaProducerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:500}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Пока пачки полные и отправляются целиком - продолжаем, чтобы быстро разгрести хвост
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == batchSize);
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Ошибка при отправке событий из outbox", e);
+        }
+    }
+
+    /**
+     * Отправка одной пачки. Возвращает количество подтвержденных Kafka событий.
+     */
+    int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> published = new ArrayList<>(batch.size());
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        List<Long> unreadable = new ArrayList<>();
+        List<Long> unsent = new ArrayList<>();
+        for (OutboxEvent outboxEvent : batch) {
+            NoteEvent event;
+            try {
+                event = outboxService.readEvent(outboxEvent);
+            } catch (IllegalStateException e) {
+                lastError = e.getMessage();
+                logger.error("Событие outbox с ID {} не читается и отложено в FAILED", outboxEvent.getId(), e);
+                unreadable.add(outboxEvent.getId());
+                continue;
+            }
+            try {
+                futures.add(kafkaProducerService.publish(event));
+                published.add(outboxEvent);
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                logger.warn("Не удалось отправить событие outbox с ID {}, повтор на следующей итерации: {}",
+                        outboxEvent.getId(), e.getMessage());
+                unsent.add(outboxEvent.getId());
+            }
+        }
+
+        // Подтверждения ждем вне транзакции: общий срок на пачку, а не на каждое событие
+        List<Long> acked = new ArrayList<>(published.size());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+        for (int i = 0; i < published.size(); i++) {
+            Long id = published.get(i).getId();
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acked.add(id);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                unsent.add(id);
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                logger.warn("Не удалось отправить событие outbox с ID {}, повтор на следующей итерации: {}",
+                        id, e.getMessage());
+                unsent.add(id);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> complete(acked, unsent, unreadable));
+        sentTotal.addAndGet(acked.size());
+        logger.debug("Из outbox отправлено {} событий, повтор {}, отложено {}",
+                acked.size(), unsent.size(), unreadable.size());
+        return acked.size();
+    }
+
+    /**
+     * Берет пачку в работу. Блокировка строки курсора не дает двум узлам взять одни и те же записи
+     * и держится только до коммита этой транзакции.
+     */
+    private List<OutboxEvent> claimBatch() {
+        outboxCursorRepository.findForUpdate(OutboxService.RELAY_CURSOR)
+                .orElseGet(() -> outboxCursorRepository.save(new OutboxCursor(OutboxService.RELAY_CURSOR)));
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.findReadyToSend(
+                now.minusSeconds(sendTimeoutSeconds * 2), PageRequest.of(0, batchSize));
+        if (!batch.isEmpty()) {
+            outboxEventRepository.updateStatus(batch.stream().map(OutboxEvent::getId).toList(),
+                    OutboxEvent.STATUS_SENDING, now);
+        }
+        return batch;
+    }
+
+    private void complete(List<Long> acked, List<Long> unsent, List<Long> unreadable) {
+        if (!acked.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(acked);
+            outboxCursorRepository.findById(OutboxService.RELAY_CURSOR).ifPresent(cursor -> {
+                cursor.setLastSentId(Math.max(cursor.getLastSentId(), Collections.max(acked)));
+                cursor.setUpdatedAt(LocalDateTime.now());
+            });
+        }
+        if (!unsent.isEmpty()) {
+            outboxEventRepository.updateStatus(unsent, OutboxEvent.STATUS_PENDING, null);
+        }
+        if (!unreadable.isEmpty()) {
+            outboxEventRepository.updateStatus(unreadable, OutboxEvent.STATUS_FAILED, null);
+        }
+    }
+
+    public OutboxStatus getStatus() {
+        OutboxStatus status = outboxService.getStatus();
+        status.setSentTotal(sentTotal.get());
+        status.setLastError(lastError);
+        return status;
+    }
+}
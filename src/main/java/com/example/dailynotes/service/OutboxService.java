@@ -0,0 +1,84 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.dto.OutboxStatus;
+import com.example.dailynotes.entity.OutboxCursor;
+import com.example.dailynotes.entity.OutboxEvent;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.repository.OutboxCursorRepository;
+import com.example.dailynotes.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox для событий заметок.
+ *
+ * Событие записывается в таблицу outbox_events в той же транзакции, что и
+ * изменение заметки, поэтому оно не теряется при недоступном Kafka и не
+ * добавляет задержку брокера к HTTP-запросу. Отправкой занимается OutboxRelay.
+ */
+@Service
+public class OutboxService {
+
+    public static final String RELAY_CURSOR = "note-events";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCursorRepository outboxCursorRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         OutboxCursorRepository outboxCursorRepository,
+                         ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxCursorRepository = outboxCursorRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Сохранение события в outbox. Вызывается внутри транзакции изменения заметки.
+     */
+    @Transactional
+    public void append(NoteEvent event) {
+        outboxEventRepository.save(new OutboxEvent(event.getNoteId(), event.getEventType().name(), toJson(event)));
+    }
+
+    public NoteEvent readEvent(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), NoteEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать событие outbox с ID " + outboxEvent.getId(), e);
+        }
+    }
+
+    /**
+     * Размер очереди неотправленных событий, возраст самого старого из них
+     * и число отложенных нечитаемых событий.
+     */
+    @Transactional(readOnly = true)
+    public OutboxStatus getStatus() {
+        long lastSentId = outboxCursorRepository.findById(RELAY_CURSOR)
+                .map(OutboxCursor::getLastSentId)
+                .orElse(0L);
+        List<String> unsent = List.of(OutboxEvent.STATUS_PENDING, OutboxEvent.STATUS_SENDING);
+        long backlog = outboxEventRepository.countByStatusIn(unsent);
+        long oldestAgeMillis = outboxEventRepository.findFirstByStatusInOrderByIdAsc(unsent)
+                .map(event -> Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis())
+                .orElse(0L);
+        OutboxStatus status = new OutboxStatus(backlog, oldestAgeMillis, lastSentId);
+        status.setFailed(outboxEventRepository.countByStatus(OutboxEvent.STATUS_FAILED));
+        return status;
+    }
+
+    private String toJson(NoteEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие " + event, e);
+        }
+    }
+}
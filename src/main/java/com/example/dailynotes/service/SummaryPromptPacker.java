@@ -0,0 +1,134 @@
+package com.example.dailynotes.service;
+
+import com.example.dailynotes.entity.Note;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Упаковка нескольких заметок в один промпт для пакетного резюмирования.
+ *
+ * Заметки добавляются в промпт, пока оценка его размера не превысит бюджет токенов
+ * или число заметок не достигнет лимита. Слишком длинная заметка обрезается так,
+ * чтобы поместиться в бюджет одна. Модель отвечает JSON-массивом {id, summary}.
+ *
+ * Токены оцениваются грубо, по длине текста: точный токенизатор здесь не нужен,
+ * бюджет задается с запасом относительно контекста модели.
+ */
+public class SummaryPromptPacker {
+
+    static final String INSTRUCTION =
+            "Составь краткое резюме (1-2 предложения) для каждой заметки ниже. "
+            + "Ответь только JSON-массивом вида [{\"id\": <id заметки>, \"summary\": \"<резюме>\"}] без пояснений.\n\n";
+
+    private static final int CHARS_PER_TOKEN = 3;
+    private static final int NOTE_HEADER_TOKENS = 8;
+    private static final int RESPONSE_TOKENS_PER_NOTE = 80;
+    private static final int MAX_RESPONSE_TOKENS = 2000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int tokenBudget;
+    private final int maxNotesPerPrompt;
+    private final int maxNoteChars;
+
+    public SummaryPromptPacker(int tokenBudget, int maxNotesPerPrompt, int maxNoteChars) {
+        this.tokenBudget = Math.max(tokenBudget, estimateTokens(INSTRUCTION) + 100);
+        this.maxNotesPerPrompt = Math.max(1, maxNotesPerPrompt);
+        this.maxNoteChars = Math.max(100, maxNoteChars);
+    }
+
+    public record NoteInput(Long noteId, String text) {
+    }
+
+    public record Batch(List<NoteInput> notes, int estimatedTokens) {
+    }
+
+    public List<Batch> pack(List<Note> notes) {
+        int instructionTokens = estimateTokens(INSTRUCTION);
+        int noteBudget = tokenBudget - instructionTokens - NOTE_HEADER_TOKENS;
+
+        List<Batch> batches = new ArrayList<>();
+        List<NoteInput> current = new ArrayList<>();
+        int currentTokens = instructionTokens;
+        for (Note note : notes) {
+            // Запас в пару токенов на округление оценки и знак обрезки
+            String text = truncate(noteText(note), Math.min(maxNoteChars, (noteBudget - 2) * CHARS_PER_TOKEN));
+            int tokens = estimateTokens(text) + NOTE_HEADER_TOKENS;
+            if (!current.isEmpty()
+                    && (currentTokens + tokens > tokenBudget || current.size() >= maxNotesPerPrompt)) {
+                batches.add(new Batch(current, currentTokens));
+                current = new ArrayList<>();
+                currentTokens = instructionTokens;
+            }
+            current.add(new NoteInput(note.getId(), text));
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(new Batch(current, currentTokens));
+        }
+        return batches;
+    }
+
+    public String render(Batch batch) {
+        StringBuilder prompt = new StringBuilder(batch.estimatedTokens() * CHARS_PER_TOKEN + 64);
+        prompt.append(INSTRUCTION);
+        for (NoteInput note : batch.notes()) {
+            prompt.append("### id=").append(note.noteId()).append('\n')
+                    .append(note.text()).append("\n\n");
+        }
+        return prompt.toString();
+    }
+
+    public int responseTokens(Batch batch) {
+        return Math.min(MAX_RESPONSE_TOKENS, batch.notes().size() * RESPONSE_TOKENS_PER_NOTE);
+    }
+
+    /**
+     * Разбор ответа модели: JSON-массив, возможно окруженный текстом или markdown-блоком.
+     * Элементы без id или summary пропускаются.
+     */
+    public static Map<Long, String> parse(String content) {
+        Map<Long, String> result = new HashMap<>();
+        if (content == null) {
+            return result;
+        }
+        int start = content.indexOf('[');
+        int end = content.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            return result;
+        }
+        try {
+            JsonNode array = MAPPER.readTree(content.substring(start, end + 1));
+            for (JsonNode item : array) {
+                // id бывает и числом, и строкой
+                long id = item.path("id").asLong(-1);
+                String summary = item.path("summary").asText("").trim();
+                if (id > 0 && !summary.isEmpty()) {
+                    result.put(id, summary);
+                }
+            }
+        } catch (Exception e) {
+            // Некорректный JSON: все заметки пачки будут учтены как необработанные
+        }
+        return result;
+    }
+
+    static int estimateTokens(String text) {
+        return text.length() / CHARS_PER_TOKEN + 1;
+    }
+
+    private static String noteText(Note note) {
+        String title = note.getTitle() == null ? "" : note.getTitle();
+        String content = note.getContent() == null ? "" : note.getContent();
+        return title + "\n" + content;
+    }
+
+    private static String truncate(String text, int maxChars) {
+        return text.length() <= maxChars ? text : text.substring(0, maxChars) + "…";
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.dailynotes.service;
 
+import com.example.dailynotes.dto.TaskOption;
 import com.example.dailynotes.entity.Task;
 import com.example.dailynotes.repository.TaskRepository;
 import org.springframework.stereotype.Service;
@@ -29,6 +30,17 @@ public class TaskService {
         return taskRepository.findAll();
     }
 
+    // Список задач для выбора в форме плана: только id и название
+    @Transactional(readOnly = true)
+    public List<TaskOption> getTaskOptions(){
+        return taskRepository.findAllOptions();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasTasks(){
+        return taskRepository.count() > 0;
+    }
+
     // Получить шаблонные задачи для автозаполнения
     public List<Task> getTemplateTasksForMonth(){
         return taskRepository.findAll()
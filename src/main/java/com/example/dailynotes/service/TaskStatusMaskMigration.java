@@ -0,0 +1,83 @@
+package com.example.dailynotes.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перенос статусов по дням из старых таблиц @ElementCollection в битовые маски.
+ *
+ * Раньше статусы MonthlyTask/WeeklyTask хранились строками (task_id, day, status)
+ * в таблицах *_status_per_day. Теперь это одна колонка status_mask в самой задаче.
+ * При старте, если старая таблица еще есть, выполненные дни переносятся в маску
+ * (OR с текущим значением, поэтому повторный запуск безопасен), а таблица удаляется.
+ */
+@Component
+public class TaskStatusMaskMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskStatusMaskMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public TaskStatusMaskMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        migrateTable("monthly_task_status_per_day", "monthly_task_id", "monthly_task", 31);
+        migrateTable("weekly_task_status_per_day", "weekly_task_id", "weekly_task", 7);
+    }
+
+    /**
+     * Перенос одной таблицы. Возвращает количество обновленных задач.
+     */
+    int migrateTable(String legacyTable, String taskIdColumn, String taskTable, int maxDay) {
+        if (!tableExists(legacyTable)) {
+            return 0;
+        }
+        Integer migrated = transactionTemplate.execute(status -> {
+            Map<Long, Integer> masks = new HashMap<>();
+            jdbcTemplate.query(
+                    "select " + taskIdColumn + ", status_per_day_key from " + legacyTable
+                            + " where status_per_day = true",
+                    rs -> {
+                        int day = rs.getInt(2);
+                        if (day >= 1 && day <= maxDay) {
+                            masks.merge(rs.getLong(1), 1 << (day - 1), (a, b) -> a | b);
+                        }
+                    });
+
+            List<Object[]> updates = new ArrayList<>(masks.size());
+            masks.forEach((id, mask) -> updates.add(new Object[]{mask, id}));
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                        "update " + taskTable + " set status_mask = bitor(status_mask, cast(? as integer)) where id = ?",
+                        updates);
+            }
+            jdbcTemplate.execute("drop table " + legacyTable);
+            return updates.size();
+        });
+        logger.info("Статусы по дням из {} перенесены в {}.status_mask: задач={}", legacyTable, taskTable, migrated);
+        return migrated == null ? 0 : migrated;
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where lower(table_name) = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.dailynotes.service;
 
+import com.example.dailynotes.config.HttpClientConnectorFactory;
 import com.example.dailynotes.entity.Task;
 import com.example.dailynotes.repository.TaskRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -28,13 +30,16 @@ public class TaskTemplateService {
      * Причина использования WebClient.Builder:
      * - Позволяет настроить таймауты и обработку ошибок
      * - Более гибкая конфигурация по сравнению с прямым созданием WebClient
+     *
+     * Соединения берутся из отдельного пула "task-templates" (см. {@link HttpClientConnectorFactory}).
      */
-    public TaskTemplateService(WebClient.Builder webClientBuilder, TaskRepository taskRepository){
+    public TaskTemplateService(WebClient.Builder webClientBuilder, TaskRepository taskRepository,
+                               HttpClientConnectorFactory connectorFactory,
+                               @Value("${app.task-templates.url:http://localhost:8081}") String baseUrl,
+                               @Value("${app.http.client.task-templates.max-connections:8}") int maxConnections){
         this.taskRepository = taskRepository;
-        // Настройка WebClient с таймаутами для предотвращения зависаний
-        this.webClient = webClientBuilder
-                .baseUrl("http://localhost:8081")
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB буфер
+        // Настройка WebClient с пулом соединений и таймаутами для предотвращения зависаний
+        this.webClient = connectorFactory.configure(webClientBuilder, "task-templates", baseUrl, maxConnections)
                 .build();
     }
 
@@ -66,8 +71,10 @@ public class TaskTemplateService {
      * 2. Обработка различных типов ошибок (сеть, таймаут, сервер)
      * 3. Задачи сохраняются в БД перед возвратом
      * 4. Логирование для отладки
+     *
+     * Метод намеренно не транзакционный: ожидание AI (до 30 секунд) не должно держать
+     * соединение из пула БД. Задачи сохраняются одной транзакцией saveAll после ответа.
      */
-    @Transactional
     public List<Task> generateAiMonthlyTasks(String prompt){
         logger.info("Генерация задач через AI с промптом: {}", prompt);
         
@@ -89,17 +96,13 @@ public class TaskTemplateService {
             ObjectMapper mapper = new ObjectMapper();
             List<Task> tasks = mapper.readValue(response, new TypeReference<List<Task>>(){});
             
-            // Сохраняем задачи в БД
-            List<Task> savedTasks = new ArrayList<>();
+            // Убеждаемся, что категория установлена, и сохраняем задачи в БД
             for (Task task : tasks) {
-                // Убеждаемся, что категория установлена
                 if (task.getCategory() == null || task.getCategory().isBlank()) {
                     task.setCategory("AI");
                 }
-                Task saved = taskRepository.save(task);
-                savedTasks.add(saved);
-                logger.debug("Сохранена AI задача: ID={}, title={}", saved.getId(), saved.getTitle());
             }
+            List<Task> savedTasks = taskRepository.saveAll(tasks);
             
             logger.info("Создано {} задач через AI", savedTasks.size());
             return savedTasks;
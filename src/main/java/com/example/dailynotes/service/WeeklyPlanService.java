@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,21 +47,34 @@ public class WeeklyPlanService {
         weeklyPlan.setWeekNumber(weekNumber);
         weeklyPlanRepository.save(weeklyPlan);
 
+        // Все задачи одним запросом, вставки задач плана уходят пачками при flush
+        Map<Long, Task> tasksById = findTasks(taskIds);
+        List<WeeklyTask> weeklyTasks = new ArrayList<>(taskIds.size());
         for(Long id : taskIds){
-            Task task = taskRepository.findById(id)
-                    .orElseThrow(() -> new EntityNotFoundException("Задача", id));
             WeeklyTask weeklyTask = new WeeklyTask();
-            weeklyTask.setTask(task);
+            weeklyTask.setTask(tasksById.get(id));
             weeklyTask.setWeeklyPlan(weeklyPlan);
-            weeklyTask.setStatusPerDay(new HashMap<>());
-            weeklyTaskRepository.save(weeklyTask);
+            weeklyTasks.add(weeklyTask);
         }
+        weeklyTaskRepository.saveAll(weeklyTasks);
+        weeklyPlan.setTasks(weeklyTasks);
+        logger.info("Недельный план создан с ID: {}", weeklyPlan.getId());
+        return weeklyPlan;
+    }
 
-        weeklyPlan.setTasks(weeklyTaskRepository.findByWeeklyPlanId(weeklyPlan.getId()));
-        WeeklyPlan saved = weeklyPlanRepository.save(weeklyPlan);
-        logger.info("Недельный план создан с ID: {}", saved.getId());
-        return saved;
+    private Map<Long, Task> findTasks(List<Long> taskIds){
+        Map<Long, Task> tasksById = new HashMap<>();
+        for (Task task : taskRepository.findAllById(taskIds)) {
+            tasksById.put(task.getId(), task);
+        }
+        for (Long id : taskIds) {
+            if (!tasksById.containsKey(id)) {
+                throw new EntityNotFoundException("Задача", id);
+            }
+        }
+        return tasksById;
     }
+
     @Transactional(readOnly = true)
     public List<WeeklyPlan> getWeekPlans(int weekYear,int weekNumber){
         return weeklyPlanRepository.findByWeekYearAndWeekNumber(weekYear, weekNumber);
@@ -81,15 +95,14 @@ public class WeeklyPlanService {
         }
         
         logger.debug("Обновление статуса задачи недели: weeklyTaskId={}, day={}, status={}", weeklyTaskId, dayOfWeek, status);
-        WeeklyTask weeklyTask = weeklyTaskRepository.findById(weeklyTaskId)
-                .orElseThrow(() -> new EntityNotFoundException("Задача недели", weeklyTaskId));
-        Map<Integer,Boolean> map = weeklyTask.getStatusPerDay();
-        if (map == null) {
-            map = new HashMap<>();
+        // Один UPDATE бита в statusMask, без чтения задачи
+        int bit = WeeklyTask.dayBit(dayOfWeek);
+        int updated = status
+                ? weeklyTaskRepository.setDayBit(weeklyTaskId, bit)
+                : weeklyTaskRepository.clearDayBit(weeklyTaskId, ~bit);
+        if (updated == 0) {
+            throw new EntityNotFoundException("Задача недели", weeklyTaskId);
         }
-        map.put(dayOfWeek,status);
-        weeklyTask.setStatusPerDay(map);
-        weeklyTaskRepository.save(weeklyTask);
         logger.debug("Статус задачи недели обновлен");
     }
 }
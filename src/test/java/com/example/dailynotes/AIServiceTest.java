@@ -0,0 +1,229 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.config.OpenAIConfig;
+import com.example.dailynotes.dto.AIResponse;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.exception.AiCapacityExceededException;
+import com.example.dailynotes.service.AIService;
+import com.example.dailynotes.service.AiConcurrencyLimiter;
+import com.example.dailynotes.service.AiResponseCache;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AIService против локальной заглушки /chat/completions
+ */
+public class AIServiceTest {
+
+    private static final String COMPLETION = "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\" Идея 1\\nИдея 2 \"}}],"
+            + "\"usage\":{\"prompt_tokens\":42,\"completion_tokens\":7}}";
+
+    private HttpServer stub;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean holdResponses;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.createContext("/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            int now = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                if (holdResponses) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                byte[] body = COMPLETION.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        });
+        stub.createContext("/stream/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String token : new String[]{"Привет", ",\n", " мир"}) {
+                    String chunk = "{\"choices\":[{\"delta\":{\"content\":" + quote(token) + "}}]}";
+                    out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    if (holdResponses) {
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                }
+                out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // Клиент закрыл соединение
+            }
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        release.countDown();
+        stub.stop(0);
+    }
+
+    @Test
+    void generateIdeas_ShouldParseCompletion() {
+        AIService service = createService(new AiConcurrencyLimiter(2, 2, 1000));
+
+        AIResponse response = service.generateIdeas("спорт").block(Duration.ofSeconds(10));
+
+        assertNotNull(response);
+        assertTrue(response.isSuccess());
+        assertEquals("Идея 1\nИдея 2", response.getContent());
+        assertEquals(1, meterRegistry.get("dailynotes.openai.requests").tag("result", "success").timer().count());
+        assertEquals(42, meterRegistry.get("dailynotes.openai.tokens").tag("type", "prompt").counter().count());
+        assertEquals(7, meterRegistry.get("dailynotes.openai.tokens").tag("type", "completion").counter().count());
+    }
+
+    @Test
+    void saturatedPool_ShouldRejectImmediatelyAndServeQueued() {
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(1, 1, 5000);
+        AIService service = createService(limiter);
+        holdResponses = true;
+
+        var first = service.generateIdeas("первый").toFuture();
+        var queued = service.generateIdeas("второй").toFuture();
+
+        long started = System.nanoTime();
+        Mono<AIResponse> rejected = service.generateIdeas("третий");
+        assertThrows(AiCapacityExceededException.class, () -> rejected.block(Duration.ofSeconds(1)));
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1000);
+        assertEquals(1, limiter.getStatus().getQueued());
+
+        release.countDown();
+        assertTrue(first.join().isSuccess());
+        assertTrue(queued.join().isSuccess());
+        assertEquals(1, maxConcurrent.get());
+        // Разрешение возвращается в doFinally, уже после выдачи результата подписчику
+        long deadline = System.currentTimeMillis() + 1000;
+        while (limiter.getStatus().getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, limiter.getStatus().getInFlight());
+        assertEquals(1, limiter.getStatus().getRejectedTotal());
+    }
+
+    @Test
+    void repeatedNoteSummary_ShouldBeServedFromCacheUntilNoteUpdated() {
+        AiResponseCache cache = createCache();
+        AIService service = createService(new AiConcurrencyLimiter(2, 2, 1000), cache);
+
+        assertTrue(service.summarizeNote(1L, "Купить  молоко\n").block(Duration.ofSeconds(10)).isSuccess());
+        AIResponse cached = service.summarizeNote(1L, " Купить молоко").block(Duration.ofSeconds(10));
+        assertEquals("Идея 1\nИдея 2", cached.getContent());
+        assertEquals(1, requests.get());
+        // Другой шаблон с тем же текстом - другой ключ
+        service.generateTitle(1L, "Купить молоко").block(Duration.ofSeconds(10));
+        assertEquals(2, requests.get());
+
+        cache.evictForNotes(List.of(new NoteEvent(NoteEvent.EventType.UPDATED, 1L)));
+        service.summarizeNote(1L, "Купить молоко").block(Duration.ofSeconds(10));
+
+        assertEquals(3, requests.get());
+        assertEquals(1, cache.getStatus().getHits());
+        assertEquals(3, cache.getStatus().getMisses());
+        assertEquals(2, cache.getStatus().getInvalidations());
+    }
+
+    @Test
+    void streamAutocomplete_ShouldEmitChunksUntilDone() {
+        AIService service = createService(new AiConcurrencyLimiter(2, 2, 1000), "/stream");
+
+        List<String> tokens = service.streamAutocompleteText("Начало").collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("Привет", ",\n", " мир"), tokens);
+    }
+
+    @Test
+    void cancelledStream_ShouldReleasePermitBeforeUpstreamFinishes() {
+        AiConcurrencyLimiter limiter = new AiConcurrencyLimiter(1, 0, 1000);
+        AIService service = createService(limiter, "/stream");
+        holdResponses = true;
+
+        // Первый фрагмент приходит сразу, остальные заглушка держит до release
+        String first = service.streamImproveText("Текст").blockFirst(Duration.ofSeconds(5));
+
+        assertEquals("Привет", first);
+        long deadline = System.currentTimeMillis() + 1000;
+        while (limiter.getStatus().getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, limiter.getStatus().getInFlight());
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\n", "\\n") + "\"";
+    }
+
+    private AiResponseCache createCache() {
+        AiResponseCache cache = new AiResponseCache(new ConcurrentMapCacheManager(AiResponseCache.CACHE_NAME));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxResponseChars", 8000);
+        return cache;
+    }
+
+    private AIService createService(AiConcurrencyLimiter limiter) {
+        return createService(limiter, "");
+    }
+
+    private AIService createService(AiConcurrencyLimiter limiter, String basePath) {
+        AiResponseCache disabled = new AiResponseCache(new ConcurrentMapCacheManager());
+        return createService(limiter, disabled, basePath);
+    }
+
+    private AIService createService(AiConcurrencyLimiter limiter, AiResponseCache cache) {
+        return createService(limiter, cache, "");
+    }
+
+    private AIService createService(AiConcurrencyLimiter limiter, AiResponseCache cache, String basePath) {
+        OpenAIConfig config = new OpenAIConfig();
+        ReflectionTestUtils.setField(config, "apiKey", "test-key");
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + stub.getAddress().getPort() + basePath)
+                .build();
+        AIService service = new AIService(webClient, config, limiter, cache, meterRegistry);
+        ReflectionTestUtils.setField(service, "model", "gpt-test");
+        ReflectionTestUtils.setField(service, "defaultMaxTokens", 100);
+        ReflectionTestUtils.setField(service, "timeoutSeconds", 10L);
+        return service;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.dto.BackupImportResult;
+import com.example.dailynotes.entity.MonthlyPlan;
+import com.example.dailynotes.entity.MonthlyTask;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.entity.OutboxEvent;
+import com.example.dailynotes.entity.Task;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.repository.MonthlyTaskRepository;
+import com.example.dailynotes.repository.NoteRepository;
+import com.example.dailynotes.repository.OutboxEventRepository;
+import com.example.dailynotes.repository.TaskRepository;
+import com.example.dailynotes.service.DataBackupService;
+import com.example.dailynotes.service.NoteCacheService;
+import com.example.dailynotes.service.OutboxService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({DataBackupService.class, OutboxService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class DataBackupServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataBackupService dataBackupService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private MonthlyTaskRepository monthlyTaskRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @MockitoBean
+    private NoteCacheService noteCacheService;
+
+    @Test
+    void exportThenImport_ShouldCopyNotesAndPlansWithOneBulkEvent() throws Exception {
+        Task task = new Task();
+        task.setTitle("Зарядка");
+        task.setCategory("Шаблон");
+        entityManager.persist(task);
+        MonthlyPlan plan = new MonthlyPlan();
+        plan.setPlanYear(2025);
+        plan.setPlanMonth(3);
+        entityManager.persist(plan);
+        MonthlyTask monthlyTask = new MonthlyTask();
+        monthlyTask.setTask(task);
+        monthlyTask.setMonthlyPlan(plan);
+        monthlyTask.setCompletedOn(3, true);
+        entityManager.persist(monthlyTask);
+        entityManager.persist(new Note("Первая", "Текст", LocalDate.of(2025, 1, 1), 50.0));
+        entityManager.persist(new Note("Вторая", "Текст", LocalDate.of(2025, 1, 5), 60.0));
+        entityManager.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dataBackupService.exportTo(out);
+        String backup = out.toString(StandardCharsets.UTF_8);
+        BackupImportResult result = dataBackupService.importFrom(new ByteArrayInputStream(out.toByteArray()));
+        entityManager.clear();
+
+        assertThat(backup.lines()).hasSize(6).first().asString().contains("\"type\":\"header\"");
+        assertThat(result.getNotes()).isEqualTo(2);
+        assertThat(result.getMonthlyPlans()).isEqualTo(1);
+        assertThat(result.getMonthlyTasks()).isEqualTo(1);
+        assertThat(noteRepository.count()).isEqualTo(4);
+        // Задача сопоставлена по названию и категории, а не скопирована
+        assertThat(taskRepository.count()).isEqualTo(1);
+        List<MonthlyTask> tasks = monthlyTaskRepository.findAll();
+        assertThat(tasks).hasSize(2).allMatch(t -> t.isCompletedOn(3));
+        assertThat(tasks.get(1).getMonthlyPlan().getId()).isNotEqualTo(plan.getId());
+
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertThat(events).extracting(OutboxEvent::getEventType).containsExactly("BULK_IMPORTED");
+    }
+
+    @Test
+    void importFailingMidFile_ShouldPublishBulkEventForCommittedNotes() {
+        ReflectionTestUtils.setField(dataBackupService, "batchSize", 1);
+        String backup = String.join("\n",
+                "{\"type\":\"header\",\"format\":\"dailynotes-backup\",\"version\":1}",
+                "{\"type\":\"note\",\"id\":1,\"title\":\"Первая\",\"date\":\"2025-02-03\",\"weight\":1}",
+                "{\"type\":\"note\",\"id\":2,\"title\":\"Вторая\",\"date\":\"2025-02-01\",\"weight\":1}",
+                "{\"type\":\"monthlyTask\",\"id\":1,\"planId\":99,\"taskId\":99}");
+
+        assertThatThrownBy(() -> dataBackupService.importFrom(
+                new ByteArrayInputStream(backup.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageStartingWith("Строка 4");
+
+        assertThat(noteRepository.count()).isEqualTo(2);
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertThat(events).hasSize(1);
+        NoteEvent event = outboxService.readEvent(events.get(0));
+        assertThat(event.getEventType()).isEqualTo(NoteEvent.EventType.BULK_IMPORTED);
+        assertThat(event.getImportedCount()).isEqualTo(2);
+        assertThat(event.getPreviousDate()).isEqualTo(LocalDate.of(2025, 2, 1));
+        assertThat(event.getDate()).isEqualTo(LocalDate.of(2025, 2, 3));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.config.HttpClientConnectorFactory;
+import com.example.dailynotes.dto.HttpPoolStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Нагрузочный тест пула соединений против локальной заглушки:
+ * сотни запросов должны обслуживаться ограниченным числом переиспользуемых соединений.
+ */
+@SpringJUnitConfig({HttpClientConnectorFactory.class, SimpleMeterRegistry.class})
+public class HttpClientConnectorFactoryTest {
+
+    private static final int MAX_CONNECTIONS = 10;
+    private static final int REQUESTS = 400;
+    private static final int CONCURRENCY = 50;
+
+    @Autowired
+    private HttpClientConnectorFactory connectorFactory;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private DisposableServer stub;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @BeforeEach
+    void startStub() {
+        stub = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                // doOnConnection в HttpServer вызывается на каждый запрос, а doOnChannelInit - на TCP-соединение
+                .doOnChannelInit((observer, channel, remoteAddress) -> connections.incrementAndGet())
+                .route(routes -> routes.post("/chat/completions", (request, response) ->
+                        response.header("Content-Type", "application/json")
+                                .sendString(request.receive().aggregate().asString()
+                                        .delayElement(Duration.ofMillis(5))
+                                        .map(body -> "{\"choices\":[]}"))))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.disposeNow();
+    }
+
+    @Test
+    void concurrentLoad_ShouldReuseBoundedNumberOfConnections() {
+        WebClient client = connectorFactory.configure(WebClient.builder(), "load-test",
+                "http://127.0.0.1:" + stub.port(), MAX_CONNECTIONS).build();
+
+        Long completed = runLoad(client);
+        int afterFirstWave = connections.get();
+
+        // Второй прогон идет целиком на уже открытых соединениях
+        Long completedAgain = runLoad(client);
+
+        assertEquals(REQUESTS, completed);
+        assertEquals(REQUESTS, completedAgain);
+        assertTrue(afterFirstWave <= MAX_CONNECTIONS, "открыто соединений: " + afterFirstWave);
+        assertEquals(afterFirstWave, connections.get());
+
+        List<HttpPoolStatus> pools = connectorFactory.getPoolStatus();
+        HttpPoolStatus pool = pools.stream()
+                .filter(status -> status.getPoolName().equals("load-test"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(MAX_CONNECTIONS, pool.getMaxAllocated());
+        assertEquals(0, pool.getAcquired());
+        assertEquals(afterFirstWave, pool.getIdle());
+        assertEquals(afterFirstWave, meterRegistry.get("reactor.netty.connection.provider.idle.connections")
+                .tag("name", "load-test").gauge().value());
+    }
+
+    private Long runLoad(WebClient client) {
+        return Flux.range(0, REQUESTS)
+                .flatMap(i -> client.post()
+                        .uri("/chat/completions")
+                        .bodyValue("{\"i\":" + i + "}")
+                        .retrieve()
+                        .bodyToMono(String.class), CONCURRENCY)
+                .count()
+                .block(Duration.ofSeconds(60));
+    }
+}
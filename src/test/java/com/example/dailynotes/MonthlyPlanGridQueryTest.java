@@ -0,0 +1,93 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.dto.MonthlyPlanGrid;
+import com.example.dailynotes.entity.MonthlyPlan;
+import com.example.dailynotes.entity.MonthlyTask;
+import com.example.dailynotes.entity.Task;
+import com.example.dailynotes.service.MonthlyPlanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(MonthlyPlanService.class)
+public class MonthlyPlanGridQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MonthlyPlanService monthlyPlanService;
+
+    @Test
+    public void monthlyPlanGrid_QueryCountShouldNotGrowWithTasks() {
+        MonthlyPlan small = createPlan(2);
+        createPlan(0);
+        long smallPlanQueries = countGridQueries(2);
+
+        MonthlyPlan large = createPlan(40);
+        long largePlanQueries = countGridQueries(3);
+
+        assertThat(smallPlanQueries).isEqualTo(1);
+        assertThat(largePlanQueries).isEqualTo(smallPlanQueries);
+
+        List<MonthlyPlanGrid> grid = monthlyPlanService.getMonthlyPlanGrid(2025, 3);
+        assertThat(grid.get(0).getId()).isEqualTo(small.getId());
+        assertThat(grid.get(0).getTasks()).hasSize(2);
+        assertThat(grid.get(0).getTasks().get(0).isCompletedOn(5)).isTrue();
+        assertThat(grid.get(0).getTasks().get(0).isCompletedOn(6)).isFalse();
+        assertThat(grid.get(1).getTasks()).isEmpty();
+        assertThat(grid.get(2).getId()).isEqualTo(large.getId());
+        assertThat(grid.get(2).getTasks()).hasSize(40);
+    }
+
+    private long countGridQueries(int expectedPlans) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<MonthlyPlanGrid> grid = monthlyPlanService.getMonthlyPlanGrid(2025, 3);
+        // Обращаемся ко всем полям, которые читает шаблон
+        grid.forEach(plan -> plan.getTasks().forEach(task -> {
+            task.getTaskTitle();
+            task.getTaskCategory();
+            task.isCompletedOn(1);
+        }));
+
+        assertThat(grid).hasSize(expectedPlans);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private MonthlyPlan createPlan(int taskCount) {
+        MonthlyPlan plan = new MonthlyPlan();
+        plan.setPlanYear(2025);
+        plan.setPlanMonth(3);
+        entityManager.persist(plan);
+        for (int i = 0; i < taskCount; i++) {
+            Task task = new Task();
+            task.setTitle("Задача " + i);
+            task.setCategory("monthly");
+            entityManager.persist(task);
+
+            MonthlyTask monthlyTask = new MonthlyTask();
+            monthlyTask.setTask(task);
+            monthlyTask.setMonthlyPlan(plan);
+            monthlyTask.setCompletedOn(5, true);
+            entityManager.persist(monthlyTask);
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.entity.MonthlyTask;
+import com.example.dailynotes.repository.MonthlyTaskRepository;
+import com.example.dailynotes.service.TaskStatusMaskMigration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TaskStatusMaskMigration.class)
+public class MonthlyTaskRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MonthlyTaskRepository monthlyTaskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskStatusMaskMigration migration;
+
+    @Test
+    public void setAndClearDayBit_ShouldChangeOnlyThatDay() {
+        MonthlyTask task = entityManager.persistFlushFind(new MonthlyTask());
+
+        assertThat(monthlyTaskRepository.setDayBit(task.getId(), MonthlyTask.dayBit(1))).isEqualTo(1);
+        monthlyTaskRepository.setDayBit(task.getId(), MonthlyTask.dayBit(31));
+        monthlyTaskRepository.setDayBit(task.getId(), MonthlyTask.dayBit(15));
+        monthlyTaskRepository.clearDayBit(task.getId(), ~MonthlyTask.dayBit(15));
+        entityManager.clear();
+
+        MonthlyTask found = monthlyTaskRepository.findById(task.getId()).orElseThrow();
+        assertThat(found.isCompletedOn(1)).isTrue();
+        assertThat(found.isCompletedOn(31)).isTrue();
+        assertThat(found.isCompletedOn(15)).isFalse();
+        assertThat(found.getStatusMask()).isEqualTo(1 | (1 << 30));
+        assertThat(monthlyTaskRepository.setDayBit(-1L, 1)).isZero();
+    }
+
+    @Test
+    public void legacyStatusTable_ShouldBeMergedIntoMaskAndDropped() {
+        MonthlyTask task = entityManager.persistFlushFind(new MonthlyTask());
+        jdbcTemplate.execute("create table monthly_task_status_per_day (monthly_task_id bigint not null, "
+                + "status_per_day boolean, status_per_day_key integer not null)");
+        jdbcTemplate.update("insert into monthly_task_status_per_day values (?, true, 3), (?, false, 4), (?, true, 10)",
+                task.getId(), task.getId(), task.getId());
+
+        migration.migrate();
+        entityManager.clear();
+
+        MonthlyTask found = monthlyTaskRepository.findById(task.getId()).orElseThrow();
+        assertThat(found.getStatusMask()).isEqualTo((1 << 2) | (1 << 9));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from information_schema.tables "
+                + "where lower(table_name) = 'monthly_task_status_per_day'", Integer.class)).isZero();
+    }
+}
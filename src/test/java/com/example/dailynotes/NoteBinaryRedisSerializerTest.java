@@ -0,0 +1,58 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.codec.CacheCodecs;
+import com.example.dailynotes.codec.NoteBinaryRedisSerializer;
+import com.example.dailynotes.entity.Note;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoteBinaryRedisSerializerTest {
+
+    @Test
+    void noteList_RoundTripWithCompression_ShouldKeepAllFields() {
+        NoteBinaryRedisSerializer serializer = new NoteBinaryRedisSerializer(64);
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Note note = new Note("Заметка " + i, "Одинаковое содержание заметки", LocalDate.of(2025, 5, 10), 75.5);
+            note.setId((long) i);
+            note.setCompleted(i % 2 == 0);
+            note.setVersion(i);
+            notes.add(note);
+        }
+        Note withoutContent = new Note();
+        withoutContent.setId(99L);
+        notes.add(withoutContent);
+
+        byte[] bytes = serializer.serialize(notes);
+        @SuppressWarnings("unchecked")
+        List<Note> decoded = (List<Note>) serializer.deserialize(bytes);
+
+        assertEquals(notes.size(), decoded.size());
+        assertEquals("Заметка 7", decoded.get(7).getTitle());
+        assertEquals(LocalDate.of(2025, 5, 10), decoded.get(7).getDate());
+        assertEquals(75.5, decoded.get(7).getWeight());
+        assertFalse(decoded.get(7).isCompleted());
+        assertTrue(decoded.get(8).isCompleted());
+        assertEquals(7, decoded.get(7).getVersion());
+        assertEquals(0, decoded.get(50).getVersion());
+        assertNull(decoded.get(50).getContent());
+        assertTrue(bytes.length < CacheCodecs.json().serialize(notes).length / 4);
+    }
+
+    @Test
+    void legacyJsonValue_ShouldStillBeReadable() {
+        Note note = new Note("Старая запись", "Из JSON кэша", LocalDate.of(2024, 1, 15), 10.0);
+        note.setId(5L);
+        byte[] legacy = CacheCodecs.json().serialize(note);
+
+        Note decoded = (Note) new NoteBinaryRedisSerializer(0).deserialize(legacy);
+
+        assertEquals(5L, decoded.getId());
+        assertEquals("Старая запись", decoded.getTitle());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.codec.BinaryWriter;
+import com.example.dailynotes.codec.NoteEventCodec;
+import com.example.dailynotes.codec.NoteEventDeserializer;
+import com.example.dailynotes.codec.NoteEventSerializer;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.event.NoteEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoteEventCodecTest {
+
+    private final NoteEventDeserializer deserializer = new NoteEventDeserializer();
+
+    @Test
+    void created_RoundTrip_ShouldKeepAllFields() {
+        NoteEvent event = new NoteEvent(NoteEvent.EventType.CREATED, note(42L, "Длинный текст заметки"));
+        event.setVersion(0L);
+        event.setTimestamp(LocalDateTime.of(2025, 5, 10, 8, 30, 15, 123_000_000));
+
+        NoteEvent decoded = deserializer.deserialize("note-events", NoteEventCodec.encode(event));
+
+        assertEquals(NoteEvent.EventType.CREATED, decoded.getEventType());
+        assertEquals(42L, decoded.getNoteId());
+        assertEquals(0L, decoded.getVersion());
+        assertEquals("Заметка", decoded.getTitle());
+        assertEquals("Длинный текст заметки", decoded.getContent());
+        assertEquals(LocalDate.of(2025, 5, 10), decoded.getDate());
+        assertEquals(72.5, decoded.getWeight());
+        assertTrue(decoded.isCompleted());
+        assertEquals(event.getTimestamp(), decoded.getTimestamp());
+        assertNull(decoded.getContentHash());
+    }
+
+    @Test
+    void toggledAndUnchangedUpdate_ShouldCarryHashInsteadOfContent() {
+        String content = "Текст, который не меняется ".repeat(40);
+        NoteEvent toggled = new NoteEvent(NoteEvent.EventType.TOGGLED, note(7L, content));
+        NoteEvent updated = new NoteEvent(NoteEvent.EventType.UPDATED, note(7L, content));
+        updated.setContentChanged(false);
+        updated.setPreviousWeight(70.0);
+
+        byte[] toggledBytes = NoteEventCodec.encode(toggled);
+        NoteEvent decodedToggled = deserializer.deserialize("note-events", toggledBytes);
+        NoteEvent decodedUpdated = deserializer.deserialize("note-events", NoteEventCodec.encode(updated));
+
+        assertTrue(toggledBytes.length < 100);
+        assertNull(decodedToggled.getContent());
+        assertEquals(NoteEventCodec.contentHash(content), decodedToggled.getContentHash());
+        assertNull(decodedUpdated.getContent());
+        assertEquals(70.0, decodedUpdated.getPreviousWeight());
+
+        updated.setContentChanged(true);
+        assertEquals(content, deserializer.deserialize("note-events", NoteEventCodec.encode(updated)).getContent());
+    }
+
+    @Test
+    void legacyJsonMessage_ShouldStillBeReadable() {
+        // Сообщение в формате JsonSerializer до перехода на бинарный формат
+        String json = "{\"eventType\":\"UPDATED\",\"noteId\":5,\"title\":\"Старое\",\"content\":\"Из JSON\","
+                + "\"date\":\"2024-01-15\",\"previousDate\":null,\"weight\":10.0,\"completed\":false,"
+                + "\"timestamp\":\"2024-01-15T10:00:00\",\"userId\":null}";
+
+        NoteEvent decoded = deserializer.deserialize("note-events", json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(NoteEvent.EventType.UPDATED, decoded.getEventType());
+        assertEquals("Из JSON", decoded.getContent());
+        assertNull(decoded.getVersion());
+
+        NoteEventSerializer serializer = new NoteEventSerializer();
+        serializer.configure(Map.of(NoteEventSerializer.FORMAT_CONFIG, NoteEventSerializer.FORMAT_JSON), false);
+        byte[] jsonAgain = serializer.serialize("note-events", decoded);
+        assertEquals('{', jsonAgain[0]);
+        assertEquals("Из JSON", deserializer.deserialize("note-events", jsonAgain).getContent());
+    }
+
+    @Test
+    void olderAndNewerSchemas_ShouldBeReadable() {
+        // Старая версия: только тип и ID, без version/previousWeight
+        BinaryWriter older = new BinaryWriter(16);
+        older.writeByte(NoteEventCodec.MAGIC).writeByte(NoteEventCodec.FORMAT_VERSION);
+        older.writeVarInt(1 << 3).writeVarLong(3);
+        older.writeVarInt(2 << 3).writeVarLong(9);
+        NoteEvent fromOlder = NoteEventCodec.decode(older.toByteArray());
+        assertEquals(NoteEvent.EventType.DELETED, fromOlder.getEventType());
+        assertEquals(9L, fromOlder.getNoteId());
+        assertNull(fromOlder.getVersion());
+        assertNull(fromOlder.getTimestamp());
+
+        // Новая версия: неизвестные поля всех типов пропускаются, неизвестный тип события - null
+        BinaryWriter newer = new BinaryWriter(64);
+        newer.writeByte(NoteEventCodec.MAGIC).writeByte(NoteEventCodec.FORMAT_VERSION);
+        newer.writeVarInt(2 << 3).writeVarLong(11);
+        newer.writeVarInt(100 << 3 | 2).writeString("новое поле");
+        newer.writeVarInt(101 << 3 | 1).writeFixedLong(123L);
+        newer.writeVarInt(102 << 3).writeVarLong(77);
+        newer.writeVarInt(1 << 3).writeVarLong(99);
+        NoteEvent fromNewer = NoteEventCodec.decode(newer.toByteArray());
+        assertEquals(11L, fromNewer.getNoteId());
+        assertNull(fromNewer.getEventType());
+    }
+
+    private static Note note(Long id, String content) {
+        Note note = new Note("Заметка", content, LocalDate.of(2025, 5, 10), 72.5);
+        note.setId(id);
+        note.setCompleted(true);
+        return note;
+    }
+}
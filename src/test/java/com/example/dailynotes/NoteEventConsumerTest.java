@@ -0,0 +1,96 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.consumer.NoteEventConsumer;
+import com.example.dailynotes.consumer.NoteEventSequencer;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.push.UpdateBroadcaster;
+import com.example.dailynotes.service.AiResponseCache;
+import com.example.dailynotes.service.NoteCacheMaintainer;
+import com.example.dailynotes.service.NoteStatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NoteEventConsumerTest {
+
+    private final NoteStatsService noteStatsService = mock(NoteStatsService.class);
+    private final NoteEventSequencer noteEventSequencer = mock(NoteEventSequencer.class);
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer = mock(DeadLetterPublishingRecoverer.class);
+    private final NoteEventConsumer consumer = new NoteEventConsumer(
+            deadLetterRecoverer, mock(NoteCacheMaintainer.class),
+            mock(AiResponseCache.class), noteStatsService,
+            noteEventSequencer, mock(UpdateBroadcaster.class), new SimpleMeterRegistry());
+
+    @Test
+    void failingStageInBatch_ShouldReportOnlyTheFailedRecordToErrorHandler() {
+        when(noteEventSequencer.order(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        ConsumerRecord<String, NoteEvent> first = record(0, 1L);
+        ConsumerRecord<String, NoteEvent> broken = record(1, 2L);
+        ConsumerRecord<String, NoteEvent> last = record(2, 3L);
+        // Статистика падает на любом списке, где есть запись broken
+        doThrow(new IllegalStateException("db")).when(noteStatsService).apply(
+                argThat(records -> records != null && records.contains(broken)));
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        BatchListenerFailedException failure = catchThrowableOfType(BatchListenerFailedException.class,
+                () -> consumer.consumeNoteEventBatch(List.of(first, broken, last), acknowledgment));
+
+        assertThat(failure.getRecord()).isSameAs(broken);
+        verify(noteStatsService).apply(List.of(first));
+        verify(noteStatsService, never()).apply(List.of(last));
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void failingBatchWithUnreadableRecord_ShouldDeadLetterItOnlyOnce() {
+        when(noteEventSequencer.order(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        ConsumerRecord<String, NoteEvent> unreadable = new ConsumerRecord<>("note-events", 0, 0, "1", null);
+        ConsumerRecord<String, NoteEvent> first = record(1, 2L);
+        ConsumerRecord<String, NoteEvent> broken = record(2, 3L);
+        doThrow(new IllegalStateException("db")).when(noteStatsService).apply(
+                argThat(records -> records != null && records.contains(broken)));
+
+        BatchListenerFailedException failure = catchThrowableOfType(BatchListenerFailedException.class,
+                () -> consumer.consumeNoteEventBatch(List.of(unreadable, first, broken), mock(Acknowledgment.class)));
+
+        assertThat(failure.getRecord()).isSameAs(broken);
+        verify(deadLetterRecoverer, times(1)).accept(eq(unreadable), any());
+        verify(deadLetterRecoverer, never()).accept(eq(first), any());
+        verify(noteStatsService, never()).apply(List.of(unreadable));
+    }
+
+    @Test
+    void failingSingleRecord_ShouldBeRethrownForErrorHandler() {
+        when(noteEventSequencer.order(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new IllegalStateException("db")).when(noteStatsService).apply(any());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+        NoteEvent event = new NoteEvent(NoteEvent.EventType.TOGGLED, 1L);
+
+        assertThat(catchThrowableOfType(IllegalStateException.class,
+                () -> consumer.consumeNoteEvent(event, "note-events", 0, 7L, acknowledgment))).isNotNull();
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static ConsumerRecord<String, NoteEvent> record(long offset, Long noteId) {
+        return new ConsumerRecord<>("note-events", 0, offset, String.valueOf(noteId),
+                new NoteEvent(NoteEvent.EventType.TOGGLED, noteId));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.consumer.NoteEventSequencer;
+import com.example.dailynotes.event.NoteEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(NoteEventSequencer.class)
+public class NoteEventSequencerTest {
+
+    @Autowired
+    private NoteEventSequencer sequencer;
+
+    @Test
+    void order_ShouldSortEachNoteByVersionAndDropDuplicates() {
+        List<ConsumerRecord<String, NoteEvent>> batch = List.of(
+                record(0, NoteEvent.EventType.UPDATED, 1L, 1L),
+                record(1, NoteEvent.EventType.CREATED, 2L, 0L),
+                record(2, NoteEvent.EventType.CREATED, 1L, 0L),
+                record(3, NoteEvent.EventType.UPDATED, 1L, 1L),
+                record(4, NoteEvent.EventType.BULK_IMPORTED, null, null));
+
+        List<ConsumerRecord<String, NoteEvent>> ordered = sequencer.order(batch);
+
+        assertThat(ordered).extracting(ConsumerRecord::offset).containsExactly(2L, 1L, 0L, 4L);
+        sequencer.markApplied(ordered);
+
+        // Повторная отправка relay и запоздавшее событие отбрасываются, новое проходит
+        List<ConsumerRecord<String, NoteEvent>> next = sequencer.order(List.of(
+                record(5, NoteEvent.EventType.UPDATED, 1L, 1L),
+                record(6, NoteEvent.EventType.CREATED, 2L, 0L),
+                record(7, NoteEvent.EventType.DELETED, 1L, 2L)));
+
+        assertThat(next).extracting(ConsumerRecord::offset).containsExactly(7L);
+    }
+
+    @Test
+    void markApplied_OlderBatchReprocessed_ShouldNotLowerVersion() {
+        sequencer.markApplied(List.of(record(0, NoteEvent.EventType.UPDATED, 10L, 5L)));
+        // Пачка со старой версией обработана повторно после ребаланса
+        sequencer.markApplied(List.of(
+                record(1, NoteEvent.EventType.UPDATED, 10L, 3L),
+                record(2, NoteEvent.EventType.CREATED, 11L, 0L)));
+
+        List<ConsumerRecord<String, NoteEvent>> next = sequencer.order(List.of(
+                record(3, NoteEvent.EventType.UPDATED, 10L, 4L),
+                record(4, NoteEvent.EventType.UPDATED, 10L, 6L),
+                record(5, NoteEvent.EventType.CREATED, 11L, 0L)));
+
+        assertThat(next).extracting(ConsumerRecord::offset).containsExactly(4L);
+    }
+
+    private static ConsumerRecord<String, NoteEvent> record(long offset, NoteEvent.EventType type, Long noteId, Long version) {
+        NoteEvent event = new NoteEvent(type, noteId);
+        event.setVersion(version);
+        return new ConsumerRecord<>("note-events", 0, offset, String.valueOf(noteId), event);
+    }
+}
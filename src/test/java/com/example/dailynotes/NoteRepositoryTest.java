@@ -1,13 +1,19 @@
 package com.example.dailynotes;
 
+import com.example.dailynotes.dto.NoteDayStats;
+import com.example.dailynotes.dto.NoteListItem;
 import com.example.dailynotes.entity.Note;
 import com.example.dailynotes.repository.NoteRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 public class NoteRepositoryTest {
@@ -31,4 +37,47 @@ public class NoteRepositoryTest {
         assertThat(found.getTitle()).isEqualTo(note.getTitle());
 
     }
+
+    @Test
+    public void whenFindByDateRange_thenReturnProjectionsAndDailyStats(){
+        LocalDate day = LocalDate.of(2025, 5, 10);
+        Note done = new Note("Выполнена", "Содержание", day, 10.0);
+        done.setCompleted(true);
+        entityManager.persist(done);
+        entityManager.persist(new Note("Не выполнена", "Содержание", day, 10.0));
+        entityManager.persist(new Note("Следующий день", "Содержание", day.plusDays(1), 10.0));
+        entityManager.persist(new Note("Вне периода", "Содержание", day.plusDays(5), 10.0));
+        entityManager.flush();
+
+        List<NoteListItem> items = noteRepository.findListItemsBetween(day, day.plusDays(1));
+        List<NoteDayStats> stats = noteRepository.findDayStatsBetween(day, day.plusDays(1));
+
+        assertThat(items).extracting(NoteListItem::getTitle)
+                .containsExactly("Выполнена", "Не выполнена", "Следующий день");
+        assertThat(stats).hasSize(2);
+        assertThat(stats.get(0).getDate()).isEqualTo(day);
+        assertThat(stats.get(0).getTotal()).isEqualTo(2);
+        assertThat(stats.get(0).getCompleted()).isEqualTo(1);
+        assertThat(stats.get(0).getCompletionRatio()).isEqualTo(0.5);
+        assertThat(stats.get(1).getCompletionRatio()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void whenSeekAfterCursor_thenReturnNextPageInDateIdOrder(){
+        LocalDate day = LocalDate.of(2025, 6, 1);
+        Note later = entityManager.persist(new Note("Позже", "Содержание", day.plusDays(1), 50.0));
+        Note first = entityManager.persist(new Note("Первая", "Содержание", day, 50.0));
+        Note second = entityManager.persist(new Note("Вторая", "Содержание", day, 50.0));
+        Note heavy = entityManager.persist(new Note("Тяжелая", "Содержание", day, 90.0));
+        entityManager.flush();
+
+        List<NoteListItem> firstPage = noteRepository.findListPage(null, null, 60.0, PageRequest.of(0, 2));
+        NoteListItem last = firstPage.get(1);
+        List<NoteListItem> nextPage = noteRepository.findListPageAfter(last.getDate(), last.getId(),
+                null, null, 60.0, PageRequest.of(0, 2));
+
+        assertThat(firstPage).extracting(NoteListItem::getId).containsExactly(first.getId(), second.getId());
+        assertThat(nextPage).extracting(NoteListItem::getId).containsExactly(later.getId());
+        assertThat(nextPage).extracting(NoteListItem::getId).doesNotContain(heavy.getId());
+    }
 }
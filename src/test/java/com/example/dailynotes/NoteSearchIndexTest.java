@@ -0,0 +1,151 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.dto.NoteSearchResult;
+import com.example.dailynotes.dto.NoteVersionRow;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.exception.ValidationException;
+import com.example.dailynotes.repository.NoteRepository;
+import com.example.dailynotes.search.NoteSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NoteSearchIndexTest {
+
+    @TempDir
+    Path indexDir;
+
+    private final NoteRepository noteRepository = mock(NoteRepository.class);
+    private NoteSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new NoteSearchIndex(noteRepository);
+        ReflectionTestUtils.setField(index, "rebuildIfStale", true);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "indexDir", indexDir.toString());
+        ReflectionTestUtils.setField(index, "ramBufferMb", 16.0);
+        ReflectionTestUtils.setField(index, "segmentsPerTier", 10.0);
+        ReflectionTestUtils.setField(index, "maxMergedSegmentMb", 64.0);
+        ReflectionTestUtils.setField(index, "rebuildBatchSize", 100);
+        // По умолчанию события совпадают с текущими версиями заметок в БД
+        when(noteRepository.findVersionsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> new NoteVersionRow(null, id, 0L)).toList();
+        });
+        index.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.destroy();
+    }
+
+    @Test
+    void search_ShouldMatchWordFormsAndRankTitleHigher() {
+        index.apply(List.of(
+                event(NoteEvent.EventType.CREATED, 1L, "Покупки", "Купить книги по Java", LocalDate.of(2025, 3, 1)),
+                event(NoteEvent.EventType.CREATED, 2L, "Книга прочитана", "Закончил вечером", LocalDate.of(2025, 3, 2)),
+                event(NoteEvent.EventType.CREATED, 3L, "Тренировка", "Зарядка утром", LocalDate.of(2025, 4, 1))));
+
+        NoteSearchResult result = index.search("книгу", null, null, 10);
+
+        assertEquals(2, result.getTotalHits());
+        assertEquals(2L, result.getHits().get(0).getId());
+        assertEquals(1L, result.getHits().get(1).getId());
+
+        NoteSearchResult march = index.search("книги", LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 31), 10);
+        assertEquals(1, march.getTotalHits());
+        assertEquals(LocalDate.of(2025, 3, 2), march.getHits().get(0).getDate());
+    }
+
+    @Test
+    void apply_UpdateAndDelete_ShouldReplaceDocuments() {
+        index.apply(List.of(
+                event(NoteEvent.EventType.CREATED, 1L, "Ёлка", "Нарядить", LocalDate.of(2025, 12, 30))));
+        index.apply(List.of(
+                event(NoteEvent.EventType.UPDATED, 1L, "Елка", "Нарядить к празднику", LocalDate.of(2025, 12, 31)),
+                event(NoteEvent.EventType.CREATED, 2L, "Праздник", "Гости", LocalDate.of(2025, 12, 31))));
+
+        assertEquals(1, index.search("ёлка", null, null, 10).getTotalHits());
+        assertEquals(2, index.search("праздник", null, null, 10).getTotalHits());
+        assertEquals(2, index.getStatus().getDocuments());
+
+        index.apply(List.of(new NoteEvent(NoteEvent.EventType.DELETED, 2L)));
+
+        assertEquals(1, index.search("праздник", null, null, 10).getTotalHits());
+        assertThrows(ValidationException.class, () -> index.search("  ", null, null, 10));
+    }
+
+    @Test
+    void apply_EventOlderThanDatabase_ShouldBeSkipped() {
+        NoteEvent created = event(NoteEvent.EventType.CREATED, 1L, "Покупки", "Купить книги", LocalDate.of(2025, 3, 1));
+        index.apply(List.of(created));
+        // Заметка уже на версии 2, а relay повторно прислал версию 1 со старым текстом
+        when(noteRepository.findVersionsByIdIn(anyCollection()))
+                .thenReturn(List.of(new NoteVersionRow(null, 1L, 2L)));
+        NoteEvent resent = event(NoteEvent.EventType.UPDATED, 1L, "Покупки", "Купить хлеб", LocalDate.of(2025, 3, 1));
+        resent.setVersion(1L);
+
+        index.apply(List.of(resent));
+
+        assertEquals(1, index.search("книги", null, null, 10).getTotalHits());
+        assertEquals(0, index.search("хлеб", null, null, 10).getTotalHits());
+    }
+
+    @Test
+    void rebuildIfStale_IndexOutlivingDatabase_ShouldBeRebuiltFromDatabase() throws Exception {
+        index.apply(List.of(
+                event(NoteEvent.EventType.CREATED, 1L, "Покупки", "Купить книги", LocalDate.of(2025, 3, 1)),
+                event(NoteEvent.EventType.CREATED, 2L, "Книга", "Прочитать", LocalDate.of(2025, 3, 2))));
+        // БД в памяти пересоздана после перезапуска: в ней одна другая заметка
+        Note note = new Note("Тренировка", "Зарядка", LocalDate.of(2025, 4, 1), 0.0);
+        note.setId(1L);
+        when(noteRepository.count()).thenReturn(1L);
+        when(noteRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.of(note));
+
+        index.rebuildIfStale();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (index.getStatus().isRebuilding() || index.getStatus().getLastRebuildAt() == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "Перестроение не завершилось");
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, index.getStatus().getDocuments());
+        assertEquals(0, index.search("книги", null, null, 10).getTotalHits());
+        assertEquals(1, index.search("зарядка", null, null, 10).getTotalHits());
+    }
+
+    @Test
+    void rebuildIfStale_IndexMatchingDatabase_ShouldNotRebuild() {
+        index.apply(List.of(
+                event(NoteEvent.EventType.CREATED, 1L, "Покупки", "Купить книги", LocalDate.of(2025, 3, 1))));
+        when(noteRepository.count()).thenReturn(1L);
+
+        index.rebuildIfStale();
+
+        assertFalse(index.getStatus().isRebuilding());
+        assertNull(index.getStatus().getLastRebuildAt());
+    }
+
+    private static NoteEvent event(NoteEvent.EventType type, Long id, String title, String content, LocalDate date) {
+        Note note = new Note(title, content, date, 0.0);
+        note.setId(id);
+        return new NoteEvent(type, note);
+    }
+}
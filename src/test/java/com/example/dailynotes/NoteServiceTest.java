@@ -2,6 +2,8 @@ package com.example.dailynotes;
 
 import com.example.dailynotes.entity.Note;
 import com.example.dailynotes.repository.NoteRepository;
+import com.example.dailynotes.service.NoteCacheService;
+import com.example.dailynotes.service.OutboxService;
 import com.example.dailynotes.service.NoteService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +21,12 @@ public class NoteServiceTest {
     @Mock
     private NoteRepository noteRepository;
 
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private NoteCacheService noteCacheService;
+
     @InjectMocks
     private NoteService noteService;
 
@@ -0,0 +1,153 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.dto.NoteStatsBucket;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.service.NoteStatsService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(NoteStatsService.class)
+public class NoteStatsServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    @Autowired
+    private NoteStatsService noteStatsService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void apply_ShouldKeepCountersAndSkipRedeliveredOffsets() {
+        List<ConsumerRecord<String, NoteEvent>> first = List.of(
+                record(0, event(NoteEvent.EventType.CREATED, 1L, MONDAY, 2.0, false)),
+                record(1, event(NoteEvent.EventType.CREATED, 2L, MONDAY, 3.0, false)),
+                record(2, event(NoteEvent.EventType.CREATED, 3L, MONDAY.plusDays(1), 5.0, false)),
+                record(3, event(NoteEvent.EventType.TOGGLED, 1L, MONDAY, 2.0, true, 1)));
+        noteStatsService.apply(first);
+        // Повторная доставка той же пачки ничего не меняет
+        noteStatsService.apply(first);
+
+        NoteEvent moved = event(NoteEvent.EventType.UPDATED, 2L, MONDAY.plusDays(7), 4.0, false, 1);
+        moved.setPreviousDate(MONDAY);
+        moved.setPreviousWeight(3.0);
+        noteStatsService.apply(List.of(
+                record(4, moved),
+                record(5, event(NoteEvent.EventType.DELETED, 3L, MONDAY.plusDays(1), 5.0, false, 1))));
+
+        List<NoteStatsBucket> days = noteStatsService.getStats(MONDAY, MONDAY.plusDays(1), NoteStatsService.Granularity.DAY);
+        assertThat(days).hasSize(2);
+        assertThat(days.get(0).getNotesCount()).isEqualTo(1);
+        assertThat(days.get(0).getCompletedCount()).isEqualTo(1);
+        assertThat(days.get(0).getTotalWeight()).isEqualTo(2.0);
+        assertThat(days.get(1).getNotesCount()).isZero();
+
+        List<NoteStatsBucket> weeks = noteStatsService.getStats(MONDAY.plusDays(3), MONDAY.plusDays(8), NoteStatsService.Granularity.WEEK);
+        assertThat(weeks).extracting(NoteStatsBucket::getPeriodStart).containsExactly(MONDAY, MONDAY.plusDays(7));
+        assertThat(weeks.get(1).getNotesCount()).isEqualTo(1);
+        assertThat(weeks.get(1).getTotalWeight()).isEqualTo(4.0);
+
+        NoteStatsBucket month = noteStatsService.getStats(MONDAY, MONDAY, NoteStatsService.Granularity.MONTH).get(0);
+        assertThat(month.getPeriodStart()).isEqualTo(LocalDate.of(2025, 6, 1));
+        assertThat(month.getNotesCount()).isEqualTo(2);
+        assertThat(month.getCompletionRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void apply_ResentEventAtNewOffset_ShouldNotBeCountedTwice() {
+        NoteEvent created = event(NoteEvent.EventType.CREATED, 1L, MONDAY, 2.0, false);
+        noteStatsService.apply(List.of(record(0, created)));
+        // Relay отправил то же событие еще раз после таймаута подтверждения
+        noteStatsService.apply(List.of(record(1, created)));
+
+        NoteStatsBucket day = noteStatsService.getStats(MONDAY, MONDAY, NoteStatsService.Granularity.DAY).get(0);
+        assertThat(day.getNotesCount()).isEqualTo(1);
+        assertThat(day.getTotalWeight()).isEqualTo(2.0);
+    }
+
+    @Test
+    void apply_VersionGap_ShouldMoveNoteByStateFromEvent() {
+        NoteEvent created = event(NoteEvent.EventType.CREATED, 1L, MONDAY, 2.0, false);
+        noteStatsService.apply(List.of(record(0, created)));
+
+        // Версия 1 (перенос на вторник) не дошла, версия 2 переносит заметку со вторника на среду
+        NoteEvent moved = event(NoteEvent.EventType.UPDATED, 1L, MONDAY.plusDays(2), 7.0, false, 2);
+        moved.setPreviousDate(MONDAY.plusDays(1));
+        noteStatsService.apply(List.of(record(1, moved)));
+
+        List<NoteStatsBucket> days = noteStatsService.getStats(MONDAY, MONDAY.plusDays(2), NoteStatsService.Granularity.DAY);
+        assertThat(days).extracting(NoteStatsBucket::getNotesCount).containsExactly(0L, 0L, 1L);
+        assertThat(days.get(0).getTotalWeight()).isZero();
+        assertThat(days.get(2).getTotalWeight()).isEqualTo(7.0);
+    }
+
+    @Test
+    void apply_EventsAlreadyCountedFromNotes_ShouldBeSkipped() {
+        Note note = new Note("Заметка", "", MONDAY, 3.0);
+        entityManager.persistAndFlush(note);
+        assertThat(noteStatsService.backfill()).isEqualTo(1);
+        // Повторный учет ничего не находит
+        assertThat(noteStatsService.backfill()).isZero();
+
+        // Событие создания еще лежало в Kafka, когда заметка была учтена по notes
+        noteStatsService.apply(List.of(
+                record(0, event(NoteEvent.EventType.CREATED, note.getId(), MONDAY, 3.0, false, note.getVersion()))));
+        NoteStatsBucket day = noteStatsService.getStats(MONDAY, MONDAY, NoteStatsService.Granularity.DAY).get(0);
+        assertThat(day.getNotesCount()).isEqualTo(1);
+        assertThat(day.getTotalWeight()).isEqualTo(3.0);
+
+        // Следующая версия меняет учтенное состояние
+        noteStatsService.apply(List.of(record(1,
+                event(NoteEvent.EventType.TOGGLED, note.getId(), MONDAY, 3.0, true, note.getVersion() + 1))));
+        // Тест идет в одной транзакции: дневная строка, прочитанная выше, осталась в контексте Hibernate
+        entityManager.clear();
+        day = noteStatsService.getStats(MONDAY, MONDAY, NoteStatsService.Granularity.DAY).get(0);
+        assertThat(day.getNotesCount()).isEqualTo(1);
+        assertThat(day.getCompletedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void apply_BulkImported_ShouldCountOnlyUncountedNotes() {
+        Note counted = new Note("Учтена", "", MONDAY, 1.0);
+        Note imported = new Note("Импорт", "", MONDAY, 2.0);
+        entityManager.persist(counted);
+        entityManager.persistAndFlush(imported);
+        NoteEvent bulk = new NoteEvent();
+        bulk.setEventType(NoteEvent.EventType.BULK_IMPORTED);
+        noteStatsService.apply(List.of(
+                record(0, event(NoteEvent.EventType.CREATED, counted.getId(), MONDAY, 1.0, false, counted.getVersion())),
+                record(1, bulk)));
+
+        NoteStatsBucket day = noteStatsService.getStats(MONDAY, MONDAY, NoteStatsService.Granularity.DAY).get(0);
+        assertThat(day.getNotesCount()).isEqualTo(2);
+        assertThat(day.getTotalWeight()).isEqualTo(3.0);
+    }
+
+    private static ConsumerRecord<String, NoteEvent> record(long offset, NoteEvent event) {
+        return new ConsumerRecord<>("note-events", 0, offset, null, event);
+    }
+
+    private static NoteEvent event(NoteEvent.EventType type, Long id, LocalDate date, double weight, boolean completed) {
+        return event(type, id, date, weight, completed, 0);
+    }
+
+    private static NoteEvent event(NoteEvent.EventType type, Long id, LocalDate date, double weight, boolean completed,
+                                   long version) {
+        Note note = new Note("Заметка " + id, "", date, weight);
+        note.setId(id);
+        note.setCompleted(completed);
+        note.setVersion(version);
+        return new NoteEvent(type, note);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.controller.NoteApiController;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.repository.NoteRepository;
+import com.example.dailynotes.service.NoteCacheService;
+import com.example.dailynotes.service.NoteService;
+import com.example.dailynotes.service.NoteVersionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest
+@Import({NoteVersionService.class, NoteCacheService.class, NoteVersionServiceTest.Caches.class})
+public class NoteVersionServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2031, 3, 14);
+
+    @TestConfiguration
+    static class Caches {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private NoteVersionService noteVersionService;
+
+    @Autowired
+    private NoteCacheService noteCacheService;
+
+    @Test
+    void versions_ShouldMatchServedNotesAndBeEvictedOnlyAfterCommit() {
+        Note note = noteRepository.saveAndFlush(new Note("Утро", "Зарядка", DAY, 1.0));
+        Note other = noteRepository.saveAndFlush(new Note("Вечер", "Чтение", DAY, 2.0));
+        String noteETag = noteVersionService.noteETag(note.getId());
+        String dayETag = noteVersionService.dateETag(DAY);
+        String rangeETag = noteVersionService.rangeETag(DAY.minusDays(3), DAY.plusDays(3));
+        assertThat(noteETag).isEqualTo(NoteVersionService.noteETag(note));
+        assertThat(dayETag).isEqualTo(NoteVersionService.dateETag(DAY, List.of(other, note)));
+
+        note.setCompleted(true);
+        noteRepository.saveAndFlush(note);
+        noteCacheService.evictAfterWrite(note.getId(), DAY);
+        // До коммита в БД видны только старые версии, кэш версий не сбрасывается
+        assertThat(noteVersionService.noteETag(note.getId())).isEqualTo(noteETag);
+        assertThat(noteVersionService.dateETag(DAY)).isEqualTo(dayETag);
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        try {
+            assertThat(noteVersionService.noteETag(note.getId()))
+                    .isNotEqualTo(noteETag)
+                    .isEqualTo(NoteVersionService.noteETag(note));
+            assertThat(noteVersionService.dateETag(DAY))
+                    .isNotEqualTo(dayETag)
+                    .isEqualTo(NoteVersionService.dateETag(DAY, List.of(note, other)));
+            assertThat(noteVersionService.rangeETag(DAY.minusDays(3), DAY.plusDays(3))).isNotEqualTo(rangeETag);
+        } finally {
+            noteRepository.deleteAllById(List.of(note.getId(), other.getId()));
+        }
+    }
+
+    @Test
+    void getNote_WithCurrentETag_ShouldReturn304WithoutLoadingNote() throws Exception {
+        Note note = noteRepository.saveAndFlush(new Note("Утро", "Зарядка", DAY, 1.0));
+        NoteService noteService = mock(NoteService.class);
+        when(noteService.findNoteById(note.getId())).thenReturn(note);
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new NoteApiController(noteService, noteVersionService, new ObjectMapper()))
+                .build();
+
+        String eTag = mockMvc.perform(get("/api/notes/{id}", note.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isEqualTo(NoteVersionService.noteETag(note));
+
+        mockMvc.perform(get("/api/notes/{id}", note.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        verify(noteService, times(1)).findNoteById(note.getId());
+
+        mockMvc.perform(get("/api/notes/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.entity.OutboxEvent;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.repository.OutboxEventRepository;
+import com.example.dailynotes.service.KafkaProducerService;
+import com.example.dailynotes.service.OutboxRelay;
+import com.example.dailynotes.service.OutboxService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({OutboxRelay.class, OutboxService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class OutboxRelayTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @MockitoBean
+    private KafkaProducerService kafkaProducerService;
+
+    @Test
+    void relay_ShouldDeleteOnlyAckedEventsAndParkUnreadableOnes() {
+        when(kafkaProducerService.publish(any())).thenAnswer(invocation -> {
+            NoteEvent event = invocation.getArgument(0);
+            return event.getNoteId() == 3L
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture(null);
+        });
+        outboxService.append(new NoteEvent(NoteEvent.EventType.CREATED, 1L));
+        OutboxEvent unreadable = outboxEventRepository.save(new OutboxEvent(2L, "CREATED", "not json"));
+        outboxService.append(new NoteEvent(NoteEvent.EventType.CREATED, 3L));
+        outboxService.append(new NoteEvent(NoteEvent.EventType.CREATED, 4L));
+
+        outboxRelay.relay();
+        entityManager.clear();
+
+        assertThat(outboxEventRepository.findAll())
+                .extracting(OutboxEvent::getAggregateId, OutboxEvent::getStatus)
+                .containsExactlyInAnyOrder(
+                        tuple(2L, OutboxEvent.STATUS_FAILED),
+                        tuple(3L, OutboxEvent.STATUS_PENDING));
+        assertThat(outboxRelay.getStatus().getBacklog()).isEqualTo(1);
+        assertThat(outboxRelay.getStatus().getFailed()).isEqualTo(1);
+
+        // Транзакция с меньшим ID, закоммиченная после отправки более поздних событий, не теряется
+        entityManager.getEntityManager().createNativeQuery(
+                        "insert into outbox_events (id, aggregate_id, event_type, payload, created_at, status) "
+                                + "values (-1, 5, 'CREATED', ?, current_timestamp, 'PENDING')")
+                .setParameter(1, "{\"eventType\":\"CREATED\",\"noteId\":5}")
+                .executeUpdate();
+        outboxRelay.relay();
+        entityManager.clear();
+
+        List<OutboxEvent> left = outboxEventRepository.findAll();
+        assertThat(left).extracting(OutboxEvent::getAggregateId).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(outboxEventRepository.findById(unreadable.getId()))
+                .get().extracting(OutboxEvent::getStatus).isEqualTo(OutboxEvent.STATUS_FAILED);
+    }
+}
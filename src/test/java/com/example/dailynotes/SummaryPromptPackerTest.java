@@ -0,0 +1,50 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.service.SummaryPromptPacker;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SummaryPromptPackerTest {
+
+    @Test
+    void pack_ShouldRespectTokenBudgetAndNoteLimit() {
+        SummaryPromptPacker packer = new SummaryPromptPacker(1000, 5, 4000);
+        List<Note> notes = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            Note note = new Note("Заметка " + i, "x".repeat(i % 3 == 0 ? 600 : 60), LocalDate.of(2025, 5, 1), 0);
+            note.setId((long) i);
+            notes.add(note);
+        }
+        Note huge = new Note("Огромная", "y".repeat(50_000), LocalDate.of(2025, 5, 1), 0);
+        huge.setId(41L);
+        notes.add(huge);
+
+        List<SummaryPromptPacker.Batch> batches = packer.pack(notes);
+
+        assertEquals(41, batches.stream().mapToInt(batch -> batch.notes().size()).sum());
+        for (SummaryPromptPacker.Batch batch : batches) {
+            assertTrue(batch.notes().size() <= 5);
+            assertTrue(batch.estimatedTokens() <= 1000, "оценка промпта: " + batch.estimatedTokens());
+            assertTrue(packer.render(batch).contains("### id=" + batch.notes().get(0).noteId()));
+        }
+        assertTrue(batches.size() < notes.size());
+    }
+
+    @Test
+    void parse_ShouldReadJsonArrayInsideText() {
+        String content = "Вот резюме:\n```json\n[{\"id\": 3, \"summary\": \"Про спорт\"},"
+                + " {\"id\": \"4\", \"summary\": \" Про работу \"}, {\"summary\": \"без id\"}]\n```";
+
+        Map<Long, String> summaries = SummaryPromptPacker.parse(content);
+
+        assertEquals(Map.of(3L, "Про спорт", 4L, "Про работу"), summaries);
+        assertTrue(SummaryPromptPacker.parse("не JSON").isEmpty());
+    }
+}
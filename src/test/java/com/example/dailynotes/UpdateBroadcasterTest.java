@@ -0,0 +1,181 @@
+package com.example.dailynotes;
+
+import com.example.dailynotes.controller.UpdateController;
+import com.example.dailynotes.event.NoteEvent;
+import com.example.dailynotes.push.UpdateBroadcaster;
+import com.example.dailynotes.push.UpdateNotice;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class UpdateBroadcasterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2031, 3, 14);
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+    private UpdateBroadcaster broadcaster;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new UpdateBroadcaster(redisTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(broadcaster, "channel", "updates");
+        ReflectionTestUtils.setField(broadcaster, "clusterEnabled", true);
+        ReflectionTestUtils.setField(broadcaster, "maxConnections", 2);
+        ReflectionTestUtils.setField(broadcaster, "timeoutMinutes", 1L);
+        // Отправку запускает тест через flushPending, а не расписание
+        ReflectionTestUtils.setField(broadcaster, "coalesceMillis", 600_000L);
+        ReflectionTestUtils.setField(broadcaster, "heartbeatSeconds", 600L);
+        ReflectionTestUtils.setField(broadcaster, "slowConsumerMillis", 5_000L);
+        ReflectionTestUtils.setField(broadcaster, "senderThreads", 1);
+        ReflectionTestUtils.setField(broadcaster, "senderQueueCapacity", 1);
+        broadcaster.afterPropertiesSet();
+        mockMvc = MockMvcBuilders.standaloneSetup(new UpdateController(broadcaster)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    void burstOfChanges_ShouldBeCoalescedIntoOneEventPerSubscriber() throws Exception {
+        MockHttpServletResponse dayStream = subscribe("/api/updates/notes?date=" + DAY);
+        MockHttpServletResponse otherDayStream = subscribe("/api/updates/notes?date=" + DAY.plusDays(5));
+
+        NoteEvent moved = new NoteEvent(NoteEvent.EventType.UPDATED, 3L);
+        moved.setDate(DAY.plusDays(1));
+        moved.setPreviousDate(DAY);
+        broadcaster.notesChanged(List.of(event(1L, DAY), event(2L, DAY), moved));
+        broadcaster.notesChanged(List.of(event(1L, DAY)));
+        broadcaster.flushPending();
+
+        String content = awaitContent(dayStream, "event:changed");
+        assertThat(content.split("event:changed", -1)).hasSize(2);
+        // Одно уведомление на пачку событий: две пачки до отправки - одно событие с changes = 2
+        assertThat(content).contains("\"changes\":2").contains("notes:" + DAY);
+        assertThat(otherDayStream.getContentAsString()).doesNotContain("event:changed");
+
+        // Соседние даты пачки уходят другим узлам одним диапазоном
+        ArgumentCaptor<Object> notices = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate, times(2)).convertAndSend(eq("updates"), notices.capture());
+        UpdateNotice first = (UpdateNotice) notices.getAllValues().get(0);
+        assertThat(first.getFrom()).isEqualTo(DAY);
+        assertThat(first.getTo()).isEqualTo(DAY.plusDays(1));
+        assertThat(broadcaster.isOwnNotice(first)).isTrue();
+    }
+
+    @Test
+    void subscriptionsOverLimit_ShouldBeRejectedWith503() throws Exception {
+        subscribe("/api/updates/notes?date=" + DAY);
+        subscribe("/api/updates/plans/month?planYear=2031&planMonth=3");
+
+        mockMvc.perform(get("/api/updates/notes").param("date", DAY.toString()))
+                .andExpect(status().isServiceUnavailable());
+        assertThat(broadcaster.getConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void fullSenderQueue_ShouldDeferSendUntilNextFlush() throws Exception {
+        MockHttpServletResponse dayStream = subscribe("/api/updates/notes?date=" + DAY);
+        // Единственный поток пула занят, очередь из одного места заполнена
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService sender = (ExecutorService) ReflectionTestUtils.getField(broadcaster, "sender");
+        sender.execute(() -> awaitQuietly(release));
+        sender.execute(() -> { });
+
+        broadcaster.notesChanged(List.of(event(1L, DAY)));
+        broadcaster.flushPending();
+        Thread.sleep(100);
+        assertThat(dayStream.getContentAsString()).doesNotContain("event:changed");
+
+        release.countDown();
+        Thread.sleep(100);
+        broadcaster.flushPending();
+
+        assertThat(awaitContent(dayStream, "event:changed")).contains("\"changes\":1");
+    }
+
+    @Test
+    void clientNotReadingEvents_ShouldBeDroppedWithoutHoldingSenderThread() throws Exception {
+        ReflectionTestUtils.setField(broadcaster, "slowConsumerMillis", 50L);
+        // Поток ответа в неблокирующем режиме: прошлая запись так и не ушла клиенту
+        ServletOutputStream output = mock(ServletOutputStream.class);
+        when(output.isReady()).thenReturn(false);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(output);
+        broadcaster.subscribeToDate(DAY, response);
+
+        broadcaster.notesChanged(List.of(event(1L, DAY)));
+        broadcaster.flushPending();
+        verify(output, timeout(1_000)).setWriteListener(any(WriteListener.class));
+        Thread.sleep(100);
+        broadcaster.flushPending();
+
+        assertThat(broadcaster.getConnections()).isZero();
+        // Единственный поток пула свободен
+        CountDownLatch ran = new CountDownLatch(1);
+        ExecutorService sender = (ExecutorService) ReflectionTestUtils.getField(broadcaster, "sender");
+        sender.execute(ran::countDown);
+        assertThat(ran.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private MockHttpServletResponse subscribe(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    private static NoteEvent event(Long noteId, LocalDate date) {
+        NoteEvent event = new NoteEvent(NoteEvent.EventType.TOGGLED, noteId);
+        event.setDate(date);
+        return event;
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Даем отправителю время на возможное лишнее событие
+        Thread.sleep(100);
+        return response.getContentAsString();
+    }
+}
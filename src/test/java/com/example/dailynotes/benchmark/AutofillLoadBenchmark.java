@@ -0,0 +1,182 @@
+package com.example.dailynotes.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочный тест блокирующего запроса: одновременные POST /plans/month/autofill, каждый
+ * ждет медленный AI-сервис шаблонов задач (заглушка с задержкой) через WebClient.block(),
+ * затем создает план в H2. Сравниваются платформенные потоки Tomcat (по умолчанию 200)
+ * и spring.threads.virtual.enabled=true.
+ *
+ * Пул соединений к сервису шаблонов в тесте увеличен, чтобы ограничением были потоки, а не он.
+ * Задержка AI по умолчанию 10 секунд (обычное время ответа LLM) - так запросы упираются
+ * в число потоков, а не в процессор. Виртуальный режим требует Java 21 (на Java 17 пропускается).
+ *
+ * Запуск: main([запросов], [задержка AI, мс]) печатает время, задержки и пиковое число
+ * одновременных запросов к AI по режимам и пишет их в target/jmh/autofill-load.json.
+ */
+public class AutofillLoadBenchmark {
+
+    static final int WARMUP_REQUESTS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int delayMillis = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        SlowAiStub stub = new SlowAiStub(delayMillis);
+        List<String> results = new ArrayList<>();
+        try {
+            results.add(run("platform", false, stub, requests, delayMillis));
+            if (Runtime.version().feature() >= 21) {
+                results.add(run("virtual", true, stub, requests, delayMillis));
+            } else {
+                System.out.println("virtual: пропущено, нужна Java 21 (сейчас " + Runtime.version() + ")");
+            }
+        } finally {
+            stub.stop();
+        }
+
+        File output = new File("target/jmh/autofill-load.json");
+        output.getParentFile().mkdirs();
+        Files.writeString(output.toPath(), "[\n  " + String.join(",\n  ", results) + "\n]\n");
+    }
+
+    private static String run(String mode, boolean virtualThreads, SlowAiStub stub,
+                              int requests, int delayMillis) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start("autofill-load-" + mode,
+                "spring.main.web-application-type=servlet",
+                "server.port=0",
+                "logging.level.com.example.dailynotes=WARN",
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "app.task-templates.url=http://127.0.0.1:" + stub.port(),
+                "app.http.client.task-templates.max-connections=" + requests,
+                "app.http.client.pending-acquire-max-count=" + requests * 2)) {
+            String url = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/plans/month/autofill";
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            fire(client, url, 0, WARMUP_REQUESTS);
+            stub.resetPeak();
+            long started = System.nanoTime();
+            long[] latencies = fire(client, url, WARMUP_REQUESTS, requests);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            Arrays.sort(latencies);
+            String summary = String.format(Locale.ROOT,
+                    "{\"mode\": \"%s\", \"requests\": %d, \"aiDelayMs\": %d, \"seconds\": %.2f, "
+                            + "\"requestsPerSecond\": %.1f, \"peakInFlight\": %d, \"p50Ms\": %d, \"p99Ms\": %d, \"maxMs\": %d}",
+                    mode, requests, delayMillis, seconds, requests / seconds, stub.peak(),
+                    percentile(latencies, 50), percentile(latencies, 99), latencies[latencies.length - 1]);
+            System.out.println(summary);
+            return summary;
+        }
+    }
+
+    /**
+     * Отправляет count запросов одновременно и возвращает задержку каждого в миллисекундах.
+     * Каждый запрос создает план на свой месяц, чтобы запросы не пересекались по данным.
+     */
+    private static long[] fire(HttpClient client, String url, int first, int count) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            String form = "planYear=" + (2000 + i / 12) + "&planMonth=" + (i % 12 + 1) + "&prompt=load";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofMinutes(2))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build();
+            long sent = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> {
+                        if (response.statusCode() != 302) {
+                            throw new IllegalStateException("Неожиданный ответ: " + response.statusCode());
+                        }
+                        return (System.nanoTime() - sent) / 1_000_000;
+                    }));
+        }
+        return futures.stream().mapToLong(CompletableFuture::join).toArray();
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Сервис шаблонов задач, который отвечает через delayMillis.
+     * peak - наибольшее число запросов, одновременно ожидавших ответа: сколько запросов
+     * приложение смогло держать в работе параллельно.
+     */
+    private static final class SlowAiStub {
+
+        private final HttpServer server;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        SlowAiStub(int delayMillis) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1000);
+            server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "slow-ai-stub");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            server.createContext("/ai/generate", exchange -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    exchange.getRequestBody().readAllBytes();
+                    Thread.sleep(delayMillis);
+                    byte[] body = "[{\"title\":\"AI task\",\"category\":\"AI\"}]".getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void resetPeak() {
+            peak.set(inFlight.get());
+        }
+
+        int peak() {
+            return peak.get();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+    }
+}
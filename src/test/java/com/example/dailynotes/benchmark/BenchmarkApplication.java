@@ -0,0 +1,60 @@
+package com.example.dailynotes.benchmark;
+
+import com.example.dailynotes.DailyNotepadPhoenixApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Приложение для бенчмарков сервисов: H2 в памяти и заглушки внешних систем в процессе,
+ * по умолчанию без веб-сервера.
+ *
+ * - Redis: L2 кэша в памяти ({@link InMemoryRedisCacheWriter}), pub/sub инвалидации выключен;
+ * - Kafka: consumer и outbox relay выключены, события только пишутся в outbox, топик не создается;
+ * - OpenAI: ключ не задан, а адрес API указывает на локальный порт - запросы наружу не уходят;
+ * - Lucene-индекс выключен (его наполняет consumer).
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param properties "ключ=значение", заменяют настройки по умолчанию с тем же ключом
+     */
+    static ConfigurableApplicationContext start(String database, String... properties) {
+        Map<String, String> all = new LinkedHashMap<>();
+        for (String property : List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "spring.main.web-application-type=none",
+                "spring.jpa.show-sql=false",
+                "spring.kafka.admin.auto-create=false",
+                "app.kafka.consumer.enabled=false",
+                "app.outbox.relay.enabled=false",
+                "app.cache.invalidation.enabled=false",
+                "app.search.enabled=false",
+                "openai.api.key=",
+                "openai.api.url=http://127.0.0.1:9/v1",
+                "logging.level.root=WARN")) {
+            put(all, property);
+        }
+        for (String property : properties) {
+            put(all, property);
+        }
+        // Аргументами командной строки, а не properties(): те ниже по приоритету, чем application.properties
+        return new SpringApplicationBuilder(DailyNotepadPhoenixApplication.class)
+                .initializers(context -> context.getBeanFactory()
+                        .registerSingleton("redisCacheWriter", new InMemoryRedisCacheWriter()))
+                .run(all.entrySet().stream()
+                        .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                        .toArray(String[]::new));
+    }
+
+    private static void put(Map<String, String> properties, String property) {
+        int separator = property.indexOf('=');
+        properties.put(property.substring(0, separator), property.substring(separator + 1));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dailynotes.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.io.File;
+
+/**
+ * Точка входа профиля benchmark в pom.xml: принимает аргументы командной строки JMH
+ * и перед запуском создает каталог для файла результатов (-rff).
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.getResult().hasValue()) {
+            File parent = new File(options.getResult().get()).getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+        }
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.dailynotes.benchmark;
+
+import com.example.dailynotes.codec.CacheCodecs;
+import com.example.dailynotes.entity.Note;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение кодеков значений кэша notesByDate: размер, время кодирования/декодирования
+ * и аллокации на операцию (gc.alloc.rate.norm из GCProfiler).
+ *
+ * Запуск: main() печатает размеры сообщений и пишет результаты JMH в target/jmh/cache-codec.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheCodecBenchmark {
+
+    @Param({CacheCodecs.JSON, CacheCodecs.BINARY, CacheCodecs.BINARY_LZ4})
+    public String codec;
+
+    @Param({"1", "20", "200"})
+    public int notesPerDay;
+
+    private RedisSerializer<Object> serializer;
+    private List<Note> notes;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = CacheCodecs.forName(codec, 512);
+        notes = sampleNotes(notesPerDay);
+        encoded = serializer.serialize(notes);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(notes);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    static List<Note> sampleNotes(int count) {
+        List<Note> notes = new ArrayList<>(count);
+        LocalDate date = LocalDate.of(2025, 5, 10);
+        for (int i = 0; i < count; i++) {
+            Note note = new Note("Заметка " + i,
+                    "Сегодня нужно сделать зарядку, прочитать статью про Kafka и повторить Java. " +
+                            "Пункт " + i + ": проверить план на месяц и отметить выполненные задачи.",
+                    date, 70.0 + i % 10);
+            note.setId(1000L + i);
+            note.setCompleted(i % 3 == 0);
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String name : List.of(CacheCodecs.JSON, CacheCodecs.BINARY, CacheCodecs.BINARY_LZ4)) {
+            RedisSerializer<Object> serializer = CacheCodecs.forName(name, 512);
+            for (int count : new int[]{1, 20, 200}) {
+                System.out.printf("payload codec=%-10s notes=%-4d bytes=%d%n",
+                        name, count, serializer.serialize(sampleNotes(count)).length);
+            }
+        }
+        Options options = new OptionsBuilder()
+                .include(CacheCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/cache-codec.json")
+                .build();
+        new java.io.File("target/jmh").mkdirs();
+        new Runner(options).run();
+    }
+}
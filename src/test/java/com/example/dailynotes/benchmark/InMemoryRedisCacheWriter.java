@@ -0,0 +1,90 @@
+package com.example.dailynotes.benchmark;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis для бенчмарков: хранилище L2 в памяти процесса вместо сервера.
+ *
+ * Значения проходят через те же кодеки RedisCacheManager, что и с настоящим Redis,
+ * поэтому в замер входит сериализация, но не сеть. TTL не учитывается: прогон
+ * короче любого TTL кэша.
+ */
+public class InMemoryRedisCacheWriter implements RedisCacheWriter {
+
+    private final Map<String, byte[]> store = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return store.get(key(key));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return CompletableFuture.completedFuture(get(name, key));
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        store.put(key(key), value);
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        put(name, key, value, ttl);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return store.putIfAbsent(key(key), value);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        store.remove(key(key));
+    }
+
+    /**
+     * Шаблон ключей RedisCache всегда вида "префикс*"
+     */
+    @Override
+    public void clean(String name, byte[] pattern) {
+        String keyPattern = key(pattern);
+        if (keyPattern.endsWith("*")) {
+            String prefix = keyPattern.substring(0, keyPattern.length() - 1);
+            store.keySet().removeIf(key -> key.startsWith(prefix));
+        } else {
+            store.remove(keyPattern);
+        }
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return this;
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return CacheStatisticsCollector.none().getCacheStatistics(cacheName);
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    private static String key(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.dailynotes.benchmark;
+
+import com.example.dailynotes.dto.MonthlyPlanGrid;
+import com.example.dailynotes.entity.MonthlyPlan;
+import com.example.dailynotes.entity.MonthlyTask;
+import com.example.dailynotes.service.MonthlyPlanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Страница месячного плана: чтение сетки (план, задачи и отметки по дням одним запросом)
+ * и отметка задачи за день, для планов на 10/100/1000 задач.
+ *
+ * Запуск: main() пишет результаты JMH в target/jmh/monthly-grid.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonthlyGridBenchmark {
+
+    static final int YEAR = 2025;
+    static final int MONTH = 3;
+
+    @Param({"10", "100", "1000"})
+    public int taskCount;
+
+    private ConfigurableApplicationContext context;
+    private MonthlyPlanService monthlyPlanService;
+    private List<Long> monthlyTaskIds;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("monthly-grid-" + taskCount);
+        monthlyPlanService = context.getBean(MonthlyPlanService.class);
+        MonthlyPlan plan = monthlyPlanService.createMonthlyPlan(YEAR, MONTH,
+                PlanCreationBenchmark.createTasks(context, taskCount));
+        monthlyTaskIds = monthlyPlanService.getMonthlyTasks(plan.getId()).stream()
+                .map(MonthlyTask::getId).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MonthlyPlanGrid> readGrid() {
+        return monthlyPlanService.getMonthlyPlanGrid(YEAR, MONTH);
+    }
+
+    @Benchmark
+    public void toggleDay() {
+        int i = step++;
+        monthlyPlanService.updateTaskDayStatus(monthlyTaskIds.get(i % monthlyTaskIds.size()), i % 31 + 1,
+                (i / 31) % 2 == 0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(MonthlyGridBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/monthly-grid.json")
+                .build();
+        new java.io.File("target/jmh").mkdirs();
+        new Runner(options).run();
+    }
+}
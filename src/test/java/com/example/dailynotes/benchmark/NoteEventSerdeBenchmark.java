@@ -0,0 +1,123 @@
+package com.example.dailynotes.benchmark;
+
+import com.example.dailynotes.codec.NoteEventDeserializer;
+import com.example.dailynotes.codec.NoteEventSerializer;
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.event.NoteEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формат событий заметок в Kafka: байт на событие и время сериализации/десериализации
+ * для JSON и бинарного формата (NoteEventCodec).
+ *
+ * Запуск: main() печатает размеры событий и пишет результаты JMH в target/jmh/note-event-serde.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteEventSerdeBenchmark {
+
+    static final String TOPIC = "note-events";
+
+    @Param({NoteEventSerializer.FORMAT_JSON, NoteEventSerializer.FORMAT_BINARY})
+    public String format;
+
+    @Param({"CREATED", "UPDATED", "TOGGLED"})
+    public String eventType;
+
+    @Param({"200", "2000"})
+    public int contentLength;
+
+    private NoteEventSerializer serializer;
+    private NoteEventDeserializer deserializer;
+    private NoteEvent event;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = serializer(format);
+        deserializer = new NoteEventDeserializer();
+        event = sampleEvent(NoteEvent.EventType.valueOf(eventType), contentLength);
+        encoded = serializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public NoteEvent deserialize() {
+        return deserializer.deserialize(TOPIC, encoded);
+    }
+
+    static NoteEventSerializer serializer(String format) {
+        NoteEventSerializer serializer = new NoteEventSerializer();
+        serializer.configure(Map.of(NoteEventSerializer.FORMAT_CONFIG, format), false);
+        return serializer;
+    }
+
+    /**
+     * UPDATED - правка заголовка и веса без изменения текста, как чаще всего и бывает
+     */
+    static NoteEvent sampleEvent(NoteEvent.EventType type, int contentLength) {
+        StringBuilder content = new StringBuilder(contentLength);
+        while (content.length() < contentLength) {
+            content.append("Сегодня нужно сделать зарядку, прочитать статью про Kafka и повторить Java. ");
+        }
+        Note note = new Note("Заметка на день", content.substring(0, contentLength), LocalDate.of(2025, 5, 10), 72.5);
+        note.setId(123_456L);
+        note.setVersion(7);
+        note.setCompleted(type == NoteEvent.EventType.TOGGLED);
+        NoteEvent event = new NoteEvent(type, note);
+        if (type == NoteEvent.EventType.UPDATED) {
+            event.setContentChanged(false);
+            event.setPreviousWeight(70.0);
+        }
+        return event;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String format : List.of(NoteEventSerializer.FORMAT_JSON, NoteEventSerializer.FORMAT_BINARY)) {
+            NoteEventSerializer serializer = serializer(format);
+            for (String type : List.of("CREATED", "UPDATED", "TOGGLED")) {
+                for (int length : new int[]{200, 2000}) {
+                    System.out.printf("payload format=%-7s type=%-8s content=%-5d bytes=%d%n", format, type, length,
+                            serializer.serialize(TOPIC, sampleEvent(NoteEvent.EventType.valueOf(type), length)).length);
+                }
+            }
+        }
+        Options options = new OptionsBuilder()
+                .include(NoteEventSerdeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/note-event-serde.json")
+                .build();
+        new java.io.File("target/jmh").mkdirs();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.dailynotes.benchmark;
+
+import com.example.dailynotes.repository.NoteRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка запросов заметок по дате при 10^4/10^5/10^6 заметок в таблице.
+ *
+ * Плотность постоянная (NOTES_PER_DAY в день), растет число дней, а окно запроса
+ * одно и то же - день, неделя и месяц в середине истории. С индексами на date и
+ * (date, completed) время не должно зависеть от размера таблицы.
+ *
+ * Запуск: main() печатает планы запросов H2 и пишет результаты JMH в target/jmh/note-range.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteRangeQueryBenchmark {
+
+    static final int NOTES_PER_DAY = 10;
+    static final LocalDate FIRST_DAY = LocalDate.of(1900, 1, 1);
+
+    @Param({"10000", "100000", "1000000"})
+    public int noteCount;
+
+    private ConfigurableApplicationContext context;
+    private NoteRepository noteRepository;
+    private LocalDate day;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = startApplication("note-range-" + noteCount);
+        noteRepository = context.getBean(NoteRepository.class);
+        fillNotes(context.getBean(JdbcTemplate.class), noteCount);
+        day = FIRST_DAY.plusDays(noteCount / NOTES_PER_DAY / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object notesOfDay() {
+        return noteRepository.findByDate(day);
+    }
+
+    @Benchmark
+    public Object notesOfWeek() {
+        return noteRepository.findListItemsBetween(day, day.plusDays(6));
+    }
+
+    @Benchmark
+    public Object dayStatsOfMonth() {
+        return noteRepository.findDayStatsBetween(day, day.plusDays(30));
+    }
+
+    static ConfigurableApplicationContext startApplication(String database) {
+        return BenchmarkApplication.start(database);
+    }
+
+    static void fillNotes(JdbcTemplate jdbcTemplate, int count) {
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{"Заметка " + i, "Содержание заметки " + i,
+                    Date.valueOf(FIRST_DAY.plusDays(i / NOTES_PER_DAY)), 70.0, i % 3 == 0});
+            if (batch.size() == 10_000 || i == count - 1) {
+                jdbcTemplate.batchUpdate(
+                        "insert into notes (title, content, date, weight, completed) values (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = startApplication("note-range-explain")) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            fillNotes(jdbcTemplate, 10_000);
+            Date from = Date.valueOf(FIRST_DAY.plusDays(100));
+            Date to = Date.valueOf(FIRST_DAY.plusDays(130));
+            System.out.println(jdbcTemplate.queryForObject(
+                    "explain select id, title, date, weight, completed from notes where date between ? and ?",
+                    String.class, from, to));
+            System.out.println(jdbcTemplate.queryForObject(
+                    "explain select date, count(*), sum(case when completed then 1 else 0 end) from notes "
+                            + "where date between ? and ? group by date",
+                    String.class, from, to));
+        }
+        Options options = new OptionsBuilder()
+                .include(NoteRangeQueryBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/note-range.json")
+                .build();
+        new java.io.File("target/jmh").mkdirs();
+        new Runner(options).run();
+    }
+}
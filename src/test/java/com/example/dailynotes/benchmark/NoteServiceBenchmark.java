@@ -0,0 +1,117 @@
+package com.example.dailynotes.benchmark;
+
+import com.example.dailynotes.entity.Note;
+import com.example.dailynotes.service.NoteCacheService;
+import com.example.dailynotes.service.NoteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание и чтение заметок через NoteService с кэшем и без него.
+ *
+ * cache=cached - чтение попадает в кэш (L1, при промахе L1 - Redis в памяти процесса);
+ * cache=uncached - перед каждым вызовом кэши заметок сбрасываются, поэтому замер
+ * включает запрос в H2 и запись результата в оба уровня кэша.
+ * createNote от параметра не зависит: это сохранение, запись в outbox и сброс кэша дня.
+ *
+ * Запуск: main() пишет результаты JMH в target/jmh/note-service.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteServiceBenchmark {
+
+    static final int NOTES_PER_DAY = 20;
+    static final LocalDate DAY = LocalDate.of(2025, 5, 10);
+
+    @Param({"cached", "uncached"})
+    public String cache;
+
+    private ConfigurableApplicationContext context;
+    private NoteService noteService;
+    private CacheManager cacheManager;
+    private String content;
+    private Long noteId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("note-service-" + cache);
+        noteService = context.getBean(NoteService.class);
+        cacheManager = context.getBean(CacheManager.class);
+        content = "Сегодня нужно сделать зарядку, прочитать статью про Kafka и повторить Java. ".repeat(3);
+        List<Note> notes = createNotes(noteService, DAY, NOTES_PER_DAY, content);
+        noteId = notes.get(NOTES_PER_DAY / 2).getId();
+    }
+
+    @Setup(Level.Invocation)
+    public void evictIfUncached() {
+        if ("uncached".equals(cache)) {
+            cacheManager.getCache(NoteCacheService.NOTES_BY_ID_CACHE).clear();
+            cacheManager.getCache(NoteCacheService.NOTES_BY_DATE_CACHE).clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Note createNote() {
+        // Новые заметки пишутся в другой день, чтобы не менять размер читаемого дня
+        return noteService.createNote("Новая заметка", content, 70.0, DAY.plusDays(1));
+    }
+
+    @Benchmark
+    public Note readById() {
+        return noteService.findNoteById(noteId);
+    }
+
+    @Benchmark
+    public List<Note> readByDate() {
+        return noteService.findNotesByDate(DAY);
+    }
+
+    static List<Note> createNotes(NoteService noteService, LocalDate date, int count, String content) {
+        List<Note> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            notes.add(noteService.createNote("Заметка " + i, content, 70.0 + i, date));
+        }
+        return notes;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(NoteServiceBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/note-service.json")
+                .build();
+        new java.io.File("target/jmh").mkdirs();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.dailynotes.benchmark;
+
+import com.example.dailynotes.entity.Task;
+import com.example.dailynotes.repository.TaskRepository;
+import com.example.dailynotes.service.MonthlyPlanService;
+import com.example.dailynotes.service.WeeklyPlanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время создания месячного и недельного плана на 10/100/1000 задач
+ * (пик записи при автозаполнении в начале месяца).
+ *
+ * Поднимает приложение на H2 без Kafka-consumer и outbox relay (см. BenchmarkApplication).
+ * Запуск: main() печатает число SQL-операторов и вставленных строк на один план
+ * и пишет результаты JMH в target/jmh/plan-creation.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanCreationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int taskCount;
+
+    private ConfigurableApplicationContext context;
+    private MonthlyPlanService monthlyPlanService;
+    private WeeklyPlanService weeklyPlanService;
+    private List<Long> taskIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = startApplication();
+        monthlyPlanService = context.getBean(MonthlyPlanService.class);
+        weeklyPlanService = context.getBean(WeeklyPlanService.class);
+        taskIds = createTasks(context, taskCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object createMonthlyPlan() {
+        return monthlyPlanService.createMonthlyPlan(2025, 3, taskIds);
+    }
+
+    @Benchmark
+    public Object createWeeklyPlan() {
+        return weeklyPlanService.createWeeklyPlan(2025, 10, taskIds);
+    }
+
+    static ConfigurableApplicationContext startApplication() {
+        return BenchmarkApplication.start("plan-benchmark",
+                "spring.jpa.properties.hibernate.generate_statistics=true");
+    }
+
+    static List<Long> createTasks(ConfigurableApplicationContext context, int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task task = new Task();
+            task.setTitle("Задача " + i);
+            task.setCategory("Шаблон");
+            tasks.add(task);
+        }
+        return context.getBean(TaskRepository.class).saveAll(tasks).stream().map(Task::getId).toList();
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = startApplication()) {
+            MonthlyPlanService service = context.getBean(MonthlyPlanService.class);
+            Statistics statistics = context.getBean(EntityManagerFactory.class)
+                    .unwrap(SessionFactory.class).getStatistics();
+            for (int count : new int[]{10, 100, 1000}) {
+                List<Long> ids = createTasks(context, count);
+                statistics.clear();
+                service.createMonthlyPlan(2025, 3, ids);
+                System.out.printf("monthly plan tasks=%-5d statements=%-4d inserts=%d%n",
+                        count, statistics.getPrepareStatementCount(), statistics.getEntityInsertCount());
+            }
+        }
+        Options options = new OptionsBuilder()
+                .include(PlanCreationBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/plan-creation.json")
+                .build();
+        new java.io.File("target/jmh").mkdirs();
+        new Runner(options).run();
+    }
+}